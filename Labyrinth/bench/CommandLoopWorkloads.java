@@ -0,0 +1,155 @@
+import benchmarks.Workload;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the command loop benchmarks: parsing a line of input, processing each command word,
+ * moving the NPCs, building the exit string of a room and playing a whole game from
+ * the entrance to the Minotaur and back out.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class CommandLoopWorkloads
+{
+    private static final long SEED = 42;
+    private static final String[] LINES = {"go north", "loot artefact 3", "answer hole", "fight Minotaur", "xyzzy plugh"};
+    // for every command word, commands that can be repeated forever in the main hall
+    private static final Map<String, String[]> COMMAND_CYCLES = Map.of(
+            "go", new String[] {"go east", "go west"},
+            "back", new String[] {"go east", "back"},
+            "quit", new String[] {"quit"},
+            "help", new String[] {"help"},
+            "take", new String[] {"take"},
+            "answer", new String[] {"answer hole"},
+            "fight", new String[] {"fight Minotaur"},
+            "run", new String[] {"run Monster"},
+            "loot", new String[] {"loot food"},
+            "press", new String[] {"press"});
+
+    /**
+     * @return a workload that tokenizes lines of input into a reused command
+     */
+    public static Workload parse()
+    {
+        Parser parser = new Parser();
+        Command command = new Command((CommandWord) null, null, null);
+        return new Workload()
+        {
+            private int next;
+
+            @Override
+            public long run()
+            {
+                next = (next + 1) % LINES.length;
+                return parser.parse(LINES[next], command).isUnknown() ? 0 : 1;
+            }
+        };
+    }
+
+    /**
+     * @param verb the command word being measured
+     * @return a workload that processes a cycle of commands with that word, one command at a time,
+     * in a new game in the main hall
+     */
+    public static Workload processCommand(String verb)
+    {
+        Parser parser = new Parser();
+        String[] lines = COMMAND_CYCLES.get(verb);
+        Command[] commands = new Command[lines.length];
+        for (int i = 0; i < lines.length; i++)
+        {
+            commands[i] = parser.parse(lines[i]);
+        }
+        Game game = newGameInMainHall();
+        return new Workload()
+        {
+            private int next;
+
+            @Override
+            public long run()
+            {
+                next = (next + 1) % commands.length;
+                return game.processCommand(commands[next]) ? 1 : 0;
+            }
+        };
+    }
+
+    /**
+     * @return a workload that moves all NPCs to new rooms
+     */
+    public static Workload moveNPCs()
+    {
+        Game game = new Game(new GameSettings(), SEED, new NullSink());
+        return () ->
+        {
+            game.moveNPCs();
+            return game.getCurrentRoom().hasNPC() ? 1 : 0;
+        };
+    }
+
+    /**
+     * @return a workload that builds the exit string of the main hall, which has four exits
+     */
+    public static Workload exitString()
+    {
+        Room mainHall = newGameInMainHall().getCurrentRoom();
+        return () -> mainHall.getExitString().length();
+    }
+
+    /**
+     * @return a workload that plays a whole game with the speedrun policy, from creating the game at the entrance
+     * over defeating the Minotaur to leaving the labyrinth
+     */
+    public static Workload winPath()
+    {
+        long winningSeed = findWinningSeed();
+        PlayerPolicy policy = new SpeedrunPolicy();
+        Random rand = new Random();
+        NullSink output = new NullSink();
+        return () ->
+        {
+            Game game = new Game(new GameSettings(), winningSeed, output);
+            int turns = 0;
+            while (!game.playTurn(policy.nextCommand(game, rand)))
+            {
+                turns++;
+            }
+            return turns;
+        };
+    }
+
+    /**
+     * @return the first seed from SEED onwards in which the speedrun policy wins the game
+     */
+    private static long findWinningSeed()
+    {
+        PlayerPolicy policy = new SpeedrunPolicy();
+        for (long seed = SEED; ; seed++)
+        {
+            Game game = new Game(new GameSettings(), seed, new NullSink());
+            int turns = 0;
+            while (turns < 200 && !game.playTurn(policy.nextCommand(game, null)))
+            {
+                turns++;
+            }
+            if (game.getOutcome() == GameOutcome.WON)
+            {
+                return seed;
+            }
+        }
+    }
+
+    /**
+     * @return a new game in which the player has walked into the main hall
+     */
+    private static Game newGameInMainHall()
+    {
+        Game game = new Game(new GameSettings(), SEED, new NullSink());
+        game.playTurn(new Command("go", "north"));
+        return game;
+    }
+}
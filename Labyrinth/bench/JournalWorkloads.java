@@ -0,0 +1,96 @@
+import benchmarks.Workload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the command journal benchmarks: appending commands to a journal,
+ * and replaying a long recorded game, the way a session is recovered.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class JournalWorkloads
+{
+    private static final long SEED = 42;
+    private static final int MAX_TURNS = 5000;
+
+    /**
+     * @return a workload that appends a command to a new journal. Closing it deletes the journal.
+     * @throws IOException if the journal cannot be created
+     */
+    public static Workload append() throws IOException
+    {
+        Path file = Files.createTempFile("labyrinth-append", ".journal");
+        CommandJournal journal = CommandJournal.create(file, SEED);
+        Command command = new Command("go", "north");
+        return new Workload()
+        {
+            @Override
+            public long run()
+            {
+                journal.append(command);
+                return 1;
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                journal.close();
+                Files.delete(file);
+            }
+        };
+    }
+
+    /**
+     * Records a long game played by random moves in a journal.
+     * @return a workload that replays the whole journal in a new game and returns the amount of turns replayed.
+     * Closing it deletes the journal.
+     * @throws IOException if the journal cannot be written
+     */
+    public static Workload replay() throws IOException
+    {
+        Path file = Files.createTempFile("labyrinth", ".journal");
+        CommandJournal recorded = CommandJournal.create(file, SEED);
+        Game game = new Game(new GameSettings(), SEED, new NullSink());
+        PlayerPolicy policy = new RandomPolicy();
+        Random rand = new Random(SEED);
+        boolean finished = false;
+        for (int turns = 0; turns < MAX_TURNS && !finished; turns++)
+        {
+            Command next = policy.nextCommand(game, rand);
+            recorded.append(next);
+            finished = game.playTurn(next);
+        }
+        recorded.close();
+
+        CommandJournal journal = CommandJournal.open(file);
+        NullSink output = new NullSink();
+        return new Workload()
+        {
+            @Override
+            public long run()
+            {
+                try
+                {
+                    return journal.replay(new Game(new GameSettings(), SEED, output));
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                journal.close();
+                Files.delete(file);
+            }
+        };
+    }
+}
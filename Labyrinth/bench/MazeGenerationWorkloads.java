@@ -0,0 +1,95 @@
+import benchmarks.Workload;
+
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the generation benchmarks: generating a labyrinth of a million rooms,
+ * walking through it while its rooms are created on demand, and moving thousands of NPCs around it.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class MazeGenerationWorkloads
+{
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 1000;
+    private static final int NPC_MOVES_PER_STEP = 64;
+    private static final int MAX_NPCS = 100_000;
+
+    /**
+     * @return a workload that generates a labyrinth with a new seed every time
+     */
+    public static Workload generate()
+    {
+        MazeGenerator generator = new MazeGenerator(WIDTH, HEIGHT);
+        return new Workload()
+        {
+            private long seed;
+
+            @Override
+            public long run()
+            {
+                return generator.generate(seed++).getExitCount();
+            }
+        };
+    }
+
+    /**
+     * @return the memory taken by the exits of a generated labyrinth, in bytes per room
+     */
+    public static double bytesPerRoom()
+    {
+        return new MazeGenerator(WIDTH, HEIGHT).generate(0).getBytesPerRoom();
+    }
+
+    /**
+     * @return a workload that walks through a new labyrinth one room at a time,
+     * always taking the same exit of a room, and creates the rooms on the way
+     */
+    public static Workload walk()
+    {
+        LabyrinthGraph graph = new MazeGenerator(WIDTH, HEIGHT).generate(1);
+        return new Workload()
+        {
+            private int room;
+
+            @Override
+            public long run()
+            {
+                Room current = graph.getRoom(room);
+                int exits = graph.getExitCount(room);
+                room = graph.getExitTarget(room, (int) (room * 31L % exits));
+                return current.getId();
+            }
+        };
+    }
+
+    /**
+     * @return a workload that dismisses a random NPC and lets NPC_MOVES_PER_STEP NPCs wander,
+     * in a labyrinth with an NPC for every fourth room
+     */
+    public static Workload npcStep()
+    {
+        int rooms = WIDTH * HEIGHT;
+        int npcCount = Math.min(rooms / 4, MAX_NPCS);
+        NpcScheduler scheduler = new NpcScheduler(rooms, (npc, from, to) -> true);
+        Random rand = new Random(0);
+        for (int room = 0; room < rooms; room++)
+        {
+            scheduler.addRoom(room);
+        }
+        for (int i = 0; i < npcCount; i++)
+        {
+            scheduler.addNPC();
+        }
+        scheduler.step(rand, 0);
+        return () ->
+        {
+            scheduler.vacate(rand.nextInt(npcCount));
+            scheduler.step(rand, NPC_MOVES_PER_STEP);
+            return scheduler.getFreeRoomCount();
+        };
+    }
+}
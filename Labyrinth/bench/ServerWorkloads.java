@@ -0,0 +1,137 @@
+import benchmarks.Workload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the server benchmarks: a game server on the loopback interface that holds many idle
+ * connections, and active players that send a command and wait for its answer.
+ * Both ends of every connection are in the same program, so it needs twice as many open files as connections.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class ServerWorkloads
+{
+    private static final byte[] COMMAND = "help\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Starts a server and connects idle players to it.
+     * @param idleCount the amount of idle players, who connect and stay connected
+     * @return the server, which stops and disconnects the idle players when it is closed
+     * @throws IOException if the server cannot be started or a player cannot connect
+     * @throws InterruptedException if the players are interrupted while they connect
+     */
+    public static Object server(int idleCount) throws IOException, InterruptedException
+    {
+        GameServer server = new GameServer(0, Runtime.getRuntime().availableProcessors());
+        server.start();
+        List<SocketChannel> idle = new ArrayList<>();
+        InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+        for (int i = 0; i < idleCount; i++)
+        {
+            idle.add(SocketChannel.open(address));
+        }
+        while (server.getConnectionCount() < idleCount)
+        {
+            Thread.sleep(10);
+        }
+        return new IdleServer(server, idle);
+    }
+
+    /**
+     * Connects an active player.
+     * @param server the server created by server
+     * @return a workload that sends a command and waits for its answer. Closing it disconnects the player.
+     * @throws IOException if the player cannot connect
+     */
+    public static Workload player(Object server) throws IOException
+    {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", ((IdleServer) server).server.getPort()));
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        readUntilPrompt(channel, buffer);
+        return new Workload()
+        {
+            @Override
+            public long run()
+            {
+                try
+                {
+                    channel.write(ByteBuffer.wrap(COMMAND));
+                    return readUntilPrompt(channel, buffer);
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                channel.close();
+            }
+        };
+    }
+
+    /**
+     * Reads the answer of the server until it ends with the prompt.
+     * @param channel the socket of the player
+     * @param buffer a buffer for the answer
+     * @return the length of the answer
+     * @throws IOException if the server closes the connection
+     */
+    private static int readUntilPrompt(SocketChannel channel, ByteBuffer buffer) throws IOException
+    {
+        buffer.clear();
+        while (buffer.position() < 2 || buffer.get(buffer.position() - 2) != '>' || buffer.get(buffer.position() - 1) != ' ')
+        {
+            if (channel.read(buffer) < 0)
+            {
+                throw new IOException("The server has closed the connection.");
+            }
+        }
+        return buffer.position();
+    }
+
+    /**
+     * A server together with its idle players.
+     */
+    private static class IdleServer implements Closeable
+    {
+        private GameServer server;
+        private List<SocketChannel> idle;
+
+        /**
+         * @param server the server
+         * @param idle the connections of the idle players
+         */
+        IdleServer(GameServer server, List<SocketChannel> idle)
+        {
+            this.server = server;
+            this.idle = idle;
+        }
+
+        /**
+         * Disconnects the idle players and stops the server.
+         * @throws IOException if the server cannot be stopped
+         */
+        @Override
+        public void close() throws IOException
+        {
+            for (SocketChannel channel : idle)
+            {
+                channel.close();
+            }
+            server.close();
+        }
+    }
+}
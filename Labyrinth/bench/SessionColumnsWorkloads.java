@@ -0,0 +1,73 @@
+import benchmarks.Workload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the session columns benchmarks: counting the players in every room by scanning the room column
+ * of a million rows, and by asking every game of a list for its current room.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SessionColumnsWorkloads
+{
+    private static final int ROWS = 1_000_000;
+    private static final int GAMES = 20_000;
+    private static final int TURNS = 20;
+
+    /**
+     * @return a workload that counts the players in every room of a million rows of session columns
+     */
+    public static Workload countColumns()
+    {
+        List<Game> games = playGames();
+        SessionColumns columns = new SessionColumns(ROWS);
+        for (int row = 0; row < ROWS; row++)
+        {
+            games.get(row % GAMES).writeColumns(columns, row);
+        }
+        return () -> columns.countByRoom()[Game.CENTRE];
+    }
+
+    /**
+     * @return a workload that counts the players in every room of a list of games
+     */
+    public static Workload countGames()
+    {
+        List<Game> games = playGames();
+        return () ->
+        {
+            long[] counts = new long[Game.ROOM_COUNT];
+            for (Game game : games)
+            {
+                counts[game.getCurrentRoom().getId()]++;
+            }
+            return counts[Game.CENTRE];
+        };
+    }
+
+    /**
+     * @return games that have been played for a while, so the players are spread over the rooms
+     */
+    private static List<Game> playGames()
+    {
+        NullSink output = new NullSink();
+        PlayerPolicy policy = new ExplorerPolicy();
+        Random rand = new Random(42);
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++)
+        {
+            Game game = new Game(new GameSettings(), i, output);
+            for (int turn = 0; turn < TURNS && !game.playTurn(policy.nextCommand(game, rand)); turn++)
+            {
+                // play until the player has wandered off
+            }
+            games.add(game);
+        }
+        return games;
+    }
+}
@@ -0,0 +1,134 @@
+import benchmarks.Workload;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the session store benchmarks: many players start a game and play a few turns,
+ * but only a few of them stay in memory. The heap used per connected player is measured with and without
+ * the store, and the next command of an idle player is measured when its game has to be loaded again first.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SessionStoreWorkloads
+{
+    private static final int MAX_ACTIVE = 100;
+    private static final int TURNS = 10;
+    private static final String[] COMMANDS = {"help", "go north", "go west", "back", "loot", "help"};
+
+    /**
+     * Opens sessions through a store and measures the heap they use.
+     * @param sessionCount the amount of sessions
+     * @param store true to play the sessions through a store, false to keep all of them in memory
+     * @return the bytes on the heap per session
+     * @throws IOException if the store cannot be written
+     */
+    public static double heapPerSession(int sessionCount, boolean store) throws IOException
+    {
+        Path directory = Files.createTempDirectory("labyrinth-sessions");
+        try (SessionStore sessionStore = new SessionStore(directory, MAX_ACTIVE))
+        {
+            long before = usedHeap();
+            List<GameSession> sessions = open(sessionCount, store ? sessionStore : null);
+            double bytes = (usedHeap() - before) / (double) sessions.size();
+            sessions.clear();
+            return bytes;
+        } finally
+        {
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Opens sessions through a store.
+     * @param sessionCount the amount of sessions
+     * @return a workload that sends a command to the player that has been idle the longest, whose game
+     * has been passivated. Closing it deletes the store.
+     * @throws IOException if the store cannot be written
+     */
+    public static Workload rehydrate(int sessionCount) throws IOException
+    {
+        Path directory = Files.createTempDirectory("labyrinth-sessions");
+        SessionStore store = new SessionStore(directory, MAX_ACTIVE);
+        List<GameSession> sessions = open(sessionCount, store);
+        Random rand = new Random(42);
+        return new Workload()
+        {
+            private int next;
+
+            @Override
+            public long run()
+            {
+                GameSession session = sessions.get(next);
+                next = (next + 1) % sessions.size();
+                if (session.isFinished())
+                {
+                    return 0;
+                }
+                return store.execute(session, COMMANDS[rand.nextInt(COMMANDS.length)]).length();
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                store.close();
+                Files.delete(directory);
+            }
+        };
+    }
+
+    /**
+     * Starts sessions and plays a few turns in each of them.
+     * @param count the amount of sessions
+     * @param store the store the sessions are played through, or null to play them directly
+     * @return the sessions
+     */
+    private static List<GameSession> open(int count, SessionStore store)
+    {
+        List<GameSession> sessions = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            GameSession session = new GameSession(i);
+            if (store == null)
+            {
+                session.start();
+            } else
+            {
+                store.start(session);
+            }
+            for (int turn = 0; turn < TURNS && !session.isFinished(); turn++)
+            {
+                String command = COMMANDS[turn % COMMANDS.length];
+                if (store == null)
+                {
+                    session.execute(command);
+                } else
+                {
+                    store.execute(session, command);
+                }
+            }
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    /**
+     * @return the bytes used on the heap after a garbage collection
+     */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,62 @@
+import benchmarks.Workload;
+
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the shared world benchmarks: players that roam one shared world, each on their own thread.
+ * Every player plays with the explorer policy and joins again with a new game when a game ends.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SharedWorldWorkloads
+{
+    private static final long SEED = 42;
+    private static final int MAX_STEPS = 500;
+
+    /**
+     * @return a new shared world, for the players of a benchmark
+     */
+    public static Object world()
+    {
+        return new SharedWorld(SEED);
+    }
+
+    /**
+     * @param world the shared world created by world
+     * @param player the number of the player, which decides the seeds of its games
+     * @return a workload that plays one turn of the player
+     */
+    public static Workload player(Object world, int player)
+    {
+        SharedWorld shared = (SharedWorld) world;
+        PlayerPolicy policy = new ExplorerPolicy();
+        NullSink output = new NullSink();
+        return new Workload()
+        {
+            private long seed = SEED + player;
+            private Random rand = new Random(seed);
+            private Game game;
+            private int steps;
+
+            @Override
+            public long run()
+            {
+                if (game == null || steps == MAX_STEPS)
+                {
+                    game = shared.join(new GameSettings(), seed, output);
+                    seed += 1000;
+                    steps = 0;
+                }
+                steps++;
+                if (game.playTurn(policy.nextCommand(game, rand)))
+                {
+                    game = null;
+                }
+                return steps;
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+import benchmarks.Workload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The workloads of the snapshot benchmarks: saving and loading a game in memory, to measure the encoding itself,
+ * and through a file, the way a game is saved after every turn. The game has been explored for a while,
+ * so its lists aren't empty.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SnapshotWorkloads
+{
+    private static final long SEED = 42;
+    private static final int TURNS = 40;
+
+    /**
+     * @return a workload that writes a snapshot of a game to a buffer
+     */
+    public static Workload write()
+    {
+        GameSnapshot snapshot = new GameSnapshot();
+        Game game = exploredGame();
+        return () -> snapshot.write(game).remaining();
+    }
+
+    /**
+     * @return a workload that puts a game into the state of a snapshot in a buffer
+     */
+    public static Workload restore()
+    {
+        ByteBuffer saved = ByteBuffer.allocateDirect(4096);
+        saved.put(new GameSnapshot().write(exploredGame())).flip();
+        Game restored = new Game(new GameSettings(), SEED, new NullSink());
+        return () ->
+        {
+            GameSnapshot.restore(saved.duplicate(), restored);
+            return restored.getVitality();
+        };
+    }
+
+    /**
+     * @return a workload that saves a game to a file. Closing it deletes the file.
+     * @throws IOException if the file cannot be created
+     */
+    public static Workload save() throws IOException
+    {
+        Path file = Files.createTempFile("labyrinth", ".snapshot");
+        GameSnapshot snapshot = new GameSnapshot();
+        Game game = exploredGame();
+        return new Workload()
+        {
+            @Override
+            public long run()
+            {
+                try
+                {
+                    snapshot.save(game, file);
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                return 1;
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                Files.delete(file);
+            }
+        };
+    }
+
+    /**
+     * @return a workload that loads a game from a file. Closing it deletes the file.
+     * @throws IOException if the file cannot be written
+     */
+    public static Workload load() throws IOException
+    {
+        Path file = Files.createTempFile("labyrinth", ".snapshot");
+        GameSnapshot snapshot = new GameSnapshot();
+        snapshot.save(exploredGame(), file);
+        NullSink output = new NullSink();
+        return new Workload()
+        {
+            @Override
+            public long run()
+            {
+                try
+                {
+                    return snapshot.load(file, output).getVitality();
+                } catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                Files.delete(file);
+            }
+        };
+    }
+
+    /**
+     * @return a game that has been explored for a while
+     */
+    private static Game exploredGame()
+    {
+        Game game = new Game(new GameSettings(), SEED, new NullSink());
+        PlayerPolicy policy = new ExplorerPolicy();
+        Random rand = new Random(SEED);
+        for (int i = 0; i < TURNS && !game.playTurn(policy.nextCommand(game, rand)); i++)
+        {
+            // play until the game has some history
+        }
+        return game;
+    }
+}
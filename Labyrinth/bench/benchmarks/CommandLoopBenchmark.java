@@ -0,0 +1,117 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks of the command loop: parsing a line of input, processing each command word,
+ * moving the NPCs, building the exit string of a room and playing a whole game from
+ * the entrance to the Minotaur and back out. The workloads are in CommandLoopWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar CommandLoop -rf json -rff jmh-result.json
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CommandLoopBenchmark
+{
+    private static final String WORKLOADS = "CommandLoopWorkloads";
+
+    /**
+     * The workload of a benchmark without parameters, prepared once per fork.
+     */
+    @State(Scope.Thread)
+    public static class Fixed
+    {
+        private Workload parse;
+        private Workload moveNPCs;
+        private Workload exitString;
+        private Workload winPath;
+
+        /**
+         * Prepares the workloads.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            parse = Workloads.create(WORKLOADS, "parse");
+            moveNPCs = Workloads.create(WORKLOADS, "moveNPCs");
+            exitString = Workloads.create(WORKLOADS, "exitString");
+            winPath = Workloads.create(WORKLOADS, "winPath");
+        }
+    }
+
+    /**
+     * A game in the main hall and a command word, prepared again for every iteration.
+     */
+    @State(Scope.Thread)
+    public static class Commands
+    {
+        @Param({"go", "back", "quit", "help", "take", "answer", "fight", "run", "loot", "press"})
+        public String verb;
+        private Workload workload;
+
+        /**
+         * Starts every iteration from a new game in the main hall.
+         */
+        @Setup(Level.Iteration)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "processCommand", verb);
+        }
+    }
+
+    /**
+     * @param state the workloads
+     * @return whether the line was a known command
+     */
+    @Benchmark
+    public long parse(Fixed state) {return state.parse.run();}
+
+    /**
+     * @param state the game and the command word
+     * @return whether the command has ended the game
+     */
+    @Benchmark
+    public long processCommand(Commands state) {return state.workload.run();}
+
+    /**
+     * @param state the workloads
+     * @return whether an NPC is in the room of the player
+     */
+    @Benchmark
+    public long moveNPCs(Fixed state) {return state.moveNPCs.run();}
+
+    /**
+     * @param state the workloads
+     * @return the length of the exit string
+     */
+    @Benchmark
+    public long exitString(Fixed state) {return state.exitString.run();}
+
+    /**
+     * @param state the workloads
+     * @return the amount of turns of the game
+     */
+    @Benchmark
+    public long winPath(Fixed state) {return state.winPath.run();}
+}
@@ -0,0 +1,134 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks the command journal: how quickly commands are appended to it
+ * and how many turns per second are replayed when a session is recovered from it.
+ * The turns per second of the replay are the secondary result "turns". The workloads are in JournalWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar Journal -rf json -rff jmh-result.json
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JournalBenchmark
+{
+    private static final String WORKLOADS = "JournalWorkloads";
+
+    /**
+     * An empty journal for every iteration, so the file doesn't keep growing.
+     */
+    @State(Scope.Thread)
+    public static class Append
+    {
+        private Workload workload;
+
+        /**
+         * Creates the journal.
+         */
+        @Setup(Level.Iteration)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "append");
+        }
+
+        /**
+         * Deletes the journal.
+         * @throws Exception if the journal cannot be deleted
+         */
+        @TearDown(Level.Iteration)
+        public void tearDown() throws Exception
+        {
+            workload.close();
+        }
+    }
+
+    /**
+     * A journal of a long game, recorded once per fork.
+     */
+    @State(Scope.Thread)
+    public static class Replay
+    {
+        private Workload workload;
+
+        /**
+         * Records the journal.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "replay");
+        }
+
+        /**
+         * Deletes the journal.
+         * @throws Exception if the journal cannot be deleted
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            workload.close();
+        }
+    }
+
+    /**
+     * Counts the replayed turns, which JMH reports per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Turns
+    {
+        public long turns;
+
+        /**
+         * Starts counting again for every iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            turns = 0;
+        }
+    }
+
+    /**
+     * @param state the journal
+     * @return the amount of appended commands
+     */
+    @Benchmark
+    public long append(Append state) {return state.workload.run();}
+
+    /**
+     * @param state the journal
+     * @param counter counts the replayed turns
+     * @return the amount of replayed turns
+     */
+    @Benchmark
+    public long replay(Replay state, Turns counter)
+    {
+        long turns = state.workload.run();
+        counter.turns += turns;
+        return turns;
+    }
+}
@@ -0,0 +1,147 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks the generation of a labyrinth of 1000 by 1000 rooms: how many rooms are generated per second,
+ * how much memory the exits take per room, how quickly rooms are created on demand
+ * and how quickly NPCs are moved around the labyrinth. The workloads are in MazeGenerationWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar MazeGeneration -rf json -rff jmh-result.json
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MazeGenerationBenchmark
+{
+    private static final String WORKLOADS = "MazeGenerationWorkloads";
+    // the same as in MazeGenerationWorkloads, which JMH needs as constants
+    private static final int ROOMS = 1000 * 1000;
+    private static final int NPC_MOVES_PER_STEP = 64;
+
+    /**
+     * The generator, prepared once per fork.
+     */
+    @State(Scope.Thread)
+    public static class Generate
+    {
+        private Workload workload;
+
+        /**
+         * Prepares the generator.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "generate");
+        }
+    }
+
+    /**
+     * A new labyrinth for every iteration, so every iteration creates its rooms.
+     */
+    @State(Scope.Thread)
+    public static class Walk
+    {
+        private Workload workload;
+
+        /**
+         * Generates the labyrinth.
+         */
+        @Setup(Level.Iteration)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "walk");
+        }
+    }
+
+    /**
+     * The NPCs of a labyrinth, placed again for every iteration.
+     */
+    @State(Scope.Thread)
+    public static class NpcStep
+    {
+        private Workload workload;
+
+        /**
+         * Places the NPCs.
+         */
+        @Setup(Level.Iteration)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "npcStep");
+        }
+    }
+
+    /**
+     * The memory taken by the exits, reported as the secondary result "bytesPerRoom".
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint
+    {
+        public double bytesPerRoom;
+    }
+
+    /**
+     * Generates labyrinths, the score is in rooms per second.
+     * @param state the generator
+     * @return the amount of exits of the labyrinth
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROOMS)
+    public long generate(Generate state) {return state.workload.run();}
+
+    /**
+     * Generates a single labyrinth and measures the memory of its exits. Runs once, because the memory is the same every time.
+     * @param footprint receives the memory of the exits
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(1)
+    public void footprint(Footprint footprint)
+    {
+        footprint.bytesPerRoom = (Double) Workloads.call(WORKLOADS, "bytesPerRoom");
+    }
+
+    /**
+     * Walks into the next room, the score is in rooms per second.
+     * @param state the labyrinth
+     * @return the id of the room
+     */
+    @Benchmark
+    public long walk(Walk state) {return state.workload.run();}
+
+    /**
+     * Moves the NPCs, the score is in moves per second.
+     * @param state the NPCs
+     * @return the amount of rooms without an NPC
+     */
+    @Benchmark
+    @OperationsPerInvocation(NPC_MOVES_PER_STEP)
+    public long npcStep(NpcStep state) {return state.workload.run();}
+}
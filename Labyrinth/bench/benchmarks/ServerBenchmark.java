@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks the game server over the loopback interface. Many idle players connect and stay connected,
+ * then eight active players send commands and wait for every answer, which measures the round trip
+ * of a command while the server holds all the idle connections. The round trips are sampled,
+ * so the results include their percentiles. The workloads are in ServerWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar Server -p idleCount=10000 -rf json -rff jmh-result.json
+ * Both ends of every connection are in the benchmark, so it needs twice as many open files as connections.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ServerBenchmark
+{
+    private static final String WORKLOADS = "ServerWorkloads";
+
+    /**
+     * The server and its idle players, shared by the active players.
+     */
+    @State(Scope.Benchmark)
+    public static class Server
+    {
+        @Param({"10000"})
+        public int idleCount;
+        private Object server;
+
+        /**
+         * Starts the server and connects the idle players.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            server = Workloads.call(WORKLOADS, "server", idleCount);
+        }
+
+        /**
+         * Disconnects the idle players and stops the server.
+         * @throws Exception if the server cannot be stopped
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            Workloads.close(server);
+        }
+    }
+
+    /**
+     * An active player, one per thread.
+     */
+    @State(Scope.Thread)
+    public static class Player
+    {
+        private Workload workload;
+
+        /**
+         * Connects the player.
+         * @param server the server
+         */
+        @Setup(Level.Trial)
+        public void setUp(Server server)
+        {
+            workload = Workloads.create(WORKLOADS, "player", server.server);
+        }
+
+        /**
+         * Disconnects the player.
+         * @throws Exception if the connection cannot be closed
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            workload.close();
+        }
+    }
+
+    /**
+     * @param player the player
+     * @return the length of the answer
+     */
+    @Benchmark
+    @Threads(8)
+    public long roundTrip(Player player) {return player.workload.run();}
+}
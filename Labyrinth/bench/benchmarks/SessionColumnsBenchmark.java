@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks session columns against game objects: counts the players in every room by scanning the room column
+ * of a million rows, and by asking every game of a list of 20,000 for its current room. The scores are in rows
+ * per second. The workloads are in SessionColumnsWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar SessionColumns -rf json -rff jmh-result.json
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SessionColumnsBenchmark
+{
+    private static final String WORKLOADS = "SessionColumnsWorkloads";
+    // the same as in SessionColumnsWorkloads, which JMH needs as constants
+    private static final int ROWS = 1_000_000;
+    private static final int GAMES = 20_000;
+
+    /**
+     * The columns, filled once per fork.
+     */
+    @State(Scope.Thread)
+    public static class Columns
+    {
+        private Workload workload;
+
+        /**
+         * Plays the games and fills the columns.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "countColumns");
+        }
+    }
+
+    /**
+     * The games, played once per fork.
+     */
+    @State(Scope.Thread)
+    public static class Games
+    {
+        private Workload workload;
+
+        /**
+         * Plays the games.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "countGames");
+        }
+    }
+
+    /**
+     * @param state the columns
+     * @return the amount of players in the centre
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long countColumns(Columns state) {return state.workload.run();}
+
+    /**
+     * @param state the games
+     * @return the amount of players in the centre
+     */
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long countGames(Games state) {return state.workload.run();}
+}
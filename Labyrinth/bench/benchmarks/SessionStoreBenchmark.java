@@ -0,0 +1,117 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks a session store: many players start a game and play a few turns, but only a hundred of them
+ * stay in memory. The rehydrate benchmark samples how long the next command of an idle player takes when its game
+ * has to be loaded again first. The footprint benchmark reports the heap used per connected player as the
+ * secondary result "bytesPerSession", with all sessions in memory and with the store.
+ * The workloads are in SessionStoreWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar SessionStore -rf json -rff jmh-result.json
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class SessionStoreBenchmark
+{
+    private static final String WORKLOADS = "SessionStoreWorkloads";
+
+    /**
+     * The sessions of the store, opened once per fork.
+     */
+    @State(Scope.Thread)
+    public static class Store
+    {
+        @Param({"20000"})
+        public int sessionCount;
+        private Workload workload;
+
+        /**
+         * Opens the sessions.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            workload = Workloads.create(WORKLOADS, "rehydrate", sessionCount);
+        }
+
+        /**
+         * Deletes the store.
+         * @throws Exception if the store cannot be deleted
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception
+        {
+            workload.close();
+        }
+    }
+
+    /**
+     * The sessions whose heap is measured.
+     */
+    @State(Scope.Thread)
+    public static class Sessions
+    {
+        @Param({"20000"})
+        public int sessionCount;
+        @Param({"true", "false"})
+        public boolean store;
+    }
+
+    /**
+     * The heap used by the sessions, reported as the secondary result "bytesPerSession".
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint
+    {
+        public double bytesPerSession;
+    }
+
+    /**
+     * @param state the store
+     * @return the length of the answer
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public long rehydrate(Store state) {return state.workload.run();}
+
+    /**
+     * Opens the sessions once and measures their heap. Runs once, because the heap is about the same every time.
+     * @param sessions the amount of sessions and whether they are played through a store
+     * @param footprint receives the heap used by the sessions
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+    public void footprint(Sessions sessions, Footprint footprint)
+    {
+        footprint.bytesPerSession = (Double) Workloads.call(WORKLOADS, "heapPerSession", sessions.sessionCount, sessions.store);
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks a shared world with more and more players, each playing on their own thread,
+ * to show how the amount of turns per second grows with the players until the processors run out.
+ * The score of every benchmark is the amount of turns per second of all players together.
+ * The workloads are in SharedWorldWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar SharedWorld -rf json -rff jmh-result.json
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SharedWorldBenchmark
+{
+    private static final String WORKLOADS = "SharedWorldWorkloads";
+
+    /**
+     * The shared world, created once per fork for all players.
+     */
+    @State(Scope.Benchmark)
+    public static class World
+    {
+        private Object world;
+
+        /**
+         * Creates the world.
+         */
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            world = Workloads.call(WORKLOADS, "world");
+        }
+    }
+
+    /**
+     * A player of the shared world, one per thread.
+     */
+    @State(Scope.Thread)
+    public static class Player
+    {
+        private Workload workload;
+
+        /**
+         * Lets the player into the world.
+         * @param world the shared world
+         * @param thread the thread of the player, whose number decides the seeds of the games
+         */
+        @Setup(Level.Trial)
+        public void setUp(World world, ThreadParams thread)
+        {
+            workload = Workloads.create(WORKLOADS, "player", world.world, thread.getThreadIndex());
+        }
+    }
+
+    /**
+     * @param player the player
+     * @return the turns of the game of the player so far
+     */
+    @Benchmark
+    @Threads(1)
+    public long onePlayer(Player player) {return player.workload.run();}
+
+    /**
+     * @param player the player
+     * @return the turns of the game of the player so far
+     */
+    @Benchmark
+    @Threads(2)
+    public long twoPlayers(Player player) {return player.workload.run();}
+
+    /**
+     * @param player the player
+     * @return the turns of the game of the player so far
+     */
+    @Benchmark
+    @Threads(4)
+    public long fourPlayers(Player player) {return player.workload.run();}
+
+    /**
+     * @param player the player
+     * @return the turns of the game of the player so far
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long playerPerProcessor(Player player) {return player.workload.run();}
+}
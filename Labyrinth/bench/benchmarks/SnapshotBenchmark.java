@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Benchmarks saving and loading games: write and restore work in memory and measure the encoding itself,
+ * save and load go through a file, the way a game is saved after every turn. The scores are the average time
+ * of an operation. The workloads are in SnapshotWorkloads.
+ * <p>
+ * Usage: java -jar target/bench/benchmarks.jar Snapshot -rf json -rff jmh-result.json
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SnapshotBenchmark
+{
+    @Param({"write", "restore", "save", "load"})
+    public String operation;
+    private Workload workload;
+
+    /**
+     * Prepares the game and the snapshot of the operation.
+     */
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        workload = Workloads.create("SnapshotWorkloads", operation);
+    }
+
+    /**
+     * Deletes the file of the snapshot.
+     * @throws Exception if the file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        workload.close();
+    }
+
+    /**
+     * @return a value computed by the operation
+     */
+    @Benchmark
+    public long snapshot() {return workload.run();}
+}
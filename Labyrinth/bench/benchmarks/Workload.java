@@ -0,0 +1,32 @@
+package benchmarks;
+
+import java.io.IOException;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A workload is an operation that a benchmark measures, prepared by one of the workload classes of the game.
+ * The game is in the default package, which classes in a package cannot use, and JMH only accepts benchmarks
+ * in a package. The workload classes are therefore in the default package next to the benchmarks, and the
+ * benchmarks only see their workloads through this interface.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public interface Workload extends AutoCloseable
+{
+    /**
+     * Performs the measured operation once.
+     * @return any value computed by the operation, which the benchmark returns so it isn't optimised away
+     */
+    long run();
+
+    /**
+     * Releases what the workload holds, like files and connections. Does nothing by default.
+     * @throws IOException if something cannot be released
+     */
+    @Override
+    default void close() throws IOException
+    {
+    }
+}
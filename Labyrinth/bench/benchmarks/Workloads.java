@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Prepares the workloads of the benchmarks by calling the static methods of the workload classes,
+ * which are in the default package and can only be reached by their name. The call is made once
+ * in the setup of a benchmark, so it doesn't show in the measurements.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+final class Workloads
+{
+    /**
+     * Prepares a workload.
+     * @param workloadClass the name of the workload class
+     * @param method the name of the static method that prepares the workload
+     * @param arguments the arguments of the method
+     * @return the workload
+     */
+    static Workload create(String workloadClass, String method, Object... arguments)
+    {
+        return (Workload) call(workloadClass, method, arguments);
+    }
+
+    /**
+     * Calls a static method of a workload class, for example to create what many workloads share.
+     * @param workloadClass the name of the workload class
+     * @param method the name of the static method, which must be the only one with that name and amount of parameters
+     * @param arguments the arguments of the method
+     * @return the result of the method
+     * @throws IllegalArgumentException if the workload class or the method doesn't exist
+     * @throws IllegalStateException if the method fails
+     */
+    static Object call(String workloadClass, String method, Object... arguments)
+    {
+        try
+        {
+            for (Method candidate : Class.forName(workloadClass).getMethods())
+            {
+                if (candidate.getName().equals(method) && candidate.getParameterCount() == arguments.length
+                        && Modifier.isStatic(candidate.getModifiers()))
+                {
+                    return candidate.invoke(null, arguments);
+                }
+            }
+        } catch (InvocationTargetException e)
+        {
+            throw new IllegalStateException("The workload " + workloadClass + "." + method + " could not be prepared.", e.getCause());
+        } catch (ReflectiveOperationException e)
+        {
+            throw new IllegalArgumentException("The workload " + workloadClass + "." + method + " doesn't exist.", e);
+        }
+        throw new IllegalArgumentException("The workload " + workloadClass + "." + method + " doesn't exist.");
+    }
+
+    /**
+     * Closes what a workload class has created, if it can be closed.
+     * @param created the result of call, or null
+     * @throws Exception if it cannot be closed
+     */
+    static void close(Object created) throws Exception
+    {
+        if (created instanceof AutoCloseable)
+        {
+            ((AutoCloseable) created).close();
+        }
+    }
+}
@@ -9,28 +9,42 @@ import java.util.*;
  */
 public class Artefact
 {
-    Random rand = new Random();
     private String name;
     private int weight;
     private boolean isCursed;
-    private static List<String> possibleArtefacts = new LinkedList<>(Arrays.asList
-            ("Cornucopia", "Pandora's Box", "Caduceus", "Golden Fleece", "Golden Apple", "Thyrsus", "Medusa's Head", "Eros's Bow"));
 
     /**
      * Create a random and unique artefact.
+     * Every game keeps its own list of possible artefacts, so artefacts are only unique within one game.
+     * @param rand the random generator of the game the artefact is created in
+     * @param possibleArtefacts the names that haven't been used yet in the game
      */
-    public Artefact()
+    public Artefact(Random rand, List<String> possibleArtefacts)
     {
         name = possibleArtefacts.get(rand.nextInt(possibleArtefacts.size()));
-        makeUnique();
+        makeUnique(possibleArtefacts);
         weight = 1 + rand.nextInt(10);
         isCursed = rand.nextBoolean();
     }
 
+    /**
+     * Create an artefact with known properties, for example when a saved game is restored.
+     * @param name the name of the artefact
+     * @param weight the weight of the artefact
+     * @param isCursed whether the artefact is cursed
+     */
+    public Artefact(String name, int weight, boolean isCursed)
+    {
+        this.name = name;
+        this.weight = weight;
+        this.isCursed = isCursed;
+    }
+
     /**
      * Makes the name of the artefact uniques by removing its name from the possible artefact names.
+     * @param possibleArtefacts the names that haven't been used yet in the game
      */
-    private void makeUnique() {possibleArtefacts.remove(name);}
+    private void makeUnique(List<String> possibleArtefacts) {possibleArtefacts.remove(name);}
 
     /**
      * Returns the name of the artefact as a string
@@ -0,0 +1,248 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The balance simulator plays a large amount of seeded games with a player policy instead of a human
+ * and reports how often they are won, how the player dies and how many steps the games take.
+ * The games are split into batches that are played in parallel on a fork-join pool.
+ * Their output is thrown away, so they never go through the terminal, and they report to metrics of their own
+ * instead of the global metrics, which only count the games of real players.
+ * <p>
+ * The final state of every game can also be kept in session columns, one row per game,
+ * so a million games can be examined afterwards without keeping a single game object.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class BalanceSimulator
+{
+    private static final int BATCH_SIZE = 256;      // amount of games played by a single task
+
+    private GameSettings settings;
+    private Supplier<PlayerPolicy> policyFactory;
+    private int maxSteps;
+    private ForkJoinPool pool;
+    private NullSink output;
+    private SessionColumns finalStates;     // null unless the final states are kept
+
+    /**
+     * Create a simulator that uses every processor.
+     * @param settings the balance settings of the simulated games
+     * @param policyFactory creates the policy of a batch of games
+     * @param maxSteps the amount of commands after which a game is stopped
+     */
+    public BalanceSimulator(GameSettings settings, Supplier<PlayerPolicy> policyFactory, int maxSteps)
+    {
+        this(settings, policyFactory, maxSteps, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a simulator that plays its games on the given pool.
+     * @param settings the balance settings of the simulated games
+     * @param policyFactory creates the policy of a batch of games
+     * @param maxSteps the amount of commands after which a game is stopped
+     * @param pool the pool the games are played on
+     */
+    public BalanceSimulator(GameSettings settings, Supplier<PlayerPolicy> policyFactory, int maxSteps, ForkJoinPool pool)
+    {
+        this.settings = settings;
+        this.policyFactory = policyFactory;
+        this.maxSteps = maxSteps;
+        this.pool = pool;
+        output = new NullSink();
+    }
+
+    /**
+     * Plays the games with the seeds firstSeed, firstSeed + 1, ... in parallel.
+     * @param firstSeed the seed of the first game
+     * @param games the amount of games to be played
+     * @return the combined result of all games
+     */
+    public SimulationResult run(long firstSeed, long games)
+    {
+        return pool.invoke(new SimulationTask(firstSeed, 0, games, new GameMetrics()));
+    }
+
+    /**
+     * Plays the games with the seeds firstSeed, firstSeed + 1, ... in parallel and keeps the final state of every game.
+     * @param firstSeed the seed of the first game
+     * @param games the amount of games to be played
+     * @param finalStates the columns that receive the final state of game i in row i. They grow if they are too small.
+     * @return the combined result of all games
+     */
+    public SimulationResult run(long firstSeed, int games, SessionColumns finalStates)
+    {
+        finalStates.ensureCapacity(games);
+        this.finalStates = finalStates;
+        try
+        {
+            return run(firstSeed, games);
+        } finally
+        {
+            this.finalStates = null;
+        }
+    }
+
+    /**
+     * Plays one game until it ends or the highest amount of steps is reached, and records it.
+     * @param number the number of the game within the simulation
+     * @param seed the seed of the game
+     * @param policy the policy of the simulated player
+     * @param rand the random generator of the simulated player
+     * @param result the result the game is recorded in, whose metrics the game reports to
+     */
+    private void playGame(long number, long seed, PlayerPolicy policy, Random rand, SimulationResult result)
+    {
+        Game game = new Game(settings, seed, output);
+        game.setMetrics(result.getMetrics());
+        rand.setSeed(seed);
+        int steps = 0;
+        boolean finished = false;
+        while (!finished && steps < maxSteps)
+        {
+            finished = game.playTurn(policy.nextCommand(game, rand));
+            steps++;
+        }
+        result.record(game.getOutcome(), steps);
+        if (finalStates != null)
+        {
+            game.writeColumns(finalStates, (int) number);
+        }
+    }
+
+    /**
+     * Plays a range of games, splitting it in half until it is small enough to be played by one task.
+     */
+    private class SimulationTask extends RecursiveTask<SimulationResult>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private long firstSeed;
+        private long from;
+        private long to;
+        private transient GameMetrics metrics;
+
+        /**
+         * @param firstSeed the seed of the first game of the whole simulation
+         * @param from the number of the first game of the range
+         * @param to the number after the last game of the range
+         * @param metrics the metrics the games of the simulation report to
+         */
+        SimulationTask(long firstSeed, long from, long to, GameMetrics metrics)
+        {
+            this.firstSeed = firstSeed;
+            this.from = from;
+            this.to = to;
+            this.metrics = metrics;
+        }
+
+        /**
+         * @return the result of the games in the range
+         */
+        @Override
+        protected SimulationResult compute()
+        {
+            if (to - from <= BATCH_SIZE)
+            {
+                SimulationResult result = new SimulationResult(maxSteps, metrics);
+                PlayerPolicy policy = policyFactory.get();
+                Random rand = new Random();
+                for (long i = from; i < to; i++)
+                {
+                    playGame(i, firstSeed + i, policy, rand, result);
+                }
+                return result;
+            }
+            long middle = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(firstSeed, from, middle, metrics);
+            left.fork();
+            SimulationResult result = new SimulationTask(firstSeed, middle, to, metrics).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    /**
+     * Runs a simulation from the command line.
+     * Usage: BalanceSimulator [games] [explorer|random|speedrun] [first seed] [rooms]
+     * With "rooms", the final states of the games are kept and the rooms in which the games ended are shown.
+     * @param args the amount of games, the policy, the seed of the first game and whether to show the rooms
+     */
+    public static void main(String[] args)
+    {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        String policyName = args.length > 1 ? args[1] : "explorer";
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        Supplier<PlayerPolicy> policyFactory;
+        if (policyName.equals("random"))
+        {
+            policyFactory = RandomPolicy::new;
+        } else if (policyName.equals("speedrun"))
+        {
+            policyFactory = SpeedrunPolicy::new;
+        } else
+        {
+            policyFactory = ExplorerPolicy::new;
+        }
+
+        BalanceSimulator simulator = new BalanceSimulator(new GameSettings(), policyFactory, 500);
+        SessionColumns finalStates = args.length > 3 && args[3].equals("rooms") ? new SessionColumns((int) games) : null;
+        long start = System.nanoTime();
+        SimulationResult result = finalStates == null ? simulator.run(firstSeed, games)
+                : simulator.run(firstSeed, (int) games, finalStates);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.print(result);
+        System.out.printf("Simulated %d games in %.2f s (%.0f games/s)%n", games, seconds, games / seconds);
+        if (finalStates != null)
+        {
+            printRooms(finalStates);
+        }
+    }
+
+    /**
+     * Shows in which rooms the games ended, for every outcome, and how much vitality the winners had left.
+     * @param finalStates the final states of the games
+     */
+    private static void printRooms(SessionColumns finalStates)
+    {
+        long[][] counts = finalStates.countOutcomesByRoom();
+        WorldDefinition world = WorldDefinition.getDefault();
+        System.out.println("Rooms where the games ended:");
+        for (GameOutcome outcome : GameOutcome.values())
+        {
+            for (int room = 0; room < Game.ROOM_COUNT; room++)
+            {
+                if (counts[outcome.ordinal()][room] > 0)
+                {
+                    System.out.printf("  %-12s %8d  %s%n", outcome, counts[outcome.ordinal()][room], world.getDescription(room));
+                }
+            }
+        }
+        long won = countGames(counts, GameOutcome.WON);
+        if (won > 0)
+        {
+            System.out.printf("Average vitality left when won: %.1f%n", finalStates.sumVitality(GameOutcome.WON) / (double) won);
+        }
+    }
+
+    /**
+     * @param counts the amount of games by outcome and room
+     * @param outcome an outcome
+     * @return the amount of games with that outcome in all rooms
+     */
+    private static long countGames(long[][] counts, GameOutcome outcome)
+    {
+        long total = 0;
+        for (long count : counts[outcome.ordinal()])
+        {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,369 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The batch runner plays a directory of command scripts without a terminal, for example to check that
+ * the game still behaves the same after a change. Every script is played in its own game session,
+ * and the scripts are played in parallel on a pool of threads.
+ * <p>
+ * A script is a text file with one command per line. Empty lines and lines starting with # are skipped,
+ * and a line "seed 42" before the first command chooses the seed of the labyrinth. Scripts without a seed
+ * are played with the default seed, so a script always plays the same game. The remaining commands of a script
+ * are ignored once its game has ended. A hint searches the labyrinth for a route and takes up to a few dozen
+ * milliseconds, far longer than any other command.
+ * <p>
+ * For every script a transcript is written, holding the output of the game with every command after the prompt,
+ * the way a player would see it. A summary with a line per script tells how each game ended.
+ * A script that cannot be read, or whose seed is not a number, is reported as INVALID in the summary,
+ * a game that throws an exception as CRASHED, and the other scripts are played as usual.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class BatchRunner
+{
+    public static final String SCRIPT_SUFFIX = ".txt";
+    public static final String TRANSCRIPT_SUFFIX = ".transcript";
+    public static final String SUMMARY_FILE = "summary.csv";
+    public static final String CRASHED = "CRASHED";
+    public static final String INVALID = "INVALID";
+    private static final String SEED_PREFIX = "seed ";
+
+    private ExecutorService pool;
+    private long defaultSeed;
+
+    /**
+     * Create a batch runner that plays the scripts on a pool of threads.
+     * @param threads the amount of scripts that are played at the same time
+     * @param defaultSeed the seed of the scripts that don't choose one
+     */
+    public BatchRunner(int threads, long defaultSeed)
+    {
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, task ->
+        {
+            Thread thread = new Thread(task, "labyrinth-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.defaultSeed = defaultSeed;
+    }
+
+    /**
+     * Plays every script of a directory and writes their transcripts and the summary to another directory.
+     * @param scriptDirectory the directory of the scripts, every file ending in .txt is a script
+     * @param outputDirectory the directory for the transcripts and the summary. It is created if it doesn't exist.
+     * @return the results of the scripts, ordered by the name of the script
+     * @throws IOException if the directories cannot be read or written
+     * @throws InterruptedException if the runner is interrupted while the scripts are played
+     */
+    public List<ScriptResult> run(Path scriptDirectory, Path outputDirectory) throws IOException, InterruptedException
+    {
+        Files.createDirectories(outputDirectory);
+        List<Path> scripts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(scriptDirectory, "*" + SCRIPT_SUFFIX))
+        {
+            for (Path file : files)
+            {
+                scripts.add(file);
+            }
+        }
+        scripts.sort(null);
+
+        List<Future<ScriptResult>> futures = new ArrayList<>();
+        for (Path script : scripts)
+        {
+            futures.add(pool.submit(() -> play(script, outputDirectory)));
+        }
+        List<ScriptResult> results = new ArrayList<>();
+        StringBuilder summary = new StringBuilder("script,seed,outcome,steps,vitality\n");
+        for (Future<ScriptResult> future : futures)
+        {
+            ScriptResult result;
+            try
+            {
+                result = future.get();
+            } catch (ExecutionException e)
+            {
+                cancel(futures);
+                throw new IOException("A script could not be played", e.getCause());
+            } catch (InterruptedException e)
+            {
+                cancel(futures);
+                throw e;
+            }
+            results.add(result);
+            summary.append(result).append('\n');
+        }
+        Files.writeString(outputDirectory.resolve(SUMMARY_FILE), summary);
+        return results;
+    }
+
+    /**
+     * Cancels the scripts that are still waiting or being played, which would only keep the threads busy.
+     * @param futures the futures of the scripts
+     */
+    private static void cancel(List<Future<ScriptResult>> futures)
+    {
+        for (Future<ScriptResult> future : futures)
+        {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Stops the threads of the runner.
+     */
+    public void shutdown() {pool.shutdown();}
+
+    /**
+     * Plays a single script and writes its transcript. A script that cannot be read gets a transcript
+     * that tells why, and a transcript that cannot be written is reported on the error stream.
+     * @param script the file of the script
+     * @param outputDirectory the directory for the transcript
+     * @return the result of the script, INVALID if the script cannot be read
+     */
+    private ScriptResult play(Path script, Path outputDirectory)
+    {
+        String name = script.getFileName().toString();
+        name = name.substring(0, name.length() - SCRIPT_SUFFIX.length());
+        Script commands;
+        try
+        {
+            commands = Script.read(script, defaultSeed);
+        } catch (IOException | IllegalArgumentException e)
+        {
+            writeTranscript(outputDirectory, name, "*** The script could not be read: " + e + "\n");
+            return new ScriptResult(name, defaultSeed, INVALID, 0, 0);
+        }
+        GameSession session = new GameSession(commands.getSeed());
+        StringBuilder transcript = new StringBuilder();
+        int steps = 0;
+        String outcome;
+        try
+        {
+            transcript.append(session.start());
+            for (int i = 0; i < commands.getCommands().size() && !session.isFinished(); i++)
+            {
+                String line = commands.getCommands().get(i);
+                transcript.append("> ").append(line).append('\n');
+                transcript.append(session.execute(line));
+                steps++;
+            }
+            outcome = session.getOutcome().name();
+        } catch (RuntimeException e)
+        {
+            // a script that crashes the game is exactly what the batch mode is looking for
+            transcript.append("\n*** The game crashed: ").append(e).append('\n');
+            outcome = CRASHED;
+        }
+        writeTranscript(outputDirectory, name, transcript);
+        return new ScriptResult(name, commands.getSeed(), outcome, steps, session.getVitality());
+    }
+
+    /**
+     * Writes the transcript of a script. A transcript that cannot be written is reported on the error stream,
+     * so the other scripts and the summary are still written.
+     * @param outputDirectory the directory for the transcript
+     * @param name the name of the script, without .txt
+     * @param transcript the transcript
+     */
+    private static void writeTranscript(Path outputDirectory, String name, CharSequence transcript)
+    {
+        try
+        {
+            Files.writeString(outputDirectory.resolve(name + TRANSCRIPT_SUFFIX), transcript);
+        } catch (IOException e)
+        {
+            System.err.println("The transcript of " + name + " could not be written: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Plays a directory of scripts from the command line.
+     * Usage: BatchRunner scripts output [default seed]
+     * @param args the script directory, the output directory and the seed of the scripts that don't choose one
+     * @throws IOException if the directories cannot be read or written
+     * @throws InterruptedException if the runner is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length < 2)
+        {
+            System.out.println("Usage: BatchRunner scripts output [default seed]");
+            return;
+        }
+        long defaultSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        BatchRunner runner = new BatchRunner(Runtime.getRuntime().availableProcessors(), defaultSeed);
+        long start = System.nanoTime();
+        List<ScriptResult> results;
+        try
+        {
+            results = runner.run(Path.of(args[0]), Path.of(args[1]));
+        } finally
+        {
+            runner.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int won = 0;
+        int died = 0;
+        int crashed = 0;
+        int invalid = 0;
+        for (ScriptResult result : results)
+        {
+            if (result.getOutcome().equals(GameOutcome.WON.name()))
+            {
+                won++;
+            } else if (result.getOutcome().equals(CRASHED))
+            {
+                crashed++;
+            } else if (result.getOutcome().equals(INVALID))
+            {
+                invalid++;
+            } else if (GameOutcome.valueOf(result.getOutcome()).isDeath())
+            {
+                died++;
+            }
+        }
+        System.out.printf("Played %d scripts in %.2f s: %d won, %d died, %d crashed, %d invalid, %d unfinished%n",
+                results.size(), seconds, won, died, crashed, invalid, results.size() - won - died - crashed - invalid);
+    }
+
+    /**
+     * The seed and the commands of a script.
+     */
+    static class Script
+    {
+        private long seed;
+        private List<String> commands;
+
+        /**
+         * @param seed the seed of the game
+         * @param commands the command lines, without empty lines and comments
+         */
+        private Script(long seed, List<String> commands)
+        {
+            this.seed = seed;
+            this.commands = commands;
+        }
+
+        /**
+         * Reads a script file.
+         * @param file the file of the script
+         * @param defaultSeed the seed of the game if the script doesn't choose one
+         * @return the script
+         * @throws IOException if the file cannot be read
+         * @throws IllegalArgumentException if the seed of the script is not a number
+         */
+        static Script read(Path file, long defaultSeed) throws IOException
+        {
+            long seed = defaultSeed;
+            List<String> commands = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+            {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#"))
+                {
+                    continue;
+                }
+                if (commands.isEmpty() && line.startsWith(SEED_PREFIX))
+                {
+                    try
+                    {
+                        seed = Long.parseLong(line.substring(SEED_PREFIX.length()).trim());
+                    } catch (NumberFormatException e)
+                    {
+                        throw new IllegalArgumentException(file + " has an invalid seed", e);
+                    }
+                    continue;
+                }
+                commands.add(line);
+            }
+            return new Script(seed, commands);
+        }
+
+        /**
+         * @return the seed of the game
+         */
+        long getSeed() {return seed;}
+
+        /**
+         * @return the command lines, without empty lines and comments
+         */
+        List<String> getCommands() {return commands;}
+    }
+
+    /**
+     * How the game of a script has ended.
+     */
+    public static class ScriptResult
+    {
+        private String script;
+        private long seed;
+        private String outcome;
+        private int steps;
+        private int vitality;
+
+        /**
+         * @param script the name of the script, without .txt
+         * @param seed the seed of the game
+         * @param outcome the name of the outcome of the game, CRASHED or INVALID
+         * @param steps the amount of commands that were played
+         * @param vitality the vitality the player had left
+         */
+        ScriptResult(String script, long seed, String outcome, int steps, int vitality)
+        {
+            this.script = script;
+            this.seed = seed;
+            this.outcome = outcome;
+            this.steps = steps;
+            this.vitality = vitality;
+        }
+
+        /**
+         * @return the name of the script, without .txt
+         */
+        public String getScript() {return script;}
+
+        /**
+         * @return the seed of the game
+         */
+        public long getSeed() {return seed;}
+
+        /**
+         * @return the name of the outcome of the game, PLAYING if the script ended before the game,
+         * CRASHED if the game threw an exception, or INVALID if the script could not be read
+         */
+        public String getOutcome() {return outcome;}
+
+        /**
+         * @return the amount of commands that were played
+         */
+        public int getSteps() {return steps;}
+
+        /**
+         * @return the vitality the player had left
+         */
+        public int getVitality() {return vitality;}
+
+        /**
+         * @return the result as a line of the summary
+         */
+        @Override
+        public String toString() {return script + "," + seed + "," + outcome + "," + steps + "," + vitality;}
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * An output sink that keeps everything the game displays in memory until it is taken.
+ * Used by game sessions and wherever the output of a game is needed as a value.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class BufferSink implements OutputSink
+{
+    private StringBuilder buffer;
+
+    /**
+     * Create an empty sink.
+     */
+    public BufferSink()
+    {
+        buffer = new StringBuilder(1024);
+    }
+
+    @Override
+    public void print(CharSequence text) {buffer.append(text);}
+
+    @Override
+    public void println(CharSequence text) {buffer.append(text).append('\n');}
+
+    @Override
+    public void println() {buffer.append('\n');}
+
+    /**
+     * Nothing needs to be done at the end of a turn, the output stays in the buffer until it is taken.
+     */
+    @Override
+    public void endTurn()
+    {
+    }
+
+    /**
+     * Returns everything displayed since the last call and empties the buffer.
+     * @return the output since the last call
+     */
+    public String takeOutput()
+    {
+        String text = buffer.toString();
+        buffer.setLength(0);
+        return text;
+    }
+}
@@ -19,7 +19,7 @@
 
 public class Command
 {
-    private String commandWord;
+    private CommandWord commandWord;
     private String secondWord;
     private String thirdWord;
 
@@ -33,8 +33,7 @@ public class Command
      */
     public Command(String firstWord, String secondWord)
     {
-        commandWord = firstWord;
-        this.secondWord = secondWord;
+        this(CommandWord.lookup(firstWord), secondWord, null);
     }
 
     /**
@@ -47,7 +46,31 @@ public class Command
      * @param thirdWord The third word of the command.
      */
     public Command(String firstWord, String secondWord, String thirdWord){
-        commandWord = firstWord;
+        this(CommandWord.lookup(firstWord), secondWord, thirdWord);
+    }
+
+    /**
+     * Create a command object from an already recognised command word.
+     *
+     * @param commandWord The command word. Null if the command was not recognised.
+     * @param secondWord The second word of the command.
+     * @param thirdWord The third word of the command.
+     */
+    public Command(CommandWord commandWord, String secondWord, String thirdWord)
+    {
+        set(commandWord, secondWord, thirdWord);
+    }
+
+    /**
+     * Replace the words of this command, so the object can be reused for the next command.
+     *
+     * @param commandWord The command word. Null if the command was not recognised.
+     * @param secondWord The second word of the command.
+     * @param thirdWord The third word of the command.
+     */
+    void set(CommandWord commandWord, String secondWord, String thirdWord)
+    {
+        this.commandWord = commandWord;
         this.secondWord = secondWord;
         this.thirdWord = thirdWord;
     }
@@ -58,7 +81,13 @@ public class Command
      *
      * @return The command word.
      */
-    public String getCommandWord() {return commandWord;}
+    public String getCommandWord() {return commandWord == null ? null : commandWord.getWord();}
+
+    /**
+     * @return The command word as one of the known command words, or null if
+     * the command was not understood.
+     */
+    public CommandWord getWord() {return commandWord;}
 
     /**
      * @return The second word of this command. Returns null if there was no
@@ -87,5 +116,22 @@ public class Command
     public boolean hasThirdWord(){
         return (thirdWord != null);
     }
-}
 
+    /**
+     * @return the command as the player would type it, for example "go north"
+     */
+    @Override
+    public String toString()
+    {
+        String text = commandWord == null ? "?" : commandWord.getWord();
+        if (secondWord != null)
+        {
+            text += " " + secondWord;
+        }
+        if (thirdWord != null)
+        {
+            text += " " + thirdWord;
+        }
+        return text;
+    }
+}
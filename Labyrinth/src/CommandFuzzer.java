@@ -0,0 +1,365 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The command fuzzer plays huge amounts of games with random and half-sensible command lines on every processor,
+ * to find commands that crash the game or leave it in a state that makes no sense. The lines go through the parser
+ * like typed lines: unknown words, missing and extra words, odd whitespace and strange artefact numbers included.
+ * Part of the commands come from the explorer policy, so the games also get deep into the labyrinth. The output
+ * of the games is thrown away, and the state of the game is checked after every turn.
+ * <p>
+ * Every kind of failure is only reported once. Its command lines are shortened as far as possible while the game
+ * still fails the same way, and written as a script for the batch runner, so it can be replayed with
+ * "Main batch". Hints are left out, because a single hint takes longer than many thousands of other commands.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class CommandFuzzer
+{
+    private static final int MAX_STEPS = 400;
+    private static final String[] UNKNOWN_WORDS = {"", "xyzzy", "GO", "Go", "lootartefact", "fight!", "north", "ñ", "-1"};
+    private static final String[] ARTEFACT_NUMBERS = {"-1", "0", "1", "2", "3", "9", "99", "2147483647", "2147483648",
+            "-2147483648", "+1", "1.5", "1e3", "abc", "٣", "00001", " "};
+    private static final String[] SEPARATORS = {" ", "  ", "\t", " \t "};
+
+    private GameSettings settings;
+    private Path outputDirectory;
+    private AtomicLong nextSeed;
+    private LongAdder commands;
+    private LongAdder games;
+    private Set<String> reported;           // every kind of failure found so far, claimed by the thread that reports it
+    private Map<String, Path> failures;     // the reproducer of every reported kind of failure, null if it couldn't be written
+
+    /**
+     * Create a fuzzer.
+     * @param settings the balance settings of the fuzzed games
+     * @param firstSeed the seed of the first game, the following games use the next seeds
+     * @param outputDirectory the directory the reproducers are written to
+     */
+    public CommandFuzzer(GameSettings settings, long firstSeed, Path outputDirectory)
+    {
+        this.settings = settings;
+        this.outputDirectory = outputDirectory;
+        nextSeed = new AtomicLong(firstSeed);
+        commands = new LongAdder();
+        games = new LongAdder();
+        reported = ConcurrentHashMap.newKeySet();
+        failures = Collections.synchronizedMap(new HashMap<>());
+    }
+
+    /**
+     * Fuzzes the game on a number of threads for a while.
+     * @param threads the amount of threads
+     * @param millis how long the game is fuzzed
+     * @throws IOException if the output directory cannot be created
+     * @throws InterruptedException if the fuzzer is interrupted
+     */
+    public void run(int threads, long millis) throws IOException, InterruptedException
+    {
+        Files.createDirectories(outputDirectory);
+        long end = System.nanoTime() + millis * 1_000_000;
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++)
+        {
+            long workerSeed = nextSeed.get() * 31 + i;
+            workers[i] = new Thread(() -> fuzz(end, new Random(workerSeed)), "labyrinth-fuzzer-" + (i + 1));
+            workers[i].start();
+        }
+        for (Thread worker : workers)
+        {
+            worker.join();
+        }
+    }
+
+    /**
+     * @return the amount of commands played so far
+     */
+    public long getCommandCount() {return commands.sum();}
+
+    /**
+     * @return the amount of games played so far
+     */
+    public long getGameCount() {return games.sum();}
+
+    /**
+     * @return the reproducer of every kind of failure that was found, by the kind of failure.
+     * The reproducer is null if it could not be written.
+     */
+    public Map<String, Path> getFailures() {return failures;}
+
+    /**
+     * The loop of a fuzzing thread: plays games until the time is up.
+     * @param end when the time is up, in System.nanoTime
+     * @param rand the random generator of the thread
+     */
+    private void fuzz(long end, Random rand)
+    {
+        NullSink output = new NullSink();
+        GameMetrics metrics = new GameMetrics();
+        Parser parser = new Parser();
+        Command command = new Command((CommandWord) null, null, null);
+        PlayerPolicy policy = new ExplorerPolicy();
+        List<String> lines = new ArrayList<>();
+        while (System.nanoTime() < end)
+        {
+            long seed = nextSeed.getAndIncrement();
+            Game game = new Game(settings, seed, output);
+            game.setMetrics(metrics);
+            lines.clear();
+            // some games follow the explorer closely, others hardly at all
+            int guidance = rand.nextInt(10);
+            String failure = null;
+            for (int step = 0; step < MAX_STEPS && failure == null; step++)
+            {
+                String line = rand.nextInt(10) < guidance ? toLine(policy.nextCommand(game, rand)) : randomLine(rand);
+                lines.add(line);
+                parser.parse(line, command);
+                failure = play(game, command);
+                if (failure == null && game.getOutcome() != GameOutcome.PLAYING)
+                {
+                    break;
+                }
+            }
+            commands.add(lines.size());
+            games.increment();
+            if (failure != null && !reported.contains(signature(failure)))
+            {
+                report(seed, new ArrayList<>(lines), failure);
+            }
+        }
+    }
+
+    /**
+     * Plays a turn and checks the state of the game afterwards.
+     * @param game the game
+     * @param command the command of the turn
+     * @return a description of the failure, or null if the turn went well
+     */
+    private static String play(Game game, Command command)
+    {
+        boolean finished;
+        try
+        {
+            finished = game.playTurn(command);
+        } catch (RuntimeException e)
+        {
+            StackTraceElement[] trace = e.getStackTrace();
+            return e.getClass().getSimpleName() + " at " + (trace.length > 0 ? trace[0] : "an unknown place")
+                    + ": " + e.getMessage();
+        }
+        if (finished && game.getOutcome() == GameOutcome.PLAYING)
+        {
+            return "the turn has ended the game without an outcome";
+        }
+        return game.checkInvariants();
+    }
+
+    /**
+     * Replays command lines in a new game.
+     * @param seed the seed of the game
+     * @param lines the command lines
+     * @return the failure and the amount of lines played until it happened, or null if the game didn't fail
+     */
+    private Object[] replay(long seed, List<String> lines)
+    {
+        Game game = new Game(settings, seed, new NullSink());
+        game.setMetrics(new GameMetrics());
+        Parser parser = new Parser();
+        for (int i = 0; i < lines.size() && game.getOutcome() == GameOutcome.PLAYING; i++)
+        {
+            String failure = play(game, parser.parse(lines.get(i)));
+            if (failure != null)
+            {
+                return new Object[] {failure, i + 1};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Shortens the command lines of a failure and writes them as a reproducer, unless the same kind of failure
+     * has already been reported.
+     * @param seed the seed of the game
+     * @param lines the command lines that led to the failure
+     * @param failure the description of the failure
+     */
+    private void report(long seed, List<String> lines, String failure)
+    {
+        String kind = signature(failure);
+        if (!reported.add(kind))
+        {
+            return;
+        }
+        List<String> shortest = minimize(seed, lines, kind);
+        Object[] result = replay(seed, shortest);
+        StringBuilder script = new StringBuilder();
+        script.append("# ").append(result == null ? failure : result[0]).append('\n');
+        script.append("seed ").append(seed).append('\n');
+        for (String line : shortest)
+        {
+            script.append(line).append('\n');
+        }
+        Path file = outputDirectory.resolve("failure-" + Integer.toHexString(kind.hashCode()) + BatchRunner.SCRIPT_SUFFIX);
+        try
+        {
+            Files.writeString(file, script);
+            failures.put(kind, file);
+        } catch (IOException e)
+        {
+            failures.put(kind, null);
+            System.err.println("The reproducer of " + failure + " could not be written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes as many command lines as possible while the game still fails the same way. Blocks of lines are
+     * removed, starting with halves and ending with single lines, and the lines after the failure are dropped.
+     * @param seed the seed of the game
+     * @param lines the command lines that led to the failure
+     * @param kind the kind of failure
+     * @return the shortened command lines
+     */
+    private List<String> minimize(long seed, List<String> lines, String kind)
+    {
+        for (int block = Math.max(1, lines.size() / 2); block >= 1; block /= 2)
+        {
+            int start = 0;
+            while (start < lines.size())
+            {
+                List<String> candidate = new ArrayList<>(lines.subList(0, start));
+                candidate.addAll(lines.subList(Math.min(lines.size(), start + block), lines.size()));
+                Object[] result = replay(seed, candidate);
+                if (result != null && signature((String) result[0]).equals(kind))
+                {
+                    lines = new ArrayList<>(candidate.subList(0, (Integer) result[1]));
+                } else
+                {
+                    start += block;
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @param failure the description of a failure
+     * @return the kind of the failure, which leaves out the numbers and the message of an exception
+     */
+    private static String signature(String failure)
+    {
+        int messageStart = failure.indexOf(": ");
+        String kind = failure.contains(" at ") && messageStart >= 0 ? failure.substring(0, messageStart) : failure;
+        return kind.replaceAll("-?\\d+", "N");
+    }
+
+    /**
+     * @param command a command given by a policy
+     * @return the command as a line a player would type
+     */
+    private static String toLine(Command command)
+    {
+        StringBuilder line = new StringBuilder(command.getCommandWord() == null ? "" : command.getCommandWord());
+        if (command.hasSecondWord())
+        {
+            line.append(' ').append(command.getSecondWord());
+        }
+        if (command.hasThirdWord())
+        {
+            line.append(' ').append(command.getThirdWord());
+        }
+        return line.toString();
+    }
+
+    /**
+     * Makes up a command line: usually a known command with random words, sometimes nonsense.
+     * @param rand the random generator
+     * @return the command line
+     */
+    private static String randomLine(Random rand)
+    {
+        CommandWord[] words = CommandWord.values();
+        String first;
+        if (rand.nextInt(20) == 0)
+        {
+            first = UNKNOWN_WORDS[rand.nextInt(UNKNOWN_WORDS.length)];
+        } else
+        {
+            CommandWord word = words[rand.nextInt(words.length)];
+            while (word == CommandWord.HINT || word == CommandWord.QUIT && rand.nextInt(20) != 0)
+            {
+                word = words[rand.nextInt(words.length)];
+            }
+            first = word.getWord();
+        }
+        String separator = rand.nextInt(10) == 0 ? SEPARATORS[rand.nextInt(SEPARATORS.length)] : " ";
+        switch (rand.nextInt(8))
+        {
+            case 0:
+                // no second word
+                return first;
+            case 1:
+                return first + separator + UNKNOWN_WORDS[rand.nextInt(UNKNOWN_WORDS.length)];
+            case 2:
+                return first + separator + "artefact" + separator + ARTEFACT_NUMBERS[rand.nextInt(ARTEFACT_NUMBERS.length)];
+            case 3:
+                // more words than any command takes
+                return first + separator + argument(rand) + separator + argument(rand) + separator + argument(rand);
+            default:
+                return first + separator + argument(rand);
+        }
+    }
+
+    /**
+     * @param rand the random generator
+     * @return one of the words that commonly follow a command word
+     */
+    private static String argument(Random rand)
+    {
+        return CommandWords.ARGUMENTS.get(rand.nextInt(CommandWords.ARGUMENTS.size()));
+    }
+
+    /**
+     * Runs the fuzzer from the command line.
+     * Usage: CommandFuzzer [seconds] [output directory] [first seed]
+     * @param args how long the game is fuzzed, where the reproducers are written and the seed of the first game
+     * @throws IOException if the output directory cannot be created
+     * @throws InterruptedException if the fuzzer is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 10;
+        Path outputDirectory = Path.of(args.length > 1 ? args[1] : "fuzzer-failures");
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : new Random().nextLong() >>> 1;
+
+        CommandFuzzer fuzzer = new CommandFuzzer(new GameSettings(), firstSeed, outputDirectory);
+        long start = System.nanoTime();
+        fuzzer.run(Runtime.getRuntime().availableProcessors(), seconds * 1000);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Played %,d commands in %,d games in %.1f s (%,.0f commands/s), starting at seed %d%n",
+                fuzzer.getCommandCount(), fuzzer.getGameCount(), elapsed, fuzzer.getCommandCount() / elapsed, firstSeed);
+        if (fuzzer.getFailures().isEmpty())
+        {
+            System.out.println("No failures found.");
+        }
+        for (Map.Entry<String, Path> failure : fuzzer.getFailures().entrySet())
+        {
+            System.out.println(failure.getKey() + "\n    reproducer: "
+                    + (failure.getValue() == null ? "none, it could not be written" : failure.getValue()));
+        }
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A command journal is an append-only file holding the seed of a game session and every command
+ * that was accepted in it, so the session can be rebuilt after a crash by replaying the commands.
+ * The file is memory-mapped, so appending a command is a write to memory that the operating system
+ * saves to disk even if the program crashes.
+ * <p>
+ * Commands are stored as compact opcodes. The first byte holds the command word in its lowest four bits,
+ * and whether a second and third word follow in the next two bits. Every word that follows is a single
+ * byte when it is one of the common arguments, otherwise the byte 127 followed by the length of the word
+ * and its UTF-8 bytes. A word can be at most 65535 bytes long.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class CommandJournal implements Closeable
+{
+    private static final int MAGIC = 0x4C424A31;       // "LBJ1"
+    private static final int LENGTH_POSITION = 12;     // where the end of the last record is stored
+    private static final int HEADER_SIZE = 20;         // magic, seed and end of the last record
+    private static final int MAPPING_STEP = 64 * 1024;
+    private static final int SECOND_WORD_BIT = 1 << 4;
+    private static final int THIRD_WORD_BIT = 1 << 5;
+    private static final int OTHER_WORD = 127;
+    private static final int MAX_WORD_BYTES = 0xFFFF;  // the length of a word is stored in two bytes
+    private static final CommandWord[] COMMAND_WORDS = CommandWord.values();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long seed;
+
+    /**
+     * Opens a journal file.
+     * @param channel the channel of the file
+     * @param size the amount of bytes of the file to be mapped
+     * @throws IOException if the file cannot be mapped
+     */
+    private CommandJournal(FileChannel channel, long size) throws IOException
+    {
+        this.channel = channel;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Creates a new, empty journal for a session. An existing file is replaced.
+     * @param file the journal file
+     * @param seed the seed of the game of the session
+     * @return the journal
+     * @throws IOException if the file cannot be created
+     */
+    public static CommandJournal create(Path file, long seed) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        CommandJournal journal = new CommandJournal(channel, MAPPING_STEP);
+        journal.seed = seed;
+        journal.buffer.putInt(0, MAGIC);
+        journal.buffer.putLong(4, seed);
+        journal.buffer.putLong(LENGTH_POSITION, HEADER_SIZE);
+        journal.buffer.position(HEADER_SIZE);
+        return journal;
+    }
+
+    /**
+     * Opens an existing journal. New commands are appended after the ones already in it.
+     * @param file the journal file
+     * @return the journal
+     * @throws IOException if the file cannot be read or is not a journal
+     */
+    public static CommandJournal open(Path file) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        CommandJournal journal = new CommandJournal(channel, Math.max(channel.size(), HEADER_SIZE));
+        if (journal.buffer.getInt(0) != MAGIC)
+        {
+            channel.close();
+            throw new IOException(file + " is not a command journal");
+        }
+        journal.seed = journal.buffer.getLong(4);
+        journal.buffer.position((int) journal.buffer.getLong(LENGTH_POSITION));
+        return journal;
+    }
+
+    /**
+     * @return the seed of the game of the session
+     */
+    public long getSeed() {return seed;}
+
+    /**
+     * Appends a command to the journal. Unknown commands, help and hints are not stored, because they don't change
+     * the game, and a hint would search the labyrinth again for nothing when the journal is replayed.
+     * @param command the command to be appended
+     * @throws IllegalArgumentException if a word of the command is too long to be stored. Nothing is appended then.
+     */
+    public void append(Command command)
+    {
+        if (!changesGame(command))
+        {
+            return;
+        }
+        checkWord(command.getSecondWord());
+        checkWord(command.getThirdWord());
+        ensureRemaining(1 + wordSize(command.getSecondWord()) + wordSize(command.getThirdWord()));
+
+        int opcode = command.getWord().ordinal();
+        if (command.hasSecondWord())
+        {
+            opcode |= SECOND_WORD_BIT;
+        }
+        if (command.hasThirdWord())
+        {
+            opcode |= THIRD_WORD_BIT;
+        }
+        buffer.put((byte) opcode);
+        putWord(command.getSecondWord());
+        putWord(command.getThirdWord());
+        // The length is written last, so a record is only part of the journal once it is complete.
+        buffer.putLong(LENGTH_POSITION, buffer.position());
+    }
+
+    /**
+     * Replays all commands of the journal through a game, until they run out or the game ends.
+     * The game should have been created with the seed of the journal.
+     * @param game the game the commands are replayed in
+     * @return the amount of commands that were replayed
+     * @throws IOException if a command in the journal is damaged
+     */
+    public int replay(Game game) throws IOException
+    {
+        long length = buffer.getLong(LENGTH_POSITION);
+        if (length < HEADER_SIZE || length > buffer.capacity())
+        {
+            throw new IOException("The journal claims to be " + length + " bytes long");
+        }
+        int end = (int) length;
+        int position = HEADER_SIZE;
+        int turns = 0;
+        Command command = new Command((CommandWord) null, null, null);
+        boolean finished = false;
+        while (position < end && !finished)
+        {
+            int opcode = buffer.get(position++);
+            if ((opcode & 0xF) >= COMMAND_WORDS.length)
+            {
+                throw new IOException("Unknown command word " + (opcode & 0xF) + " at " + (position - 1));
+            }
+            String secondWord = null;
+            String thirdWord = null;
+            if ((opcode & SECOND_WORD_BIT) != 0)
+            {
+                secondWord = getWord(position, end);
+                position += storedSize(position);
+            }
+            if ((opcode & THIRD_WORD_BIT) != 0)
+            {
+                thirdWord = getWord(position, end);
+                position += storedSize(position);
+            }
+            command.set(COMMAND_WORDS[opcode & 0xF], secondWord, thirdWord);
+            if (!changesGame(command))
+            {
+                // journals written before hints were left out may still hold them
+                continue;
+            }
+            finished = game.playTurn(command);
+            turns++;
+        }
+        return turns;
+    }
+
+    /**
+     * @param command a command
+     * @return false if the command never changes the state of a game, so it doesn't need to be replayed
+     */
+    private static boolean changesGame(Command command)
+    {
+        return !command.isUnknown() && command.getWord() != CommandWord.HELP && command.getWord() != CommandWord.HINT;
+    }
+
+    /**
+     * Writes everything in the journal to the disk.
+     */
+    public void force()
+    {
+        buffer.force();
+    }
+
+    /**
+     * Closes the journal, cutting the file down to the commands it holds.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        long length = buffer.getLong(LENGTH_POSITION);
+        buffer.force();
+        buffer = null;
+        channel.truncate(length);
+        channel.close();
+    }
+
+    /**
+     * @param word a word of a command, or null
+     * @return the amount of bytes the word takes in the journal
+     */
+    private static int wordSize(String word)
+    {
+        if (word == null)
+        {
+            return 0;
+        }
+        if (CommandWords.ARGUMENTS.indexOf(word) >= 0)
+        {
+            return 1;
+        }
+        return 3 + word.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Makes sure a word of a command fits in the journal.
+     * @param word the word, or null
+     * @throws IllegalArgumentException if the word is longer than 65535 UTF-8 bytes
+     */
+    private static void checkWord(String word)
+    {
+        int size = wordSize(word);
+        if (size - 3 > MAX_WORD_BYTES)
+        {
+            throw new IllegalArgumentException("A word of " + (size - 3) + " bytes is too long for the journal");
+        }
+    }
+
+    /**
+     * Writes a word of a command at the current position.
+     * @param word the word, or null if the command has no such word
+     */
+    private void putWord(String word)
+    {
+        if (word == null)
+        {
+            return;
+        }
+        int index = CommandWords.ARGUMENTS.indexOf(word);
+        if (index >= 0)
+        {
+            buffer.put((byte) index);
+            return;
+        }
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        buffer.put((byte) OTHER_WORD);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * @param position the position of a stored word in the journal
+     * @return the amount of bytes the word takes in the journal
+     */
+    private int storedSize(int position)
+    {
+        return buffer.get(position) == OTHER_WORD ? 3 + (buffer.getShort(position + 1) & 0xFFFF) : 1;
+    }
+
+    /**
+     * @param position the position of the word in the journal
+     * @param end the end of the last record of the journal
+     * @return the word at that position
+     * @throws IOException if the word is not a known argument or runs past the end of the journal
+     */
+    private String getWord(int position, int end) throws IOException
+    {
+        if (position >= end)
+        {
+            throw new IOException("The word at " + position + " runs past the end of the journal");
+        }
+        int index = buffer.get(position);
+        if (index != OTHER_WORD)
+        {
+            if (index < 0 || index >= CommandWords.ARGUMENTS.size())
+            {
+                throw new IOException("Unknown argument " + index + " at " + position);
+            }
+            return CommandWords.ARGUMENTS.get(index);
+        }
+        if (position + 3 > end || position + storedSize(position) > end)
+        {
+            throw new IOException("The word at " + position + " runs past the end of the journal");
+        }
+        byte[] bytes = new byte[storedSize(position) - 3];
+        buffer.get(position + 3, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes sure the mapped part of the file has room for the given amount of bytes, mapping more of the file if needed.
+     * @param bytes the amount of bytes that are about to be written
+     */
+    private void ensureRemaining(int bytes)
+    {
+        if (buffer.remaining() >= bytes)
+        {
+            return;
+        }
+        int position = buffer.position();
+        long size = ((long) position + bytes + MAPPING_STEP) / MAPPING_STEP * MAPPING_STEP;
+        try
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        buffer.position(position);
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * This enum is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * It holds all command words known to the game, so a command can be recognised once
+ * when it is parsed and compared cheaply everywhere else.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public enum CommandWord
+{
+    GO("go"),
+    QUIT("quit"),
+    HELP("help"),
+    TAKE("take"),
+    ANSWER("answer"),
+    BACK("back"),
+    FIGHT("fight"),
+    RUN("run"),
+    LOOT("loot"),
+    PRESS("press"),
+    HINT("hint");
+
+    private static final CommandWord[] WORDS = values();
+    private static final WordTable TABLE;
+
+    static
+    {
+        String[] words = new String[WORDS.length];
+        for (int i = 0; i < WORDS.length; i++)
+        {
+            words[i] = WORDS[i].word;
+        }
+        TABLE = new WordTable(words);
+    }
+
+    private final String word;
+
+    /**
+     * @param word the command word as it is typed by the player
+     */
+    CommandWord(String word)
+    {
+        this.word = word;
+    }
+
+    /**
+     * @return the command word as it is typed by the player
+     */
+    public String getWord() {return word;}
+
+    /**
+     * Looks up a command word that is part of a line of input.
+     * @param text the line containing the word
+     * @param start the position of the first character of the word
+     * @param end the position after the last character of the word
+     * @return the command word, or null if the word is not a command
+     */
+    public static CommandWord lookup(CharSequence text, int start, int end)
+    {
+        int index = TABLE.indexOf(text, start, end);
+        return index < 0 ? null : WORDS[index];
+    }
+
+    /**
+     * @param word a word typed by the player
+     * @return the command word, or null if the word is not a command
+     */
+    public static CommandWord lookup(String word)
+    {
+        if (word == null)
+        {
+            return null;
+        }
+        return lookup(word, 0, word.length());
+    }
+}
@@ -11,10 +11,11 @@
 
 public class CommandWords
 {
-    // a constant array that holds all valid command words
-    private static final String[] validCommands = {
-            "go", "quit", "help", "take", "answer", "back", "fight", "run", "loot", "press"
-    };
+    // the words that commonly follow a command word, so they don't need to be copied out of every line of input
+    static final WordTable ARGUMENTS = new WordTable(
+            "north", "south", "east", "west", "up", "down", "forward", "backward", "left", "right",
+            "yes", "no", "hole", "Monster", "Fairy", "Wizard", "Minotaur", "food", "artefact",
+            "1", "2", "3", "4", "5", "6", "7", "8");
 
     /**
      * Constructor - initialise the command words.
@@ -31,25 +32,22 @@ public class CommandWords
      */
     public boolean isCommand(String aString)
     {
-        for (int i = 0; i < validCommands.length; i++)
-        {
-            if (validCommands[i].equals(aString))
-                return true;
-        }
-        // if we get here, the string was not found in the commands
-        return false;
+        return CommandWord.lookup(aString) != null;
     }
 
     /**
-     * Print all valid commands to System.out.
+     * Return all valid commands, separated by spaces.
+     *
+     * @return the valid command words.
      */
-    public void showAll()
+    public String getAll()
     {
-        for (String command : validCommands)
+        String returnString = "";
+        for (CommandWord command : CommandWord.values())
         {
-            System.out.print(command + "  ");
+            returnString += command.getWord() + "  ";
         }
-        System.out.println();
+        return returnString;
     }
 
 }
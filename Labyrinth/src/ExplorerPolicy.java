@@ -0,0 +1,67 @@
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A player policy that plays like a player who knows the rules but not the map.
+ * It deals sensibly with every NPC, solves the riddle, tries to take the legendary items
+ * in the rooms where they can be found and otherwise wanders through random exits.
+ * Once it has Ariadna's Thread it follows the number on it through the binary corridor.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class ExplorerPolicy implements PlayerPolicy
+{
+    /**
+     * Chooses the next command of the explorer.
+     * @param game the game that is being played
+     * @param rand the random generator of the simulated player
+     * @return the command to be given to the game
+     */
+    @Override
+    public Command nextCommand(Game game, Random rand)
+    {
+        Room room = game.getCurrentRoom();
+        int roomId = room.getId();
+
+        if (roomId == Game.CENTRE && !game.isVictory())
+        {
+            if (game.hasItem(LegendaryItem.HERMESS_BOOTS))
+            {
+                return new Command("run", "Minotaur");
+            }
+            return new Command("fight", "Minotaur");
+        }
+        NPC npc = room.getNPC();
+        if (npc != null && roomId != Game.CENTRE)
+        {
+            switch (npc.getType())
+            {
+                case "Monster":
+                    return new Command("fight", "Monster");
+                case "Fairy":
+                    return new Command("answer", "yes");
+                default:
+                    return new Command("answer", "no");
+            }
+        }
+        if (roomId == Game.PUZZLE_ROOM && !room.hasExit("west") && !game.hasItem(LegendaryItem.ARIADNAS_THREAD))
+        {
+            return new Command("answer", "hole");
+        }
+        if (roomId == Game.BINARY_CORRIDOR && game.hasItem(LegendaryItem.ARIADNAS_THREAD) && rand.nextInt(4) != 0)
+        {
+            if (game.getThreadNumber().charAt(game.getBinaryRoom()) == '0')
+            {
+                return new Command("go", "left");
+            }
+            return new Command("go", "right");
+        }
+        if ((roomId == Game.ENDLESS_CORRIDOR || roomId == Game.TREASURY || roomId == Game.SPIRAL_STAIRCASE || roomId == Game.SECRET_CORRIDOR) && rand.nextInt(3) == 0)
+        {
+            return new Command("take", null);
+        }
+        return new Command("go", RandomPolicy.randomExit(room, rand));
+    }
+}
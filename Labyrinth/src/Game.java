@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -18,7 +19,65 @@ import java.util.*;
 
 public class Game
 {
-    private Random rand = new Random();
+    // the ids of the rooms of the labyrinth
+    static final int ENTRANCE = 0;
+    static final int MAIN_HALL = 1;
+    static final int ENDLESS_CORRIDOR = 2;
+    static final int PUZZLE_ROOM = 3;
+    static final int TREASURY = 4;
+    static final int SPIRAL_STAIRCASE = 5;
+    static final int PIT = 6;
+    static final int SECRET_CORRIDOR = 7;
+    static final int CENTRE = 8;
+    static final int BINARY_CORRIDOR = 9;
+    static final int LION_ROOM = 10;
+    static final int LAVA_PIT = 11;
+    static final int MYSTERY_ROOM = 12;
+    static final int ROOM_COUNT = 13;
+
+    // the state flags, stored in the same bits as the legendary items of the player
+    private static final int VICTORY = 1 << 4;
+    private static final int BUTTON_PRESSED = 1 << 5;
+    private static final int RIDDLE_SOLVED = 1 << 6;
+
+    // the moves stored in the movement histories of the repeating rooms
+    private static final int DOWN = 0;
+    private static final int UP = 1;
+    private static final int BACKWARD = 0;
+    private static final int FORWARD = 1;
+
+    // the most runs of moves the back command can undo in each movement history
+    private static final int HISTORY_CAPACITY = 256;
+
+    // the index of the Minotaur among the NPC types
+    static final int BOSS = 3;
+
+    // the handler that sets up each room, indexed by the id of the room
+    private static final RoomHandler[] ROOM_HANDLERS = new RoomHandler[ROOM_COUNT];
+
+    static
+    {
+        ROOM_HANDLERS[ENTRANCE] = (game, command) -> game.setEntrance();
+        ROOM_HANDLERS[MAIN_HALL] = (game, command) -> game.setMainHall(command);
+        ROOM_HANDLERS[ENDLESS_CORRIDOR] = (game, command) -> game.setEndlessCorridor();
+        ROOM_HANDLERS[PUZZLE_ROOM] = (game, command) -> game.setPuzzleRoom(game.prevRoom, command);
+        ROOM_HANDLERS[TREASURY] = (game, command) -> game.setTreasury(command);
+        ROOM_HANDLERS[SPIRAL_STAIRCASE] = (game, command) -> game.setSpiralStairCase();
+        ROOM_HANDLERS[PIT] = (game, command) -> game.setPit(command);
+        ROOM_HANDLERS[SECRET_CORRIDOR] = (game, command) -> game.setSecretCorridor(command);
+        ROOM_HANDLERS[CENTRE] = (game, command) -> game.setCentre(command);
+        ROOM_HANDLERS[BINARY_CORRIDOR] = (game, command) -> game.setBinaryCorridor(command);
+        ROOM_HANDLERS[LION_ROOM] = (game, command) -> game.setLionRoom();
+        ROOM_HANDLERS[LAVA_PIT] = (game, command) -> game.setLavaPit();
+        ROOM_HANDLERS[MYSTERY_ROOM] = (game, command) -> game.setMysteryRoom(command);
+    }
+
+    private GameRandom rand;
+    private long seed;
+    private GameSettings settings;
+    private WorldDefinition world;
+    private SharedWorld sharedWorld;        // null unless the player shares the labyrinth with other players
+    private GameOutcome outcome;
     private Parser parser;
     private Room currentRoom;
     private Room prevRoom;
@@ -32,50 +91,134 @@ public class Game
     private int exhaustCoefficient;
     private int playerBackPackWeight;
     private int totalArtefactCount;
-    private boolean victory;
-    private boolean buttonPressed;
-    private boolean isRiddleSolved;
-    private List<String> staircaseMovement;
-    private List<String> corridorMovement;
-    private List<String> binaryMovement;
-    private List<String> playerItems;
-    private List<Room> labyrinthRooms;
-    private List<Room> visitedRooms;
+    private int flags;      // the legendary items of the player and the state flags below, one bit each
+    private MovementHistory staircaseMovement;
+    private MovementHistory corridorMovement;
+    private MovementHistory binaryMovement;
+    private Room[] labyrinthRooms;
+    private MovementHistory visitedRooms;     // the ids of the rooms the player has left
     private List<Artefact> backpack;
+    private List<String> possibleArtefacts;
     private List<NPC> npcList;
+    private NpcScheduler npcScheduler;
+    private OutputSink output;
+    private RouteSolver solver;     // created when the player first asks for a hint
+    private GameMetrics metrics;
 
     /**
      * Create the game and initialise its internal map.
      */
     public Game()
     {
+        this(new Random().nextLong());
+    }
+
+    /**
+     * Create the game and initialise its internal map.
+     * Two games created with the same seed play out identically when given the same commands.
+     * @param seed the seed of the random generator of the game
+     */
+    public Game(long seed)
+    {
+        this(new GameSettings(), seed, new TerminalSink());
+    }
+
+    /**
+     * Create the game with custom balance settings and initialise its internal map.
+     * @param settings the balance settings of the game
+     * @param seed the seed of the random generator of the game
+     * @param output receives everything the game displays to the player
+     */
+    public Game(GameSettings settings, long seed, OutputSink output)
+    {
+        this(settings, WorldDefinition.getDefault(), seed, output);
+    }
+
+    /**
+     * Create the game in a world with custom content and initialise its internal map.
+     * @param settings the balance settings of the game
+     * @param world the world definition with the texts and starting exits of the rooms
+     * @param seed the seed of the random generator of the game
+     * @param output receives everything the game displays to the player
+     * @throws IllegalArgumentException if the world doesn't define the rooms of the game
+     */
+    public Game(GameSettings settings, WorldDefinition world, long seed, OutputSink output)
+    {
+        this(settings, world, null, seed, output);
+    }
+
+    /**
+     * Create the game of a player in a shared world. The artefacts and NPCs are those of the shared world.
+     * @param settings the balance settings of the game
+     * @param sharedWorld the world the player shares with other players
+     * @param seed the seed of the random generator of the game
+     * @param output receives everything the game displays to the player
+     */
+    Game(GameSettings settings, SharedWorld sharedWorld, long seed, OutputSink output)
+    {
+        this(settings, sharedWorld.getWorld(), sharedWorld, seed, output);
+    }
+
+    /**
+     * Create the game and initialise its internal map.
+     * @param settings the balance settings of the game
+     * @param world the world definition with the texts and starting exits of the rooms
+     * @param sharedWorld the world the player shares with other players, or null for a single player game
+     * @param seed the seed of the random generator of the game
+     * @param output receives everything the game displays to the player
+     */
+    private Game(GameSettings settings, WorldDefinition world, SharedWorld sharedWorld, long seed, OutputSink output)
+    {
+        if (world.getRoomCount() != ROOM_COUNT || world.getArtefactNames().isEmpty())
+        {
+            throw new IllegalArgumentException("A world must define " + ROOM_COUNT + " rooms and at least one artefact.");
+        }
+        this.seed = seed;
+        this.settings = settings;
+        this.world = world;
+        this.sharedWorld = sharedWorld;
+        rand = new GameRandom(seed);
+        outcome = GameOutcome.PLAYING;
         threadNumber = generateThreadNumber();
-        vitality = 10;
+        vitality = settings.getVitality();
         staircaseLevel = 0;
         endlessCorridorRoom = 0;
         binaryRoom = 0;
         stepCounter = 0;
         riddleTipCounter = 0;
-        exhaustCoefficient = 5;
-        playerBackPackWeight = 15;
+        exhaustCoefficient = settings.getExhaustCoefficient();
+        playerBackPackWeight = settings.getBackPackWeight();
         totalArtefactCount = 0;
-        victory = false;
-        buttonPressed = false;
-        isRiddleSolved = false;
-
-        staircaseMovement = new ArrayList<>();
-        corridorMovement = new ArrayList<>();
-        binaryMovement = new ArrayList<>();
-        playerItems = new ArrayList<>();
-        visitedRooms = new ArrayList<>();
-        labyrinthRooms = new ArrayList<>();
+        flags = 0;
+
+        staircaseMovement = new MovementHistory(HISTORY_CAPACITY);
+        corridorMovement = new MovementHistory(HISTORY_CAPACITY);
+        binaryMovement = new MovementHistory(HISTORY_CAPACITY);
+        visitedRooms = new MovementHistory(HISTORY_CAPACITY);
+        labyrinthRooms = new Room[ROOM_COUNT];
         backpack = new ArrayList<>();
         npcList = new ArrayList<>();
+        this.output = output;
+        metrics = GameMetrics.getGlobal();
         parser = new Parser();
 
         createRooms();
+        if (sharedWorld != null)
+        {
+            // the artefacts and NPCs belong to the shared world
+            possibleArtefacts = sharedWorld.getPossibleArtefacts();
+            return;
+        }
+        possibleArtefacts = new LinkedList<>(world.getArtefactNames());
+        npcScheduler = new NpcScheduler(ROOM_COUNT, this::npcMoved);
+        for (int id = MAIN_HALL; id <= SECRET_CORRIDOR; id++)
+        {
+            npcScheduler.addRoom(id);
+        }
+        labyrinthRooms[CENTRE].setNPC(createNPC(BOSS));
         generateNPCs(5);
-        moveNPCs();
+        // the NPCs take their places when the game is created, which is not counted as a move of the NPCs
+        npcScheduler.step(rand, settings.getNpcMovesPerTurn());
     }
 
     /**
@@ -93,73 +236,18 @@ public class Game
     }
 
     /**
-     * Create all the rooms and link their exits together.
+     * Create the rooms of the game. Their exits are those of the world graph until the game changes them.
      */
     private void createRooms()
     {
-        Room entrance, centre, puzzleRoom, spiralStaircase, pit, secretCorridor, treasury, mainHall, lionRoom, lavaPit, binaryCorridor, endlessCorridor, mysteryRoom;
-
-        // create the rooms
-        entrance = new Room("at the entrance to The Labyrinth of Daedalus.");
-        mainHall = new Room("in the main hall of the labyrinth.");
-        puzzleRoom = new Room("in what appears to be a puzzle room.");
-        treasury = new Room("in the labyrinths treasury.");
-        spiralStaircase = new Room("in a room with a spiral staircase in front of you. You can go up or down.");
-        pit = new Room("in the pit.");
-        secretCorridor = new Room("in the secret corridor shown by Ariadna's thread.");
-        lionRoom = new Room("in a room full of hungry lions. The door closes behind you instantly.");
-        lavaPit = new Room("in a room with a lava pit.");
-        centre = new Room("at the centre of the labyrinth.");
-        binaryCorridor = new Room("in a room with 2 doors. The one to the left is dark and dim and the one to the right has a bright light above it");
-        endlessCorridor = new Room("in a very long corridor. You feel exhaustion coming upon you.");
-        mysteryRoom = new Room("in a weird room with glowing light everywhere. There is a button on the opposite wall.");
-
-        // initialise room exits
-        entrance.setExit("north", mainHall);
-
-        mainHall.setExit("south", entrance);
-        mainHall.setExit("west", puzzleRoom);
-        mainHall.setExit("north", endlessCorridor);
-        mainHall.setExit("east", spiralStaircase);
-
-        puzzleRoom.setExit("east", mainHall);
-
-        treasury.setExit("east", puzzleRoom);
-
-        spiralStaircase.setExit("west", mainHall);
-        spiralStaircase.setExit("up", spiralStaircase);
-        spiralStaircase.setExit("down", spiralStaircase);
-
-        //the pit's exits do not exist yet
-
-        secretCorridor.setExit("south", pit);
-        secretCorridor.setExit("north", mainHall);
-
-        binaryCorridor.setExit("south", mainHall);
-
-        endlessCorridor.setExit("forward", endlessCorridor);
-        endlessCorridor.setExit("backward", mainHall);
-
-        //the centre doesn't have exits yet
-
-        mysteryRoom.setExit("north", treasury);
-
-        currentRoom = entrance;  // start game outside
-
-        //Add rooms to list
-        labyrinthRooms.add(entrance);           //index 0
-        labyrinthRooms.add(mainHall);           //index 1
-        labyrinthRooms.add(endlessCorridor);    //index 2
-        labyrinthRooms.add(puzzleRoom);         //index 3
-        labyrinthRooms.add(treasury);           //index 4
-        labyrinthRooms.add(spiralStaircase);    //index 5
-        labyrinthRooms.add(pit);                //index 6
-        labyrinthRooms.add(secretCorridor);     //index 7
-        labyrinthRooms.add(centre);             //index 8
-        labyrinthRooms.add(binaryCorridor);     //index 9
-        labyrinthRooms.add(lionRoom);           //index 10
-        labyrinthRooms.add(lavaPit);            //index 11
-        labyrinthRooms.add(mysteryRoom);        //index 12
+        WorldGraph graph = world.getGraph();
+        for (int id = 0; id < ROOM_COUNT; id++)
+        {
+            labyrinthRooms[id] = sharedWorld == null ? new Room(id, graph, labyrinthRooms)
+                    : new Room(id, graph, labyrinthRooms, sharedWorld.getContents(id));
+        }
+
+        currentRoom = labyrinthRooms[ENTRANCE];  // start game outside
     }
 
     /**
@@ -170,47 +258,95 @@ public class Game
     {
         for (int i = 0; i < count; i++)
         {
-            switch (rand.nextInt(3))
-            {
-                case 0 -> npcList.add(new NPC("I wanna kill ya! Wanna fight?", "Monster"));
-                case 1 -> npcList.add(new NPC("I want to heal you! Do you accept my gift?", "Fairy"));
-                case 2 -> npcList.add(new NPC("I wanna teleport ya! Do you accept?", "Wizard"));
-                default ->
-                {
-                }
-            }
+            npcList.add(createNPC(rand.nextInt(3)));
+            npcScheduler.addNPC();
         }
+    }
 
+    /**
+     * Create an NPC of the given type.
+     * @param type the index of the type in WorldDefinition.NPC_TYPES
+     * @return the new NPC
+     */
+    private NPC createNPC(int type)
+    {
+        return new NPC(world.getGreeting(type), WorldDefinition.NPC_TYPES.get(type));
     }
 
     /**
      * Move the NPCs to the rooms they can be encountered in.
+     * NPCs that have left their room are placed in a free room and a few others wander to another free room.
      */
-    private void moveNPCs()
+    void moveNPCs()
     {
-        for (Room rm : labyrinthRooms)
+        if (sharedWorld != null)
         {
-            rm.setNPC(null);
+            if (sharedWorld.moveNPCs(rand, settings.getNpcMovesPerTurn()))
+            {
+                metrics.recordNpcMove();
+            }
+            return;
         }
-        labyrinthRooms.get(8).setNPC(new NPC("This is to ignore guard clause.", "Boss"));
+        npcScheduler.step(rand, settings.getNpcMovesPerTurn());
+        metrics.recordNpcMove();
+    }
 
-        for (NPC current : npcList)
+    /**
+     * Keeps the rooms up to date with the moves of the NPC scheduler.
+     * @param npc the number of the NPC that has moved
+     * @param from the id of the room it left, or -1
+     * @param to the id of the room it entered, or -1
+     * @return true, because a single player game has nobody else who could have dealt with the NPC
+     */
+    private boolean npcMoved(int npc, int from, int to)
+    {
+        NPC moved = npcList.get(npc);
+        if (from >= 0)
+        {
+            labyrinthRooms[from].setNPC(null);
+        }
+        if (to >= 0)
         {
-            int index = rand.nextInt(1, 8);
-            Room chosen = labyrinthRooms.get(index);
+            labyrinthRooms[to].setNPC(moved);
+            moved.setCurrentRoom(labyrinthRooms[to]);
+        } else
+        {
+            moved.setCurrentRoom(null);
+        }
+        return true;
+    }
 
-            while (chosen.hasNPC() && current.getCurrentRoom() != null && current.getCurrentRoom().equals(chosen))
+    /**
+     * Makes an NPC in the room of the player leave. It shows up in another room once the player moves on.
+     * In a shared world another player may have dealt with it first, in which case the player is told it has gone.
+     * @param npc the NPC the player has dealt with
+     * @return true if the NPC was dismissed by the player, false if it had already gone
+     */
+    private boolean dismissNPC(NPC npc)
+    {
+        if (sharedWorld != null)
+        {
+            if (!sharedWorld.dismissNPC(currentRoom.getId(), npc))
             {
-                index = rand.nextInt(1, 8);
-                chosen = labyrinthRooms.get(index);
+                println("The " + npc.getType().toLowerCase() + " has already gone.");
+                return false;
             }
-            current.setCurrentRoom(labyrinthRooms.get(index));
-            chosen.setNPC(current);
+            return true;
         }
+        int index = npcList.indexOf(npc);
+        if (index >= 0)
+        {
+            npcScheduler.vacate(index);
+        } else
+        {
+            currentRoom.removeNPC(npc);
+        }
+        return true;
     }
 
     /**
      * Main play routine. Loops until end of play.
+     * This is only a terminal adapter: every turn is handled by playTurn and its output goes to the output sink of the game.
      */
     public void play()
     {
@@ -223,104 +359,567 @@ public class Game
         while (!finished)
         {
             Command command = parser.getCommand();
-            finished = processCommand(command);
+            finished = playTurn(command);
+        }
+    }
+
+    /**
+     * Executes a single turn of the game: processes the command, sets up the room the player ends up in
+     * and displays the status of the player. The output sink of the game is told when the turn is over.
+     * @param command the command issued by the player
+     * @return true if the game has ended, false if it continues
+     */
+    boolean playTurn(Command command)
+    {
+        boolean finished = runTurn(command);
+        output.endTurn();
+        return finished;
+    }
+
+    /**
+     * Does the work of a turn for playTurn.
+     * @param command the command issued by the player
+     * @return true if the game has ended, false if it continues
+     */
+    private boolean runTurn(Command command)
+    {
+        long start = System.nanoTime();
+        boolean finished = processCommand(command);
+        metrics.recordCommand(command.getWord(), System.nanoTime() - start);
 
-            if (command.isUnknown())
+        if (command.isUnknown())
+        {
+            return false;
+        }
+        println();
+        int room = currentRoom.getId();
+        start = System.nanoTime();
+        if (ROOM_HANDLERS[room].setUp(this, command))
+        {
+            finished = true;
+        }
+        metrics.recordRoomHandler(room, System.nanoTime() - start);
+
+        // Check for death.
+        if (vitality <= 0)
+        {
+            println("You run out of strength in the labyrinth and lose your life to exhaustion.");
+            if (outcome != GameOutcome.PIT)
             {
-                continue;
+                outcome = GameOutcome.EXHAUSTION;
             }
-            System.out.println();
-            switch (labyrinthRooms.indexOf(currentRoom))
+            metrics.recordOutcome(outcome, currentRoom.getId());
+            printGoodbye();
+            return true;
+        }
+        //Check for NPC encounter
+        NPC npc = currentRoom.getNPC();
+        if (npc != null && currentRoom.getId() != CENTRE)
+        {
+            println("\nYou encounter a " + npc.getType() + " in the room.");
+            println(npc.getType() + ": " + npc.getGreeting());
+        }
+        //Display backpack contents and weight
+        println("\n------------------------------");
+        currentRoom.printRoomArtefacts(output);
+        println("Remaining backpack weight - " + playerBackPackWeight);
+        println("------------------------------\n");
+        //Display exits unless the game has ended
+        if (!(isSet(VICTORY) && currentRoom.getId() == ENTRANCE) && !finished)
+        {
+            println(currentRoom.getExitString());
+        }
+        if (finished)
+        {
+            if (outcome == GameOutcome.PLAYING)
             {
-                case 0:
-                    finished = setEntrance();
-                    break;
-                case 1:
-                    setMainHall(command);
-                    break;
-                case 2:
-                    setEndlessCorridor();
-                    break;
-                case 3:
-                    setPuzzleRoom(prevRoom, command);
-                    break;
-                case 4:
-                    setTreasury(command);
-                    break;
-                case 5:
-                    setSpiralStairCase();
-                    break;
-                case 6:
-                    setPit(command);
-                    break;
-                case 7:
-                    setSecretCorridor(command);
-                    break;
-                case 8:
-                    setCentre(command);
-                    break;
-                case 9:
-                    setBinaryCorridor(command);
-                    break;
-                case 10:
-                    finished = setLionRoom();
-                    break;
-                case 11:
-                    finished = setLavaPit();
-                    break;
-                case 12:
-                    setMysteryRoom(command);
-                default:
-                    break;
+                outcome = GameOutcome.QUIT;
+            }
+            metrics.recordOutcome(outcome, currentRoom.getId());
+            printGoodbye();
+        }
+        return finished;
+    }
+
+    /**
+     * @return the seed the game was created with
+     */
+    public long getSeed() {return seed;}
+
+    /**
+     * @return true if the game is played in a shared world
+     */
+    public boolean isShared() {return sharedWorld != null;}
+
+    /**
+     * @return how the game has ended, or PLAYING if it hasn't ended yet
+     */
+    public GameOutcome getOutcome() {return outcome;}
+
+    /**
+     * Changes where the game displays its output, for example after a session has been rebuilt from a journal.
+     * @param output receives everything the game displays to the player from now on
+     */
+    void setOutput(OutputSink output) {this.output = output;}
+
+    /**
+     * Replaces the metrics the game records its turns in. Games record in the global metrics by default.
+     * @param metrics the metrics of the game
+     */
+    void setMetrics(GameMetrics metrics) {this.metrics = metrics;}
+
+    /**
+     * @return the vitality of the player
+     */
+    int getVitality() {return vitality;}
+
+    /**
+     * @return true if the player has defeated the Minotaur
+     */
+    boolean isVictory() {return isSet(VICTORY);}
+
+    /**
+     * @param item a legendary item
+     * @return true if the player has picked up the item
+     */
+    boolean hasItem(LegendaryItem item) {return (flags & item.getMask()) != 0;}
+
+    /**
+     * Gives a legendary item to the player.
+     * @param item the item that is picked up
+     */
+    private void addItem(LegendaryItem item) {flags |= item.getMask();}
+
+    /**
+     * @param flag one of the state flags VICTORY, BUTTON_PRESSED and RIDDLE_SOLVED
+     * @return true if the flag is set
+     */
+    private boolean isSet(int flag) {return (flags & flag) != 0;}
+
+    /**
+     * @param flag one of the state flags VICTORY, BUTTON_PRESSED and RIDDLE_SOLVED
+     * @param value whether the flag is set
+     */
+    private void setFlag(int flag, boolean value)
+    {
+        if (value)
+        {
+            flags |= flag;
+        } else
+        {
+            flags &= ~flag;
+        }
+    }
+
+    /**
+     * @return the number on Ariadna's Thread
+     */
+    String getThreadNumber() {return threadNumber;}
+
+    /**
+     * @return the floor of the spiral staircase the player is on
+     */
+    int getStaircaseLevel() {return staircaseLevel;}
+
+    /**
+     * @return how far the player has gone into the binary corridor
+     */
+    int getBinaryRoom() {return binaryRoom;}
+
+    /**
+     * @return how far the player has gone into the endless corridor
+     */
+    int getEndlessCorridorRoom() {return endlessCorridorRoom;}
+
+    /**
+     * @return the legendary items of the player and the state flags, one bit each
+     */
+    int getFlags() {return flags;}
+
+    /**
+     * @return the room the player was in before the current one, or null at the start of the game
+     */
+    Room getPreviousRoom() {return prevRoom;}
+
+    /**
+     * Checks that the state of the game makes sense, for example after every turn of a fuzzer.
+     * @return a description of the first broken rule, or null if the state is consistent
+     */
+    String checkInvariants()
+    {
+        if (currentRoom == null)
+        {
+            return "the current room is null";
+        }
+        if (labyrinthRooms[currentRoom.getId()] != currentRoom)
+        {
+            return "the current room " + currentRoom.getId() + " is not a room of this game";
+        }
+        if (playerBackPackWeight < 0)
+        {
+            return "the backpack weight is negative: " + playerBackPackWeight;
+        }
+        int carried = 0;
+        for (Artefact artefact : backpack)
+        {
+            carried += artefact.getWeight();
+        }
+        if (playerBackPackWeight + carried != settings.getBackPackWeight())
+        {
+            return "the backpack weight " + playerBackPackWeight + " doesn't match the artefacts carried, weighing " + carried;
+        }
+        if (binaryRoom < 0 || binaryRoom >= threadNumber.length())
+        {
+            return "the binary corridor room is out of range: " + binaryRoom;
+        }
+        if (endlessCorridorRoom < 0)
+        {
+            return "the endless corridor room is negative: " + endlessCorridorRoom;
+        }
+        if (outcome == GameOutcome.PLAYING && vitality <= 0)
+        {
+            return "the player has no vitality left but the game goes on";
+        }
+        return null;
+    }
+
+    /**
+     * @param id the id of a room
+     * @return the room with that id
+     */
+    Room getRoom(int id) {return labyrinthRooms[id];}
+
+    /**
+     * @return the room the player is in
+     */
+    Room getCurrentRoom() {return currentRoom;}
+
+    /**
+     * Stores the scalar state of the game in a row of session columns.
+     * @param columns the session columns
+     * @param row the row of the game
+     */
+    void writeColumns(SessionColumns columns, int row)
+    {
+        columns.set(row, vitality, stepCounter, staircaseLevel, endlessCorridorRoom, binaryRoom,
+                playerBackPackWeight, flags, currentRoom.getId(), outcome);
+    }
+
+    /**
+     * Replaces the scalar state of the game with a row of session columns written by writeColumns.
+     * Everything else, like the backpack and the rooms, is kept.
+     * @param columns the session columns
+     * @param row the row of the game
+     * @throws IllegalArgumentException if the row is empty
+     */
+    void readColumns(SessionColumns columns, int row)
+    {
+        if (columns.isEmpty(row))
+        {
+            throw new IllegalArgumentException("Row " + row + " holds no game.");
+        }
+        vitality = columns.getVitality(row);
+        stepCounter = columns.getStepCounter(row);
+        staircaseLevel = columns.getStaircaseLevel(row);
+        endlessCorridorRoom = columns.getEndlessCorridorRoom(row);
+        binaryRoom = columns.getBinaryRoom(row);
+        playerBackPackWeight = columns.getBackPackWeight(row);
+        flags = columns.getFlags(row);
+        currentRoom = labyrinthRooms[columns.getRoom(row)];
+        outcome = columns.getOutcome(row);
+    }
+
+    /**
+     * Writes the state of the game to a buffer, in the format described in GameSnapshot.
+     * @param buffer the buffer the state is written to
+     * @param withColumns true for the whole state, false to leave out the scalar state that writeColumns stores
+     * @throws java.nio.BufferOverflowException if the state doesn't fit in the buffer
+     */
+    void writeState(ByteBuffer buffer, boolean withColumns)
+    {
+        checkNotShared();
+        buffer.putLong(seed);
+        buffer.putLong(rand.getState());
+        if (withColumns)
+        {
+            buffer.put((byte) outcome.ordinal());
+            buffer.put((byte) currentRoom.getId());
+        }
+        buffer.put((byte) (prevRoom == null ? -1 : prevRoom.getId()));
+        buffer.put((byte) Integer.parseInt(threadNumber, 2));
+        if (withColumns)
+        {
+            buffer.putInt(vitality);
+            buffer.putInt(staircaseLevel);
+            buffer.putInt(endlessCorridorRoom);
+            buffer.putInt(binaryRoom);
+            buffer.putInt(stepCounter);
+        }
+        buffer.putInt(riddleTipCounter);
+        buffer.putInt(exhaustCoefficient);
+        if (withColumns)
+        {
+            buffer.putInt(playerBackPackWeight);
+        }
+        buffer.putInt(totalArtefactCount);
+        if (withColumns)
+        {
+            buffer.putInt(flags);
+        }
+        buffer.putInt(settings.getVitality());
+        buffer.putInt(settings.getExhaustCoefficient());
+        buffer.putInt(settings.getBootsExhaustCoefficient());
+        buffer.putInt(settings.getBackPackWeight());
+        buffer.putInt(settings.getNpcMovesPerTurn());
+        for (int i = 0; i < 4; i++)
+        {
+            buffer.putInt(settings.getMinotaurFightVitality(i >= 2, (i & 1) != 0));
+            buffer.putInt(settings.getMinotaurRunVitality(i >= 2, (i & 1) != 0));
+        }
+        int possibleArtefactMask = 0;
+        for (String name : possibleArtefacts)
+        {
+            possibleArtefactMask |= 1 << world.getArtefactNames().indexOf(name);
+        }
+        buffer.putInt(possibleArtefactMask);
+
+        staircaseMovement.writeState(buffer);
+        corridorMovement.writeState(buffer);
+        binaryMovement.writeState(buffer);
+        visitedRooms.writeState(buffer);
+        buffer.put((byte) backpack.size());
+        for (Artefact artefact : backpack)
+        {
+            writeArtefact(buffer, artefact);
+        }
+        buffer.put((byte) npcList.size());
+        for (NPC npc : npcList)
+        {
+            buffer.put((byte) WorldDefinition.NPC_TYPES.indexOf(npc.getType()));
+            buffer.put((byte) (npc.getCurrentRoom() == null ? -1 : npc.getCurrentRoom().getId()));
+        }
+        npcScheduler.writeState(buffer);
+        for (Room room : labyrinthRooms)
+        {
+            Set<String> directions = room.getExitDirections();
+            buffer.put((byte) directions.size());
+            for (String direction : directions)
+            {
+                int index = CommandWords.ARGUMENTS.indexOf(direction);
+                if (index < 0)
+                {
+                    throw new IllegalStateException("The exit " + direction + " cannot be saved.");
+                }
+                buffer.put((byte) index);
+                buffer.put((byte) room.getExit(direction).getId());
             }
+            buffer.put((byte) room.getArtefactCount());
+            for (int i = 0; i < room.getArtefactCount(); i++)
+            {
+                writeArtefact(buffer, room.getArtefact(i));
+            }
+            int npc = -1;
+            if (room.hasNPC())
+            {
+                npc = room.getNPC().getType().equals(WorldDefinition.NPC_TYPES.get(BOSS)) ? npcList.size() : npcList.indexOf(room.getNPC());
+            }
+            buffer.put((byte) npc);
+        }
+    }
 
-            // Check for death.
-            if (vitality <= 0)
+    /**
+     * Replaces the state of the game with a state written by writeState.
+     * The output sink of the game is kept.
+     * @param buffer the buffer the state is read from
+     * @param withColumns true if the state was written with the scalar state, false if it must be read
+     *                    from session columns with readColumns afterwards
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the state does
+     */
+    void readState(ByteBuffer buffer, boolean withColumns)
+    {
+        checkNotShared();
+        seed = buffer.getLong();
+        rand.setState(buffer.getLong());
+        if (withColumns)
+        {
+            outcome = GameOutcome.values()[buffer.get()];
+            currentRoom = labyrinthRooms[buffer.get()];
+        }
+        int prevRoomId = buffer.get();
+        prevRoom = prevRoomId < 0 ? null : labyrinthRooms[prevRoomId];
+        threadNumber = Integer.toBinaryString(buffer.get() | 1 << 6).substring(1);
+        if (withColumns)
+        {
+            vitality = buffer.getInt();
+            staircaseLevel = buffer.getInt();
+            endlessCorridorRoom = buffer.getInt();
+            binaryRoom = buffer.getInt();
+            stepCounter = buffer.getInt();
+        }
+        riddleTipCounter = buffer.getInt();
+        exhaustCoefficient = buffer.getInt();
+        if (withColumns)
+        {
+            playerBackPackWeight = buffer.getInt();
+        }
+        totalArtefactCount = buffer.getInt();
+        if (withColumns)
+        {
+            flags = buffer.getInt();
+        }
+        settings = new GameSettings();
+        settings.setVitality(buffer.getInt());
+        settings.setExhaustCoefficient(buffer.getInt());
+        settings.setBootsExhaustCoefficient(buffer.getInt());
+        settings.setBackPackWeight(buffer.getInt());
+        settings.setNpcMovesPerTurn(buffer.getInt());
+        for (int i = 0; i < 4; i++)
+        {
+            settings.setMinotaurFightVitality(i >= 2, (i & 1) != 0, buffer.getInt());
+            settings.setMinotaurRunVitality(i >= 2, (i & 1) != 0, buffer.getInt());
+        }
+        int possibleArtefactMask = buffer.getInt();
+        possibleArtefacts.clear();
+        for (int i = 0; i < world.getArtefactNames().size(); i++)
+        {
+            if ((possibleArtefactMask & 1 << i) != 0)
             {
-                System.out.println("You run out of strength in the labyrinth and lose your life to exhaustion.");
-                break;
+                possibleArtefacts.add(world.getArtefactNames().get(i));
             }
-            //Check for NPC encounter
-            if (currentRoom.hasNPC() && !currentRoom.equals(labyrinthRooms.get(8)))
+        }
+
+        staircaseMovement.readState(buffer);
+        corridorMovement.readState(buffer);
+        binaryMovement.readState(buffer);
+        visitedRooms.readState(buffer);
+        backpack.clear();
+        for (int i = buffer.get(); i > 0; i--)
+        {
+            backpack.add(readArtefact(buffer));
+        }
+        npcList.clear();
+        for (int i = buffer.get(); i > 0; i--)
+        {
+            NPC npc = createNPC(buffer.get());
+            int roomId = buffer.get();
+            npc.setCurrentRoom(roomId < 0 ? null : labyrinthRooms[roomId]);
+            npcList.add(npc);
+        }
+        npcScheduler.readState(buffer);
+        for (Room room : labyrinthRooms)
+        {
+            room.clear();
+        }
+        for (Room room : labyrinthRooms)
+        {
+            // exits that are the same as in the world graph leave the room without a copy of its exits
+            List<String> directions = new ArrayList<>();
+            for (int i = buffer.get(); i > 0; i--)
+            {
+                String direction = CommandWords.ARGUMENTS.get(buffer.get());
+                room.setExit(direction, labyrinthRooms[buffer.get()]);
+                directions.add(direction);
+            }
+            for (String direction : List.copyOf(room.getExitDirections()))
+            {
+                if (!directions.contains(direction))
+                {
+                    room.removeExit(direction);
+                }
+            }
+            for (int i = buffer.get(); i > 0; i--)
             {
-                System.out.println("\nYou encounter a " + currentRoom.getNPC().getType() + " in the room.");
-                System.out.println(currentRoom.getNPC().getType() + ": " + currentRoom.getNPC().getGreeting());
+                room.addArtefact(readArtefact(buffer));
             }
-            //Display backpack contents and weight
-            System.out.println("\n------------------------------");
-            currentRoom.printRoomArtefacts();
-            System.out.println("Remaining backpack weight - " + playerBackPackWeight);
-            System.out.println("------------------------------\n");
-            //Display exits unless the game has ended
-            if (!(victory && currentRoom.equals(labyrinthRooms.get(0))) && !finished)
-            {
-                System.out.println(currentRoom.getExitString());
+            int npc = buffer.get();
+            if (npc == npcList.size())
+            {
+                room.setNPC(createNPC(BOSS));
+            } else if (npc >= 0)
+            {
+                room.setNPC(npcList.get(npc));
             }
         }
-        System.out.println("Thank you for playing. Good bye.");
     }
 
+    /**
+     * The state of a game in a shared world is partly the state of the other players, so it cannot be saved on its own.
+     * @throws IllegalStateException if the game is played in a shared world
+     */
+    private void checkNotShared()
+    {
+        if (sharedWorld != null)
+        {
+            throw new IllegalStateException("A game in a shared world cannot be saved on its own.");
+        }
+    }
+
+    /**
+     * Writes an artefact as the index of its name, its weight and whether it is cursed.
+     * @param buffer the buffer the artefact is written to
+     * @param artefact the artefact
+     */
+    private void writeArtefact(ByteBuffer buffer, Artefact artefact)
+    {
+        buffer.put((byte) world.getArtefactNames().indexOf(artefact.getName()));
+        buffer.put((byte) artefact.getWeight());
+        buffer.put((byte) (artefact.isCursed() ? 1 : 0));
+    }
+
+    /**
+     * @param buffer the buffer an artefact written by writeArtefact is read from
+     * @return the artefact
+     */
+    private Artefact readArtefact(ByteBuffer buffer)
+    {
+        String name = world.getArtefactNames().get(buffer.get());
+        int weight = buffer.get();
+        return new Artefact(name, weight, buffer.get() == 1);
+    }
+
+
+    /**
+     * Displays text to the player without ending the line.
+     * @param text the text to be displayed
+     */
+    private void print(String text) {output.print(text);}
+
+    /**
+     * Displays a line of text to the player.
+     * @param text the text to be displayed
+     */
+    private void println(String text) {output.println(text);}
+
+    /**
+     * Displays an empty line to the player.
+     */
+    private void println() {output.println();}
+
     /**
      * Sets up the entrance and controls its interactions with the player's state and commands
      * @return true if the Minotaur has been defeated when the player exits the labyrinth, false if it hasn't
      */
     private boolean setEntrance()
     {
-        if (victory)
+        if (isSet(VICTORY))
         {
-            System.out.println("Congratulations on winning the game!\n");
-            System.out.println("You exit the Labyrinth with the following artefacts and equipment:");
-            for (String item : playerItems)
+            println("Congratulations on winning the game!\n");
+            println("You exit the Labyrinth with the following artefacts and equipment:");
+            for (LegendaryItem item : LegendaryItem.values())
             {
-                System.out.println(item);
+                if (hasItem(item))
+                {
+                    println(item.getName());
+                }
             }
             if (backpack.size() != 0)
             {
                 for (Artefact item : backpack)
                 {
-                    System.out.println(item.getName());
+                    println(item.getName());
                 }
             }
+            outcome = GameOutcome.WON;
             return true;
         }
         return false;
@@ -329,48 +928,53 @@ public class Game
     /**
      * Sets up the main hall and controls its interactions with the player's state and commands
      * @param cmd the command used to make some messages to the player only be displayed upon entry into the room and artefacts generate only on entry
+     * @return false, the game never ends in this room
      */
-    private void setMainHall(Command cmd)
+    private boolean setMainHall(Command cmd)
     {
-        if (playerItems.contains("Ariadna's Thread"))
+        if (hasItem(LegendaryItem.ARIADNAS_THREAD))
         {
-            System.out.println("The hallway before you doesn't look endless anymore. Instead there's a door at its end.");
-            currentRoom.setExit("north", labyrinthRooms.get(9));
+            println("The hallway before you doesn't look endless anymore. Instead there's a door at its end.");
+            currentRoom.setExit("north", labyrinthRooms[BINARY_CORRIDOR]);
         } else
         {
-            System.out.println("It appears endless but has 2 doors to the east and west.");
+            println("It appears endless but has 2 doors to the east and west.");
         }
-        if (prevRoom.equals(labyrinthRooms.get(3)) && !playerItems.contains("Ariadna's Thread"))
+        if (prevRoom.getId() == PUZZLE_ROOM && !hasItem(LegendaryItem.ARIADNAS_THREAD))
         {
-            System.out.println("You hear the room behind you change.");
-            isRiddleSolved = false;
-        } else if (prevRoom.equals(labyrinthRooms.get(7)))
+            println("You hear the room behind you change.");
+            setFlag(RIDDLE_SOLVED, false);
+        } else if (prevRoom.getId() == SECRET_CORRIDOR)
         {
-            System.out.println("You had fallen through a hole in the ceiling.");
-            if (playerItems.contains("Hermes's Boots"))
+            println("You had fallen through a hole in the ceiling.");
+            if (hasItem(LegendaryItem.HERMESS_BOOTS))
             {
-                System.out.println("You can use Hermes's Boots to fly back up through it.");
-                currentRoom.setExit("up", labyrinthRooms.get(7));
+                println("You can use Hermes's Boots to fly back up through it.");
+                currentRoom.setExit("up", labyrinthRooms[SECRET_CORRIDOR]);
             } else
             {
-                System.out.println("It is too high to reach. You cannot currently go back to the secret corridor through there.");
+                println("It is too high to reach. You cannot currently go back to the secret corridor through there.");
             }
         }
-        if (cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
             generateArtefact();
         }
+        return false;
     }
 
     /**
      * Sets up the endless corridor and controls its interactions with the player's state and commands
+     * @return false, the game never ends in this room
      */
-    private void setEndlessCorridor()
+    private boolean setEndlessCorridor()
     {
-        System.out.println("The hallway seems endless");
-        if (prevRoom.equals(labyrinthRooms.get(1)))
+        println("The hallway seems endless");
+        if (prevRoom.getId() == MAIN_HALL)
         {
+            // the corridor starts over when the player comes back from the main hall, so the earlier moves are forgotten
             endlessCorridorRoom = 0;
+            corridorMovement.clear();
         }
 
         if (endlessCorridorRoom == 0)
@@ -379,7 +983,7 @@ public class Game
             {
                 currentRoom.removeExit("backward");
             }
-            currentRoom.setExit("south", labyrinthRooms.get(1));
+            currentRoom.setExit("south", labyrinthRooms[MAIN_HALL]);
         } else
         {
             if (currentRoom.hasExit("south"))
@@ -389,69 +993,75 @@ public class Game
             currentRoom.setExit("backward", currentRoom);
         }
 
-        if (endlessCorridorRoom == 15 && !playerItems.contains("Hermes's Boots"))
+        if (endlessCorridorRoom == 15 && !hasItem(LegendaryItem.HERMESS_BOOTS))
         {
-            System.out.println("You find Hermes's Boots in front of you.");
+            println("You find Hermes's Boots in front of you.");
         }
+        return false;
     }
 
     /**
      * Sets up the puzzle room and controls its interactions with the player's state and commands
      * @param cmd the command used to make some messages to the player only be displayed upon entry into the room and artefacts generate only on entry
      * @param prevRoom used to determine which entry message should be displayed to the player
+     * @return false, the game never ends in this room
      */
-    private void setPuzzleRoom(Room prevRoom, Command cmd)
+    private boolean setPuzzleRoom(Room prevRoom, Command cmd)
     {
-        if (playerItems.contains("Ariadna's Thread"))
+        if (hasItem(LegendaryItem.ARIADNAS_THREAD))
         {
-            System.out.println("The door at the other end of the room seems open.");
-            return;
+            println("The door at the other end of the room seems open.");
+            return false;
         }
 
-        if (currentRoom.equals(labyrinthRooms.get(3)) && cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (currentRoom.getId() == PUZZLE_ROOM && cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
-            System.out.println("The puzzle prompt reads: What only gets larger the more you take away from it?");
+            println("The puzzle prompt reads: What only gets larger the more you take away from it?");
         }
-        if (prevRoom.equals(labyrinthRooms.get(4)) && cmd.getCommandWord().equals("go"))
+        if (prevRoom.getId() == TREASURY && cmd.getWord() == CommandWord.GO)
         {
-            System.out.println("You see the puzzle room rearrange itself before your eyes into its original form. The door you came through has disappeared.");
-            isRiddleSolved = false;
+            println("You see the puzzle room rearrange itself before your eyes into its original form. The door you came through has disappeared.");
+            setFlag(RIDDLE_SOLVED, false);
         }
-        if (cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
             generateArtefact();
         }
+        return false;
     }
 
     /**
      * Sets up the treasury and controls its interactions with the player's state and commands
      * @param cmd the command used to make some messages to the player only be displayed upon entry into the room
+     * @return false, the game never ends in this room
      */
-    private void setTreasury(Command cmd)
+    private boolean setTreasury(Command cmd)
     {
-        if (!cmd.getCommandWord().equals("go"))
+        if (cmd.getWord() != CommandWord.GO)
         {
-            return;
+            return false;
         }
 
-        if (!playerItems.contains("Ariadna's Thread"))
+        if (!hasItem(LegendaryItem.ARIADNAS_THREAD))
         {
-            System.out.println("You find yourself looking at Ariadna's thread.");
+            println("You find yourself looking at Ariadna's thread.");
         } else
         {
-            System.out.println("The treasury seems to be empty.");
-            if (prevRoom.equals(labyrinthRooms.get(3)) && prevRoom.hasExit(cmd.getSecondWord()))
+            println("The treasury seems to be empty.");
+            if (prevRoom.getId() == PUZZLE_ROOM && prevRoom.hasExit(cmd.getSecondWord()))
             {
-                System.out.println("Upon reentering the labyrinth's treasury with Ariadna's Thread in hand you find that a door has appeared to the south.");
-                currentRoom.setExit("south", labyrinthRooms.get(12));
+                println("Upon reentering the labyrinth's treasury with Ariadna's Thread in hand you find that a door has appeared to the south.");
+                currentRoom.setExit("south", labyrinthRooms[MYSTERY_ROOM]);
             }
         }
+        return false;
     }
 
     /**
      * Sets up the spiral staircase and controls its interactions with the player's state and commands
+     * @return false, the game never ends in this room
      */
-    private void setSpiralStairCase()
+    private boolean setSpiralStairCase()
     {
         currentRoom.removeExit("west");
         if (currentRoom.hasExit("north"))
@@ -459,15 +1069,18 @@ public class Game
             currentRoom.removeExit("north");
         }
 
-        if (prevRoom.equals(labyrinthRooms.get(1)))
+        if (prevRoom.getId() == MAIN_HALL)
         {
             staircaseLevel = 0;
-        } else if (prevRoom.equals(labyrinthRooms.get(6)))
+            staircaseMovement.clear();
+        } else if (prevRoom.getId() == PIT)
         {
             staircaseLevel = -5;
-        } else if (prevRoom.equals(labyrinthRooms.get(8)))
+            staircaseMovement.clear();
+        } else if (prevRoom.getId() == CENTRE)
         {
             staircaseLevel = 5;
+            staircaseMovement.clear();
         }
 
         switch (staircaseLevel)
@@ -475,7 +1088,7 @@ public class Game
             case 0:
                 if (!currentRoom.hasExit("west"))
                 {
-                    currentRoom.setExit("west", labyrinthRooms.get(1));
+                    currentRoom.setExit("west", labyrinthRooms[MAIN_HALL]);
                 }
                 if (!currentRoom.hasExit("up"))
                 {
@@ -487,23 +1100,23 @@ public class Game
                 }
                 break;
             case 3:
-                if (!playerItems.contains("The Harpe"))
+                if (!hasItem(LegendaryItem.THE_HARPE))
                 {
-                    System.out.println("You see The Harpe, Perseus's weapon, in front of you.");
+                    println("You see The Harpe, Perseus's weapon, in front of you.");
                 }
                 break;
             case 5:
-                if (playerItems.contains("Ariadna's Thread"))
+                if (hasItem(LegendaryItem.ARIADNAS_THREAD))
                 {
-                    System.out.println("You feel Ariadna's Thread vibrating. It outlines a hatch on the ceiling of the room.");
-                    if (!victory)
+                    println("You feel Ariadna's Thread vibrating. It outlines a hatch on the ceiling of the room.");
+                    if (!isSet(VICTORY))
                     {
-                        System.out.println("It is locked.");
+                        println("It is locked.");
                         currentRoom.removeExit("up");
                     } else
                     {
-                        System.out.println("It leads to the centre of the Labyrinth.");
-                        currentRoom.setExit("up", labyrinthRooms.get(8));
+                        println("It leads to the centre of the Labyrinth.");
+                        currentRoom.setExit("up", labyrinthRooms[CENTRE]);
                     }
                     if (!currentRoom.hasExit("down"))
                     {
@@ -512,8 +1125,8 @@ public class Game
                 }
                 break;
             case -5:
-                System.out.println("You find yourself in front of a pit to the north of you. Jump down?");
-                currentRoom.setExit("north", labyrinthRooms.get(6));
+                println("You find yourself in front of a pit to the north of you. Jump down?");
+                currentRoom.setExit("north", labyrinthRooms[PIT]);
                 currentRoom.removeExit("down");
                 break;
             default:
@@ -527,87 +1140,96 @@ public class Game
                 }
                 break;
         }
-
+        return false;
     }
 
     /**
      * Sets up the pit and controls its interactions with the player's state and commands
      * @param cmd the command used to make some messages to the player only be displayed upon entry into the room and artefacts generate only on entry
+     * @return false, the game never ends in this room
      */
-    private void setPit(Command cmd)
+    private boolean setPit(Command cmd)
     {
-        if (!playerItems.contains("Ariadna's Thread") && !playerItems.contains("Hermes's Boots"))
+        if (!hasItem(LegendaryItem.ARIADNAS_THREAD) && !hasItem(LegendaryItem.HERMESS_BOOTS))
         {
-            System.out.println("You have no escape from the pit you jumped into.");
-            System.out.println("You slowly feel your energy run out.");
+            println("You have no escape from the pit you jumped into.");
+            println("You slowly feel your energy run out.");
             vitality = 0;
-            return;
+            outcome = GameOutcome.PIT;
+            return false;
         }
-        if (playerItems.contains("Ariadna's Thread") && cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (hasItem(LegendaryItem.ARIADNAS_THREAD) && cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
-            System.out.println("You feel Ariadna's Thread getting out of your bag and outlining a door.");
-            System.out.println("The labyrinth shifts and reveals the pathway to the north.");
-            currentRoom.setExit("north", labyrinthRooms.get(7));
+            println("You feel Ariadna's Thread getting out of your bag and outlining a door.");
+            println("The labyrinth shifts and reveals the pathway to the north.");
+            currentRoom.setExit("north", labyrinthRooms[SECRET_CORRIDOR]);
         }
 
-        if (playerItems.contains("Hermes's Boots") && cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (hasItem(LegendaryItem.HERMESS_BOOTS) && cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
-            System.out.println("\nYou can use Hermes's Boots to fly back up the pit.");
-            currentRoom.setExit("up", labyrinthRooms.get(5));
+            println("\nYou can use Hermes's Boots to fly back up the pit.");
+            currentRoom.setExit("up", labyrinthRooms[SPIRAL_STAIRCASE]);
         }
-        if (cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
             generateArtefact();
         }
-
+        return false;
     }
 
     /**
      * Sets up the secret corridor and controls its interactions with the player's state and commands
      * @param cmd the command used to make it so artefacts generate only on entry
+     * @return false, the game never ends in this room
      */
-    private void setSecretCorridor(Command cmd)
+    private boolean setSecretCorridor(Command cmd)
     {
-        if (!playerItems.contains("Zeus's Aegis"))
+        if (!hasItem(LegendaryItem.ZEUSS_AEGIS))
         {
-            System.out.println("Before you lays Zeus's Aegis.");
+            println("Before you lays Zeus's Aegis.");
         }
-        if (cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
             generateArtefact();
         }
+        return false;
     }
 
     /**
      * Sets up the centre and controls its interactions with the player's state and commands
+     * @return false, the game never ends in this room
      */
-    private void setCentre(Command cmd)
+    private boolean setCentre(Command cmd)
     {
-        if (!victory && cmd.getCommandWord().equals("go") && prevRoom.hasExit(cmd.getSecondWord()))
+        if (!isSet(VICTORY) && cmd.getWord() == CommandWord.GO && prevRoom.hasExit(cmd.getSecondWord()))
         {
-            System.out.println("You face off against the great Minotaur of the Labyrinth.");
-            System.out.println("The door behind you closes.");
-            System.out.println("You have to choose to fight the Minotaur directly or run until it gets exhausted and you can easily take it down.");
+            println("You face off against the great Minotaur of the Labyrinth.");
+            println("The door behind you closes.");
+            println("You have to choose to fight the Minotaur directly or run until it gets exhausted and you can easily take it down.");
         }
+        return false;
     }
 
     /**
      * Sets up the binary corridor and controls its interactions with the player's state and commands
      * @param cmd the command used to limit entry into the corridor
+     * @return false, the game never ends in this room
      */
-    private void setBinaryCorridor(Command cmd)
+    private boolean setBinaryCorridor(Command cmd)
     {
-        if (!(cmd.getCommandWord().equals("go") || cmd.getCommandWord().equals("back")))
+        if (!(cmd.getWord() == CommandWord.GO || cmd.getWord() == CommandWord.BACK))
         {
-            return;
+            return false;
         }
 
-        if (prevRoom.equals(labyrinthRooms.get(1)))
+        if (prevRoom.getId() == MAIN_HALL)
         {
             binaryRoom = 0;
-        } else if (prevRoom.equals(labyrinthRooms.get(8)))
+            binaryMovement.clear();
+        } else if (prevRoom.getId() == CENTRE)
         {
             binaryRoom = 5;
+            binaryMovement.clear();
         }
 
         if (binaryRoom != 0)
@@ -616,29 +1238,30 @@ public class Game
             currentRoom.removeExit("south");
         } else
         {
-            currentRoom.setExit("south", labyrinthRooms.get(1));
+            currentRoom.setExit("south", labyrinthRooms[MAIN_HALL]);
             currentRoom.removeExit("backward");
         }
 
         Room correctForward;
         if (binaryRoom == 5)
         {
-            correctForward = labyrinthRooms.get(8);
+            correctForward = labyrinthRooms[CENTRE];
         } else
         {
             correctForward = currentRoom;
         }
 
-        int deathIndex = 10 + rand.nextInt(2);
+        int deathIndex = LION_ROOM + rand.nextInt(2);
         if (threadNumber.charAt(binaryRoom) == '0')
         {
             currentRoom.setExit("left", correctForward);
-            currentRoom.setExit("right", labyrinthRooms.get(deathIndex));
+            currentRoom.setExit("right", labyrinthRooms[deathIndex]);
         } else
         {
             currentRoom.setExit("right", correctForward);
-            currentRoom.setExit("left", labyrinthRooms.get(deathIndex));
+            currentRoom.setExit("left", labyrinthRooms[deathIndex]);
         }
+        return false;
     }
 
     /**
@@ -648,7 +1271,7 @@ public class Game
     private boolean setLionRoom()
     {
         int escapeCount = 0;
-        if (playerItems.contains("The Harpe") && playerItems.contains("Zeus's Aegis"))
+        if (hasItem(LegendaryItem.THE_HARPE) && hasItem(LegendaryItem.ZEUSS_AEGIS))
         {
             escapeCount++;
         }
@@ -659,13 +1282,14 @@ public class Game
             {
                 case 0 ->
                 {
-                    System.out.println("You don't react on time and get eaten by the lions. Game Over!");
+                    println("You don't react on time and get eaten by the lions. Game Over!");
+                    outcome = GameOutcome.LIONS;
                     return true;
                 }
                 case 1 ->
                 {
-                    System.out.println("You pull out the Harpe and the Aegis and kill the Lions.");
-                    System.out.println("The door opens up from behind you and you leave.");
+                    println("You pull out the Harpe and the Aegis and kill the Lions.");
+                    println("The door opens up from behind you and you leave.");
                     back();
                     return false;
                 }
@@ -676,7 +1300,8 @@ public class Game
 
         } else
         {
-            System.out.println("You cannot fight off the lions. Game Over!");
+            println("You cannot fight off the lions. Game Over!");
+            outcome = GameOutcome.LIONS;
             return true;
         }
         return false;
@@ -689,7 +1314,7 @@ public class Game
     private boolean setLavaPit()
     {
         int escapeCount = 0;
-        if (playerItems.contains("Hermes's Boots"))
+        if (hasItem(LegendaryItem.HERMESS_BOOTS))
         {
             escapeCount++;
         }
@@ -700,13 +1325,14 @@ public class Game
             {
                 case 0 ->
                 {
-                    System.out.println("You don't react on time and fall into the pit of lava. Game Over!");
+                    println("You don't react on time and fall into the pit of lava. Game Over!");
+                    outcome = GameOutcome.LAVA;
                     return true;
                 }
                 case 1 ->
                 {
-                    System.out.println("You fly away with Hermes's boots before falling in the pit.");
-                    System.out.println("You leave the room.");
+                    println("You fly away with Hermes's boots before falling in the pit.");
+                    println("You leave the room.");
                     back();
                     return false;
                 }
@@ -716,7 +1342,8 @@ public class Game
             }
         } else
         {
-            System.out.println("You don't react on time and fall in the pit of lava. Game Over!");
+            println("You don't react on time and fall in the pit of lava. Game Over!");
+            outcome = GameOutcome.LAVA;
             return true;
         }
         return false;
@@ -725,14 +1352,16 @@ public class Game
     /**
      * Sets up the mystery room and controls its interactions with the player's state and commands
      * @param cmd command used determine when to generate the room
+     * @return false, the game never ends in this room
      */
-    private void setMysteryRoom(Command cmd)
+    private boolean setMysteryRoom(Command cmd)
     {
-        if (prevRoom.equals(labyrinthRooms.get(4)) && cmd.getCommandWord().equals("go"))
+        if (prevRoom.getId() == TREASURY && cmd.getWord() == CommandWord.GO)
         {
-            currentRoom.setExit("north", labyrinthRooms.get(4));
-            buttonPressed = false;
+            currentRoom.setExit("north", labyrinthRooms[TREASURY]);
+            setFlag(BUTTON_PRESSED, false);
         }
+        return false;
     }
 
     /**
@@ -740,16 +1369,18 @@ public class Game
      */
     private void generateArtefact()
     {
-        if (totalArtefactCount >= 8)
-        {
-            return;
-        }
-        if (rand.nextInt(2) == 1)
+        Artefact artefact;
+        // in a shared world the names are shared by all players
+        synchronized (possibleArtefacts)
         {
-            Artefact artefact = new Artefact();
-            currentRoom.addArtefact(artefact);
-            totalArtefactCount++;
+            if (possibleArtefacts.isEmpty() || rand.nextInt(2) != 1)
+            {
+                return;
+            }
+            artefact = new Artefact(rand, possibleArtefacts);
         }
+        currentRoom.addArtefact(artefact);
+        totalArtefactCount++;
     }
 
     /**
@@ -760,23 +1391,32 @@ public class Game
         if (stepCounter % exhaustCoefficient == 0)
         {
             vitality -= 1;
-            System.out.println();
-            System.out.println("You've grown weaker from exhaustion while exploring.");
-            System.out.println("Vitality - " + vitality);
+            println();
+            println("You've grown weaker from exhaustion while exploring.");
+            println("Vitality - " + vitality);
         }
     }
 
     /**
      * Print out the opening message for the player.
      */
-    private void printWelcome()
+    void printWelcome()
+    {
+        println();
+        println("Welcome to the Daedalus's Labyrinth!");
+        println("It's very fun to play... Not really.");
+        println("Type 'help' if you need help.");
+        println();
+        println(currentRoom.getLongDescription());
+        output.endTurn();
+    }
+
+    /**
+     * Print out the closing message for the player.
+     */
+    private void printGoodbye()
     {
-        System.out.println();
-        System.out.println("Welcome to the Daedalus's Labyrinth!");
-        System.out.println("It's very fun to play... Not really.");
-        System.out.println("Type 'help' if you need help.");
-        System.out.println();
-        System.out.println(currentRoom.getLongDescription());
+        println("Thank you for playing. Good bye.");
     }
 
     /**
@@ -785,30 +1425,29 @@ public class Game
      * @param command The command to be processed.
      * @return true If the command ends the game, false otherwise.
      */
-    private boolean processCommand(Command command)
+    boolean processCommand(Command command)
     {
         boolean wantToQuit = false;
 
         if (command.isUnknown())
         {
-            System.out.println("I don't know what you mean...");
+            println("I don't know what you mean...");
             return false;
         }
 
-        String commandWord = command.getCommandWord();
-
-        switch (commandWord)
+        switch (command.getWord())
         {
-            case "help" -> printHelp();
-            case "go" -> goRoom(command);
-            case "quit" -> wantToQuit = quit(command);
-            case "answer" -> answer(command);
-            case "take" -> take();
-            case "back" -> back();
-            case "fight" -> wantToQuit = fight(command);
-            case "run" -> wantToQuit = run(command);
-            case "loot" -> loot(command);
-            case "press" -> press();
+            case HELP -> printHelp();
+            case GO -> goRoom(command);
+            case QUIT -> wantToQuit = quit(command);
+            case ANSWER -> answer(command);
+            case TAKE -> take();
+            case BACK -> back();
+            case FIGHT -> wantToQuit = fight(command);
+            case RUN -> wantToQuit = run(command);
+            case LOOT -> loot(command);
+            case PRESS -> press();
+            case HINT -> hint();
             default ->
             {
             }
@@ -827,11 +1466,11 @@ public class Game
      */
     private void printHelp()
     {
-        System.out.println("You are in Daedalus's Labyrinth");
-        System.out.println("You need to defeat the Minotaur at the centre and then escape.");
-        System.out.println();
-        System.out.println("Your command words are:");
-        parser.showCommands();
+        println("You are in Daedalus's Labyrinth");
+        println("You need to defeat the Minotaur at the centre and then escape.");
+        println();
+        println("Your command words are:");
+        println(parser.getCommandString());
     }
 
     /**
@@ -844,15 +1483,16 @@ public class Game
         {
             return;
         }
-        if (currentRoom.hasNPC() && currentRoom.getNPC().getType().equals("Monster"))
+        NPC npc = currentRoom.getNPC();
+        if (npc != null && npc.getType().equals("Monster"))
         {
-            System.out.println("The Monster blocks you from just calmly leaving the room!");
+            println("The Monster blocks you from just calmly leaving the room!");
             return;
         }
         if (!command.hasSecondWord())
         {
             // if there is no second word, we don't know where to go...
-            System.out.println("Go where?");
+            println("Go where?");
             return;
         }
 
@@ -866,7 +1506,7 @@ public class Game
 
         if (nextRoom == null)
         {
-            System.out.println("There is no door!");
+            println("There is no door!");
             return;
         }
 
@@ -874,13 +1514,13 @@ public class Game
         checkChangeEndlessCorridorRoom(command, nextRoom);
         checkChangeBinaryRoom(command, nextRoom);
         currentRoom = nextRoom;
-        System.out.println(currentRoom.getShortDescription());
-        visitedRooms.add(prevRoom);
+        println(currentRoom.getShortDescription());
+        visitedRooms.push(prevRoom.getId());
         stepCounter++;
         moveNPCs();
-        if (prevRoom.equals(labyrinthRooms.get(12)) && buttonPressed)
+        if (prevRoom.getId() == MYSTERY_ROOM && isSet(BUTTON_PRESSED))
         {
-            System.out.println("The doorway you passed through disappears behind you in a flash of light. You cannot go back through there.");
+            println("The doorway you passed through disappears behind you in a flash of light. You cannot go back through there.");
         }
         takeExhaustionDamage();
     }
@@ -895,7 +1535,7 @@ public class Game
     {
         if (command.hasSecondWord())
         {
-            System.out.println("Quit what?");
+            println("Quit what?");
             return false;
         } else
         {
@@ -915,69 +1555,75 @@ public class Game
         }
         if (!command.hasSecondWord())
         {
-            System.out.println("Answer something...");
+            println("Answer something...");
             return;
         }
         boolean canAnswer = false;
-        if (currentRoom.equals(labyrinthRooms.get(3)) && !playerItems.contains("Ariadna's Thread"))
+        if (currentRoom.getId() == PUZZLE_ROOM && !hasItem(LegendaryItem.ARIADNAS_THREAD))
         {
             riddleTipCounter++;
-            if (isRiddleSolved)
+            if (isSet(RIDDLE_SOLVED))
             {
                 return;
             }
             if (command.getSecondWord().equals("hole"))
             {
-                currentRoom.setExit("west", labyrinthRooms.get(4));
-                System.out.println("You see the labyrinth twist and rearrange itself in front of you. A door opens up to the west.");
-                isRiddleSolved = true;
+                currentRoom.setExit("west", labyrinthRooms[TREASURY]);
+                println("You see the labyrinth twist and rearrange itself in front of you. A door opens up to the west.");
+                setFlag(RIDDLE_SOLVED, true);
             } else
             {
-                System.out.println("You hear a voice come from every corner of the room:\nWrong Answer!\nMake sure to answer in 1 word.");
+                println("You hear a voice come from every corner of the room:\nWrong Answer!\nMake sure to answer in 1 word.");
                 if (riddleTipCounter == 3)
                 {
-                    System.out.println("Hint: You can dig one with a shovel.");
+                    println("Hint: You can dig one with a shovel.");
                 } else if (riddleTipCounter < 3)
                 {
-                    System.out.println("A hint will be given in " + (3 - riddleTipCounter) + " tries.");
+                    println("A hint will be given in " + (3 - riddleTipCounter) + " tries.");
                 }
-                System.out.println("You wait and think until you're ready to guess again. (Step count increased by 1)");
+                println("You wait and think until you're ready to guess again. (Step count increased by 1)");
                 stepCounter++;
             }
             canAnswer = true;
         }
-        if (currentRoom.hasNPC())
+        NPC npc = currentRoom.getNPC();
+        if (npc != null)
         {
-            switch (currentRoom.getNPC().getType())
+            switch (npc.getType())
             {
                 case "Monster":
-                    if (command.getSecondWord().equals("no") && playerItems.contains("The Harpe"))
+                    if (command.getSecondWord().equals("no") && hasItem(LegendaryItem.THE_HARPE))
                     {
-                        System.out.println("The monster gets intimidated and leaves. You gain 1 vitality");
-                        vitality++;
-                        currentRoom.setNPC(null);
-                    } else if (command.getSecondWord().equals("no") && !playerItems.contains("The Harpe"))
+                        if (dismissNPC(npc))
+                        {
+                            println("The monster gets intimidated and leaves. You gain 1 vitality");
+                            vitality++;
+                        }
+                    } else if (command.getSecondWord().equals("no") && !hasItem(LegendaryItem.THE_HARPE))
                     {
-                        System.out.println("The monster doesn't care about your answer, attacks you, then leaves. You lose 2 vitality.");
-                        vitality -= 2;
-                        currentRoom.setNPC(null);
+                        if (dismissNPC(npc))
+                        {
+                            println("The monster doesn't care about your answer, attacks you, then leaves. You lose 2 vitality.");
+                            vitality -= 2;
+                        }
                     } else if (command.getSecondWord().equals("yes"))
                     {
-                        System.out.println("You fight the monster.");
-                        if (playerItems.contains("The Harpe") || playerItems.contains("Zeus's Aegis"))
-                        {
-                            System.out.println("You kill the monster and gain 1 vitality.");
-                            vitality++;
-                            currentRoom.setNPC(null);
-                        } else
+                        if (dismissNPC(npc))
                         {
-                            System.out.println("You lose the fight but play dead. The monster is tricked and leaves. You lose 3 vitality.");
-                            vitality -= 3;
-                            currentRoom.setNPC(null);
+                            println("You fight the monster.");
+                            if (hasItem(LegendaryItem.THE_HARPE) || hasItem(LegendaryItem.ZEUSS_AEGIS))
+                            {
+                                println("You kill the monster and gain 1 vitality.");
+                                vitality++;
+                            } else
+                            {
+                                println("You lose the fight but play dead. The monster is tricked and leaves. You lose 3 vitality.");
+                                vitality -= 3;
+                            }
                         }
                     } else if (!(command.getSecondWord().equals("yes") || command.getSecondWord().equals("no")))
                     {
-                        System.out.println("Answer the monster. It's a simple yes or no question.");
+                        println("Answer the monster. It's a simple yes or no question.");
                     }
                     break;
                 case "Fairy":
@@ -985,17 +1631,21 @@ public class Game
                     {
                         case "yes" ->
                         {
-                            System.out.println("The fairy gives you some Ambrosia. You eat it and instantly feel healthier. (Gain 1 vitality)");
-                            System.out.println("Joyful the fairy leaves");
-                            currentRoom.setNPC(null);
-                            vitality++;
+                            if (dismissNPC(npc))
+                            {
+                                println("The fairy gives you some Ambrosia. You eat it and instantly feel healthier. (Gain 1 vitality)");
+                                println("Joyful the fairy leaves");
+                                vitality++;
+                            }
                         }
                         case "no" ->
                         {
-                            System.out.println("The fairy seems sad. Flying slowly away, it leaves the room.");
-                            currentRoom.setNPC(null);
+                            if (dismissNPC(npc))
+                            {
+                                println("The fairy seems sad. Flying slowly away, it leaves the room.");
+                            }
                         }
-                        default -> System.out.println("Answer the fairy... it's a simple yes or no question.");
+                        default -> println("Answer the fairy... it's a simple yes or no question.");
                     }
                     break;
                 case "Wizard":
@@ -1003,19 +1653,23 @@ public class Game
                     {
                         case "yes" ->
                         {
-                            System.out.println("The wizard teleports you to the entrance of the Maze and gives you an amulet than you can use to teleport back.");
-                            prevRoom = currentRoom;
-                            currentRoom = labyrinthRooms.get(0);
-                            visitedRooms.add(prevRoom);
-                            stepCounter++;
-                            currentRoom.setNPC(null);
+                            if (dismissNPC(npc))
+                            {
+                                println("The wizard teleports you to the entrance of the Maze and gives you an amulet than you can use to teleport back.");
+                                prevRoom = currentRoom;
+                                currentRoom = labyrinthRooms[ENTRANCE];
+                                visitedRooms.push(prevRoom.getId());
+                                stepCounter++;
+                            }
                         }
                         case "no" ->
                         {
-                            System.out.println("The wizard curses at you and teleports himself out of the room.");
-                            currentRoom.setNPC(null);
+                            if (dismissNPC(npc))
+                            {
+                                println("The wizard curses at you and teleports himself out of the room.");
+                            }
                         }
-                        default -> System.out.println("Answer the wizard. It's a simple yes or no question.");
+                        default -> println("Answer the wizard. It's a simple yes or no question.");
                     }
                     break;
                 default:
@@ -1025,7 +1679,7 @@ public class Game
         }
         if (!canAnswer)
         {
-            System.out.println("Answer what? No question was asked.");
+            println("Answer what? No question was asked.");
         }
     }
 
@@ -1038,28 +1692,28 @@ public class Game
         {
             return;
         }
-        if (currentRoom.equals(labyrinthRooms.get(4)) && !playerItems.contains("Ariadna's Thread"))
+        if (currentRoom.getId() == TREASURY && !hasItem(LegendaryItem.ARIADNAS_THREAD))
         {
-            playerItems.add("Ariadna's Thread");
-            System.out.println("You have successfully picked up Ariadna's Thread. Now you can navigate the labyrinth more easily.");
-            System.out.println("The thread weaves itself and you can make out the number " + threadNumber + " forming from it.");
-        } else if (currentRoom.equals(labyrinthRooms.get(5)) && staircaseLevel == 3 && !playerItems.contains("The Harpe"))
+            addItem(LegendaryItem.ARIADNAS_THREAD);
+            println("You have successfully picked up Ariadna's Thread. Now you can navigate the labyrinth more easily.");
+            println("The thread weaves itself and you can make out the number " + threadNumber + " forming from it.");
+        } else if (currentRoom.getId() == SPIRAL_STAIRCASE && staircaseLevel == 3 && !hasItem(LegendaryItem.THE_HARPE))
         {
-            playerItems.add("The Harpe");
-            System.out.println("You pick up the legendary sword responsible for killing Medusa.");
-        } else if (currentRoom.equals(labyrinthRooms.get(7)) && !playerItems.contains("Zeus's Aegis"))
+            addItem(LegendaryItem.THE_HARPE);
+            println("You pick up the legendary sword responsible for killing Medusa.");
+        } else if (currentRoom.getId() == SECRET_CORRIDOR && !hasItem(LegendaryItem.ZEUSS_AEGIS))
         {
-            playerItems.add("Zeus's Aegis");
-            System.out.println("You pick up the shield of the King of Olympus. Shield bashes have a chance to stun the enemy.");
-        } else if (currentRoom.equals(labyrinthRooms.get(2)) && endlessCorridorRoom == 15 && !playerItems.contains("Hermes's Boots"))
+            addItem(LegendaryItem.ZEUSS_AEGIS);
+            println("You pick up the shield of the King of Olympus. Shield bashes have a chance to stun the enemy.");
+        } else if (currentRoom.getId() == ENDLESS_CORRIDOR && endlessCorridorRoom == 15 && !hasItem(LegendaryItem.HERMESS_BOOTS))
         {
-            playerItems.add("Hermes's Boots");
-            exhaustCoefficient = 8;
+            addItem(LegendaryItem.HERMESS_BOOTS);
+            exhaustCoefficient = settings.getBootsExhaustCoefficient();
             stepCounter = 0;
-            System.out.println("You pick up and put on Hermes's Boots. They allow you to take flight. You will get exhausted less often.");
+            println("You pick up and put on Hermes's Boots. They allow you to take flight. You will get exhausted less often.");
         } else
         {
-            System.out.println("What are you trying to take? There's nothing there.");
+            println("What are you trying to take? There's nothing there.");
         }
     }
 
@@ -1074,86 +1728,87 @@ public class Game
             return;
         }
 
-        if (currentRoom.hasNPC() && currentRoom.getNPC().getType().equals("Monster"))
+        NPC npc = currentRoom.getNPC();
+        if (npc != null && npc.getType().equals("Monster"))
         {
-            System.out.println("The Monster blocks you from just calmly leaving the room!");
+            println("The Monster blocks you from just calmly leaving the room!");
             return;
         }
-        if (visitedRooms.size() == 0)
+        if (visitedRooms.isEmpty())
         {
-            System.out.println("Back where? You're at the start.");
+            println("Back where? You're at the start.");
             return;
         }
 
-        Room returnRoom = visitedRooms.get(visitedRooms.size() - 1);
+        Room returnRoom = labyrinthRooms[visitedRooms.peek()];
 
-        if (returnRoom.equals(labyrinthRooms.get(12)) && !currentRoom.equals(labyrinthRooms.get(4)))
+        if (returnRoom.getId() == MYSTERY_ROOM && currentRoom.getId() != TREASURY)
         {
-            System.out.println("You cannot go back to the mystery room.");
+            println("You cannot go back to the mystery room.");
             return;
         }
-        if (currentRoom.equals(labyrinthRooms.get(6)) && returnRoom.equals(labyrinthRooms.get(5)))
+        if (currentRoom.getId() == PIT && returnRoom.getId() == SPIRAL_STAIRCASE)
         {
-            if (playerItems.contains("Hermes's Boots"))
+            if (hasItem(LegendaryItem.HERMESS_BOOTS))
             {
-                System.out.println("You take flight with Hermes's Boots.");
+                println("You take flight with Hermes's Boots.");
             } else
             {
-                System.out.println("You cannot exit the pit by going back.");
+                println("You cannot exit the pit by going back.");
                 return;
             }
         }
-        if (currentRoom.equals(labyrinthRooms.get(1)) && returnRoom.equals(labyrinthRooms.get(7)))
+        if (currentRoom.getId() == MAIN_HALL && returnRoom.getId() == SECRET_CORRIDOR)
         {
-            if (playerItems.contains("Hermes's Boots"))
+            if (hasItem(LegendaryItem.HERMESS_BOOTS))
             {
-                System.out.println("You take flight with Hermes's Boots.");
+                println("You take flight with Hermes's Boots.");
             } else
             {
-                System.out.println("You cannot reach the hatch and go back to the secret corridor.");
+                println("You cannot reach the hatch and go back to the secret corridor.");
                 return;
             }
         }
 
-        if (currentRoom.equals(labyrinthRooms.get(5)) && staircaseMovement.size() != 0)
+        // Only a move within a repeating room is remembered in its movement history, so the history is only
+        // undone when the player goes back within the room, not when the player goes back out of it.
+        boolean withinRoom = returnRoom == currentRoom;
+        if (withinRoom && currentRoom.getId() == SPIRAL_STAIRCASE && !staircaseMovement.isEmpty())
         {
-            if (staircaseMovement.get(staircaseMovement.size() - 1).equals("up"))
+            if (staircaseMovement.pop() == UP)
             {
                 staircaseLevel--;
             } else
             {
                 staircaseLevel++;
             }
-            staircaseMovement.remove(staircaseMovement.size() - 1);
         }
 
-        if (currentRoom.equals(labyrinthRooms.get(2)) && corridorMovement.size() != 0)
+        if (withinRoom && currentRoom.getId() == ENDLESS_CORRIDOR && !corridorMovement.isEmpty())
         {
-            if (corridorMovement.get(corridorMovement.size() - 1).equals("forward"))
+            if (corridorMovement.pop() == FORWARD)
             {
                 endlessCorridorRoom--;
             } else
             {
                 endlessCorridorRoom++;
             }
-            corridorMovement.remove(corridorMovement.size() - 1);
         }
 
-        if (currentRoom.equals(labyrinthRooms.get(9)) && binaryMovement.size() != 0)
+        if (withinRoom && currentRoom.getId() == BINARY_CORRIDOR && !binaryMovement.isEmpty())
         {
-            if (binaryMovement.get(binaryMovement.size() - 1).equals("forward"))
+            if (binaryMovement.pop() == FORWARD)
             {
                 binaryRoom--;
             } else
             {
                 binaryRoom++;
             }
-            binaryMovement.remove(binaryMovement.size() - 1);
         }
 
         currentRoom = returnRoom;
-        System.out.println(currentRoom.getShortDescription());
-        visitedRooms.remove(visitedRooms.size() - 1);
+        println(currentRoom.getShortDescription());
+        visitedRooms.pop();
         stepCounter++;
         moveNPCs();
         takeExhaustionDamage();
@@ -1166,76 +1821,84 @@ public class Game
      */
     private boolean fight(Command command)
     {
-        if (!currentRoom.hasNPC() || (currentRoom.equals(labyrinthRooms.get(8)) && victory))
+        NPC npc = currentRoom.getNPC();
+        if (npc == null || (currentRoom.getId() == CENTRE && isSet(VICTORY)))
         {
-            System.out.println("There's no one to fight here.");
+            println("There's no one to fight here.");
             return false;
         }
         if (!command.hasSecondWord())
         {
-            System.out.println("Fight who?");
+            println("Fight who?");
             return false;
         }
-        if (!currentRoom.equals(labyrinthRooms.get(8)))
+        if (currentRoom.getId() != CENTRE)
         {
             switch (command.getSecondWord())
             {
                 case "Monster" ->
                 {
-                    System.out.println("You surprise the monster by directly engaging in combat instead of answering the question.");
-                    if (playerItems.contains("Hermes's Boots") || playerItems.contains("The Harpe") || playerItems.contains("Zeus's Aegis"))
+                    if (!dismissNPC(npc))
+                    {
+                        return false;
+                    }
+                    println("You surprise the monster by directly engaging in combat instead of answering the question.");
+                    if (hasItem(LegendaryItem.HERMESS_BOOTS) || hasItem(LegendaryItem.THE_HARPE) || hasItem(LegendaryItem.ZEUSS_AEGIS))
                     {
-                        System.out.println("You defeat the monster and gain 1 vitality for it.");
+                        println("You defeat the monster and gain 1 vitality for it.");
                         vitality++;
-                        currentRoom.setNPC(null);
                     } else
                     {
-                        System.out.println("However, you are not well prepared. The monster blocks your attack and strikes back.");
-                        System.out.println("A boulder comes flying out of nowhere and hits the Monster, killing it.");
-                        System.out.println("You survived by getting lucky. (Lose 1 vitality)");
+                        println("However, you are not well prepared. The monster blocks your attack and strikes back.");
+                        println("A boulder comes flying out of nowhere and hits the Monster, killing it.");
+                        println("You survived by getting lucky. (Lose 1 vitality)");
                         vitality--;
-                        currentRoom.setNPC(null);
                     }
                 }
                 case "Fairy" ->
                 {
-                    System.out.println("You lunge and the fairy. It dodges and disappears instantly.");
-                    currentRoom.setNPC(null);
+                    if (dismissNPC(npc))
+                    {
+                        println("You lunge and the fairy. It dodges and disappears instantly.");
+                    }
                 }
                 case "Wizard" ->
                 {
-                    System.out.println("You attack the wizard. He dodges, strikes you with his staff, and teleports away. (Lose 1 vitality)");
-                    vitality--;
-                    currentRoom.setNPC(null);
+                    if (dismissNPC(npc))
+                    {
+                        println("You attack the wizard. He dodges, strikes you with his staff, and teleports away. (Lose 1 vitality)");
+                        vitality--;
+                    }
                 }
-                default -> System.out.println("Fight what? (Capitalise first letter)");
+                default -> println("Fight what? (Capitalise first letter)");
             }
             return false;
         }
         if (command.getSecondWord().equals("Minotaur"))
         {
-            if (!playerItems.contains("The Harpe") && !playerItems.contains("Zeus's Aegis") && vitality >= 9)
+            if (!hasItem(LegendaryItem.THE_HARPE) && !hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurFightVitality(false, false))
             {
-                System.out.println("You successfully defeat the Minotaur in hand-to-hand combat!");
-            } else if (!playerItems.contains("The Harpe") && playerItems.contains("Zeus's Aegis") && vitality >= 7)
+                println("You successfully defeat the Minotaur in hand-to-hand combat!");
+            } else if (!hasItem(LegendaryItem.THE_HARPE) && hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurFightVitality(false, true))
             {
-                System.out.println("You successfully defeat the Minotaur using your shield.");
-            } else if (playerItems.contains("The Harpe") && !playerItems.contains("Zeus's Aegis") && vitality >= 5)
+                println("You successfully defeat the Minotaur using your shield.");
+            } else if (hasItem(LegendaryItem.THE_HARPE) && !hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurFightVitality(true, false))
             {
-                System.out.println("You successfully defeat the Minotaur using your legendary sword.");
-            } else if (playerItems.contains("The Harpe") && playerItems.contains("Zeus's Aegis") && vitality >= 2)
+                println("You successfully defeat the Minotaur using your legendary sword.");
+            } else if (hasItem(LegendaryItem.THE_HARPE) && hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurFightVitality(true, true))
             {
-                System.out.println("You successfully defeat the Minotaur using your combat arms.");
+                println("You successfully defeat the Minotaur using your combat arms.");
             } else
             {
-                System.out.println("You fall to the Minotaur and lose your life");
-                System.out.println("Game Over!");
+                println("You fall to the Minotaur and lose your life");
+                println("Game Over!");
+                outcome = GameOutcome.MINOTAUR;
                 return true;
             }
             defeatMinotaur();
         } else
         {
-            System.out.println("You can only fight the Minotaur here.");
+            println("You can only fight the Minotaur here.");
         }
 
         return false;
@@ -1248,63 +1911,67 @@ public class Game
      */
     private boolean run(Command command)
     {
-        if (!currentRoom.hasNPC() || (currentRoom.equals(labyrinthRooms.get(8)) && victory))
+        NPC npc = currentRoom.getNPC();
+        if (npc == null || (currentRoom.getId() == CENTRE && isSet(VICTORY)))
         {
-            System.out.println("Who are you trying to run from?");
+            println("Who are you trying to run from?");
             return false;
         }
         if (!command.hasSecondWord())
         {
-            System.out.println("Run from whom?");
+            println("Run from whom?");
             return false;
         }
-        if (!currentRoom.equals(labyrinthRooms.get(8)))
+        if (currentRoom.getId() != CENTRE)
         {
             if (command.getSecondWord().equals("Monster"))
             {
-                if (playerItems.contains("Hermes's Boots"))
+                if (!dismissNPC(npc))
+                {
+                    return false;
+                }
+                if (hasItem(LegendaryItem.HERMESS_BOOTS))
                 {
-                    System.out.println("You start running around. The monster cannot catch up to you. It trips, falls and breaks it's neck. (Gain 1 vitality)");
+                    println("You start running around. The monster cannot catch up to you. It trips, falls and breaks it's neck. (Gain 1 vitality)");
                     vitality++;
-                    currentRoom.setNPC(null);
                 } else
                 {
-                    System.out.println("The monster catches you and strikes at you. You fall down and lose 2 vitality");
-                    System.out.println("You decide to play dead. The monster gets tricked and leaves.");
+                    println("The monster catches you and strikes at you. You fall down and lose 2 vitality");
+                    println("You decide to play dead. The monster gets tricked and leaves.");
                     vitality -= 2;
-                    currentRoom.setNPC(null);
                 }
             } else
             {
-                System.out.println("Why are you running around? (Capitalise first letter)");
+                println("Why are you running around? (Capitalise first letter)");
 
             }
             return false;
         }
         if (command.getSecondWord().equals("Minotaur"))
         {
-            if (!playerItems.contains("Hermes's Boots") && !playerItems.contains("Zeus's Aegis") && vitality >= 9)
+            if (!hasItem(LegendaryItem.HERMESS_BOOTS) && !hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurRunVitality(false, false))
             {
-                System.out.println("You successfully outrun the Minotaur and finish it off when it is tired.");
-            } else if (!playerItems.contains("Hermes's Boots") && playerItems.contains("Zeus's Aegis") && vitality >= 7)
+                println("You successfully outrun the Minotaur and finish it off when it is tired.");
+            } else if (!hasItem(LegendaryItem.HERMESS_BOOTS) && hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurRunVitality(false, true))
             {
-                System.out.println("You successfully defeat the Minotaur by running laps around it and stunning it with your shield");
-            } else if (playerItems.contains("Hermes's Boots") && !playerItems.contains("Zeus's Aegis") && vitality >= 4)
+                println("You successfully defeat the Minotaur by running laps around it and stunning it with your shield");
+            } else if (hasItem(LegendaryItem.HERMESS_BOOTS) && !hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurRunVitality(true, false))
             {
-                System.out.println("You successfully exhaust the Minotaur by flying around with Hermes's Boots and finish him off with ease when he falls down.");
-            } else if (playerItems.contains("Hermes's Boots") && playerItems.contains("Zeus's Aegis") && vitality >= 1)
+                println("You successfully exhaust the Minotaur by flying around with Hermes's Boots and finish him off with ease when he falls down.");
+            } else if (hasItem(LegendaryItem.HERMESS_BOOTS) && hasItem(LegendaryItem.ZEUSS_AEGIS) && vitality >= settings.getMinotaurRunVitality(true, true))
             {
-                System.out.println("You fly around the Minotaur and bash him with your shield. The great beast stands no chance against you.");
+                println("You fly around the Minotaur and bash him with your shield. The great beast stands no chance against you.");
             } else
             {
-                System.out.println("The Minotaur catches up to you and fells you.");
-                System.out.println("Game Over!");
+                println("The Minotaur catches up to you and fells you.");
+                println("Game Over!");
+                outcome = GameOutcome.MINOTAUR;
                 return true;
             }
             defeatMinotaur();
         } else
         {
-            System.out.println("You can only run from the Minotaur here.");
+            println("You can only run from the Minotaur here.");
         }
 
         return false;
@@ -1323,30 +1990,30 @@ public class Game
         }
         if (!command.hasSecondWord())
         {
-            System.out.println("Loot what?");
+            println("Loot what?");
             return;
         }
         if (command.getSecondWord().equals("food"))
         {
             if (rand.nextInt(3) == 2)
             {
-                System.out.println("You find an old moldy sandwich on the floor. You eat it. You gain 1 vitality point.");
+                println("You find an old moldy sandwich on the floor. You eat it. You gain 1 vitality point.");
                 vitality++;
             } else
             {
-                System.out.println("You find nothing but dust and echoes. You take a bit to reflect on your misery (step counter increased).");
+                println("You find nothing but dust and echoes. You take a bit to reflect on your misery (step counter increased).");
                 stepCounter++;
             }
         } else if (command.getSecondWord().equals("artefact"))
         {
             if (currentRoom.getArtefactCount() == 0)
             {
-                System.out.println("There are no artefacts in this room.");
+                println("There are no artefacts in this room.");
                 return;
             }
             if (!command.hasThirdWord())
             {
-                System.out.println("Loot what artefact?");
+                println("Loot what artefact?");
                 return;
             }
             int artefactIndex;
@@ -1355,43 +2022,47 @@ public class Game
                 artefactIndex = Integer.parseInt(command.getThirdWord()) - 1;
             } catch (Exception e)
             {
-                System.out.println("Which artefact? (Use a number)");
+                println("Which artefact? (Use a number)");
                 return;
             }
             if (artefactIndex >= currentRoom.getArtefactCount())
             {
-                System.out.println("There aren't that many artefacts in this room.");
+                println("There aren't that many artefacts in this room.");
                 return;
             }
             if (artefactIndex < 0)
             {
-                System.out.println("Try a positive number.");
+                println("Try a positive number.");
                 return;
             }
             Artefact chosen = currentRoom.getArtefact(artefactIndex);
             if (chosen == null)
             {
-                System.out.println("That's not a valid artefact.");
+                println("That's not a valid artefact.");
                 return;
             }
             if (chosen.isCursed())
             {
-                System.out.println("You cannot pick up a cursed artefact.");
+                println("You cannot pick up a cursed artefact.");
                 return;
             }
             if (playerBackPackWeight - chosen.getWeight() < 0)
             {
-                System.out.println("This artefact is too heavy for you to pick up.");
+                println("This artefact is too heavy for you to pick up.");
                 return;
             }
 
+            if (!currentRoom.removeArtefact(chosen))
+            {
+                println("Someone else has just picked it up.");
+                return;
+            }
             backpack.add(chosen);
-            currentRoom.removeArtefact(chosen);
             playerBackPackWeight -= chosen.getWeight();
-            System.out.println("You have successfully picked up the " + chosen.getName() + ". It has been added to your backpack.\n");
+            println("You have successfully picked up the " + chosen.getName() + ". It has been added to your backpack.\n");
         } else
         {
-            System.out.println("Loot what?");
+            println("Loot what?");
         }
     }
 
@@ -1404,18 +2075,55 @@ public class Game
         {
             return;
         }
-        if (!currentRoom.equals(labyrinthRooms.get(12)))
+        if (currentRoom.getId() != MYSTERY_ROOM)
         {
-            System.out.println("There's nothing to press.");
+            println("There's nothing to press.");
             return;
         }
-        System.out.println("You can hear the who labyrinth shift and change. You do not know where you will emerge if you exit the mystery room.");
+        println("You can hear the who labyrinth shift and change. You do not know where you will emerge if you exit the mystery room.");
         int index = rand.nextInt(12);
-        currentRoom.setExit("north", labyrinthRooms.get(index));
+        currentRoom.setExit("north", labyrinthRooms[index]);
         staircaseLevel = rand.nextInt(11) - 5;
         binaryRoom = rand.nextInt(6);
         endlessCorridorRoom = rand.nextInt(20);
-        buttonPressed = true;
+        setFlag(BUTTON_PRESSED, true);
+    }
+
+    /**
+     * Tells the player the next step of a way to win the game from where the player is, the shortest one
+     * if it is close enough to be found at once.
+     */
+    private void hint()
+    {
+        if (sharedWorld != null)
+        {
+            println("Ariadna's voice is drowned out by the footsteps of the other players.");
+            return;
+        }
+        if (solver == null)
+        {
+            solver = new RouteSolver();
+        }
+        RouteSolver.Hint hint = solver.hint(this);
+        if (hint == null)
+        {
+            println("Ariadna's voice is silent. There is no way out of the labyrinth from here.");
+            return;
+        }
+        List<Command> route = hint.getCommands();
+        if (route.isEmpty())
+        {
+            println("Ariadna's voice is too faint to make out from here.");
+        } else if (hint.isShortest())
+        {
+            println("You hear Ariadna's voice: \"Try '" + route.get(0) + "'. You are " + route.size() + " steps from victory.\"");
+        } else if (hint.isComplete())
+        {
+            println("You hear Ariadna's voice: \"Try '" + route.get(0) + "'. You are at most " + route.size() + " steps from victory.\"");
+        } else
+        {
+            println("You hear Ariadna's voice: \"Try '" + route.get(0) + "'. It will bring you closer to the legendary items.\"");
+        }
     }
 
     /**
@@ -1424,9 +2132,9 @@ public class Game
      */
     private boolean bossFightCheck()
     {
-        if (currentRoom.equals(labyrinthRooms.get(8)) && !victory)
+        if (currentRoom.getId() == CENTRE && !isSet(VICTORY))
         {
-            System.out.println("You cannot do that now");
+            println("You cannot do that now");
             return true;
         }
         return false;
@@ -1437,11 +2145,11 @@ public class Game
      */
     private void defeatMinotaur()
     {
-        System.out.println("The door you came from opens up.");
-        System.out.println("A hatch also opens at the centre of the arena.\nYour mission has been accomplished and all that's left is to leave the Labyrinth.");
-        currentRoom.setExit("down", labyrinthRooms.get(5));
-        currentRoom.setExit("backward", labyrinthRooms.get(9));
-        victory = true;
+        println("The door you came from opens up.");
+        println("A hatch also opens at the centre of the arena.\nYour mission has been accomplished and all that's left is to leave the Labyrinth.");
+        currentRoom.setExit("down", labyrinthRooms[SPIRAL_STAIRCASE]);
+        currentRoom.setExit("backward", labyrinthRooms[BINARY_CORRIDOR]);
+        setFlag(VICTORY, true);
     }
 
     /**
@@ -1451,16 +2159,16 @@ public class Game
      */
     private void checkChangeEndlessCorridorRoom(Command command, Room next)
     {
-        if (currentRoom.equals(labyrinthRooms.get(2)) && next != null)
+        if (currentRoom.getId() == ENDLESS_CORRIDOR && next != null)
         {
             if (command.getSecondWord().equals("forward"))
             {
                 endlessCorridorRoom++;
-                corridorMovement.add("forward");
+                corridorMovement.push(FORWARD);
             } else if (command.getSecondWord().equals("backward"))
             {
                 endlessCorridorRoom--;
-                corridorMovement.add("backward");
+                corridorMovement.push(BACKWARD);
             }
         }
     }
@@ -1472,16 +2180,16 @@ public class Game
      */
     private void checkChangeStaircaseFloor(Command command, Room next)
     {
-        if (currentRoom.equals(labyrinthRooms.get(5)) && next != null)
+        if (currentRoom.getId() == SPIRAL_STAIRCASE && next != null)
         {
             if (command.getSecondWord().equals("up"))
             {
                 staircaseLevel++;
-                staircaseMovement.add("up");
+                staircaseMovement.push(UP);
             } else if (command.getSecondWord().equals("down"))
             {
                 staircaseLevel--;
-                staircaseMovement.add("down");
+                staircaseMovement.push(DOWN);
             }
         }
     }
@@ -1493,17 +2201,30 @@ public class Game
      */
     private void checkChangeBinaryRoom(Command command, Room next)
     {
-        if (currentRoom.equals(labyrinthRooms.get(9)))
+        if (currentRoom.getId() == BINARY_CORRIDOR)
         {
             if (command.getSecondWord().equals("backward"))
             {
                 binaryRoom--;
-                binaryMovement.add("backward");
+                binaryMovement.push(BACKWARD);
             } else if (next.equals(currentRoom))
             {
                 binaryRoom++;
-                binaryMovement.add("forward");
+                binaryMovement.push(FORWARD);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sets up a room when the player ends a turn in it.
+     */
+    private interface RoomHandler
+    {
+        /**
+         * @param game the game the player is in
+         * @param command the command of the turn
+         * @return true if the game ends in the room, false if it continues
+         */
+        boolean setUp(Game game, Command command);
+    }
+}
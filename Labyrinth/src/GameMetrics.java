@@ -0,0 +1,223 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The game metrics count what happens in all games of the program: how long every command word
+ * and every room handler takes, how often the NPCs move, and how and where the games end.
+ * All counters are striped, so recording a metric never takes a lock and costs only a few nanoseconds,
+ * even when many sessions are played at the same time.
+ * <p>
+ * The global metrics are shared by all games and can be published as a platform MBean
+ * named labyrinth:type=GameMetrics, so they can be watched with any JMX console.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class GameMetrics implements GameMetricsMXBean
+{
+    public static final String OBJECT_NAME = "labyrinth:type=GameMetrics";
+
+    // the names of the rooms, indexed by their ids in Game
+    private static final String[] ROOM_NAMES = {"entrance", "main hall", "endless corridor", "puzzle room", "treasury",
+            "spiral staircase", "pit", "secret corridor", "centre", "binary corridor", "lion room", "lava pit", "mystery room"};
+    private static final CommandWord[] WORDS = CommandWord.values();
+    private static final GameOutcome[] OUTCOMES = GameOutcome.values();
+    private static final GameMetrics GLOBAL = new GameMetrics();
+
+    private static boolean registered;
+
+    private LongAdder turnCount;
+    private LongAdder unknownCommandCount;
+    private LongAdder npcMoveCount;
+    private LatencyHistogram[] commandLatencies;    // indexed by the ordinal of the command word
+    private LatencyHistogram[] handlerLatencies;    // indexed by the id of the room
+    private LongAdder[] outcomeCounts;              // indexed by the ordinal of the outcome
+    private LongAdder[] deathsByRoom;               // indexed by the id of the room
+
+    /**
+     * Create metrics with all counters at zero.
+     */
+    public GameMetrics()
+    {
+        turnCount = new LongAdder();
+        unknownCommandCount = new LongAdder();
+        npcMoveCount = new LongAdder();
+        commandLatencies = new LatencyHistogram[WORDS.length];
+        for (int i = 0; i < WORDS.length; i++)
+        {
+            commandLatencies[i] = new LatencyHistogram();
+        }
+        handlerLatencies = new LatencyHistogram[Game.ROOM_COUNT];
+        deathsByRoom = new LongAdder[Game.ROOM_COUNT];
+        for (int i = 0; i < Game.ROOM_COUNT; i++)
+        {
+            handlerLatencies[i] = new LatencyHistogram();
+            deathsByRoom[i] = new LongAdder();
+        }
+        outcomeCounts = new LongAdder[OUTCOMES.length];
+        for (int i = 0; i < OUTCOMES.length; i++)
+        {
+            outcomeCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return the metrics shared by all games of the program
+     */
+    public static GameMetrics getGlobal() {return GLOBAL;}
+
+    /**
+     * Publishes the global metrics as a platform MBean. Calling it again does nothing.
+     */
+    public static synchronized void registerGlobal()
+    {
+        if (registered)
+        {
+            return;
+        }
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (JMException e)
+        {
+            throw new IllegalStateException("The game metrics cannot be published over JMX.", e);
+        }
+    }
+
+    /**
+     * Counts a processed command.
+     * @param word the command word, or null if the command was not understood
+     * @param nanos how long processing the command took
+     */
+    public void recordCommand(CommandWord word, long nanos)
+    {
+        turnCount.increment();
+        if (word == null)
+        {
+            unknownCommandCount.increment();
+            return;
+        }
+        commandLatencies[word.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts a room being set up at the end of a turn.
+     * @param room the id of the room
+     * @param nanos how long setting up the room took
+     */
+    public void recordRoomHandler(int room, long nanos)
+    {
+        handlerLatencies[room].record(nanos);
+    }
+
+    /**
+     * Counts a time the NPCs have been moved, once for all of them.
+     */
+    public void recordNpcMove()
+    {
+        npcMoveCount.increment();
+    }
+
+    /**
+     * Counts a game that has ended.
+     * @param outcome how the game ended
+     * @param room the id of the room the game ended in
+     */
+    public void recordOutcome(GameOutcome outcome, int room)
+    {
+        outcomeCounts[outcome.ordinal()].increment();
+        if (outcome.isDeath())
+        {
+            deathsByRoom[room].increment();
+        }
+    }
+
+    @Override
+    public long getTurnCount() {return turnCount.sum();}
+
+    @Override
+    public long getUnknownCommandCount() {return unknownCommandCount.sum();}
+
+    @Override
+    public long getNpcMoveCount() {return npcMoveCount.sum();}
+
+    @Override
+    public Map<String, LatencyHistogram.Summary> getCommandLatencies()
+    {
+        Map<String, LatencyHistogram.Summary> latencies = new LinkedHashMap<>();
+        for (CommandWord word : WORDS)
+        {
+            latencies.put(word.getWord(), commandLatencies[word.ordinal()].getSummary());
+        }
+        return latencies;
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Summary> getRoomHandlerLatencies()
+    {
+        Map<String, LatencyHistogram.Summary> latencies = new LinkedHashMap<>();
+        for (int i = 0; i < Game.ROOM_COUNT; i++)
+        {
+            latencies.put(ROOM_NAMES[i], handlerLatencies[i].getSummary());
+        }
+        return latencies;
+    }
+
+    @Override
+    public Map<String, Long> getOutcomeCounts()
+    {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (GameOutcome outcome : OUTCOMES)
+        {
+            if (outcome != GameOutcome.PLAYING)
+            {
+                counts.put(outcome.name(), outcomeCounts[outcome.ordinal()].sum());
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getDeathsByRoom()
+    {
+        Map<String, Long> deaths = new LinkedHashMap<>();
+        for (int i = 0; i < Game.ROOM_COUNT; i++)
+        {
+            deaths.put(ROOM_NAMES[i], deathsByRoom[i].sum());
+        }
+        return deaths;
+    }
+
+    @Override
+    public void reset()
+    {
+        turnCount.reset();
+        unknownCommandCount.reset();
+        npcMoveCount.reset();
+        for (LatencyHistogram histogram : commandLatencies)
+        {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : handlerLatencies)
+        {
+            histogram.reset();
+        }
+        for (LongAdder count : outcomeCounts)
+        {
+            count.reset();
+        }
+        for (LongAdder count : deathsByRoom)
+        {
+            count.reset();
+        }
+    }
+}
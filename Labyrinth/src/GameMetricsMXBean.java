@@ -0,0 +1,53 @@
+import java.util.Map;
+
+/**
+ * This interface is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The management interface of the game metrics, as it is published over JMX.
+ * Every map is keyed by the name of a command word, a room or an outcome.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public interface GameMetricsMXBean
+{
+    /**
+     * @return the amount of turns played in all games
+     */
+    long getTurnCount();
+
+    /**
+     * @return the amount of commands that were not understood
+     */
+    long getUnknownCommandCount();
+
+    /**
+     * @return how often the NPCs have been moved, counting every move of all NPCs at once as one
+     */
+    long getNpcMoveCount();
+
+    /**
+     * @return how long processing each command word took
+     */
+    Map<String, LatencyHistogram.Summary> getCommandLatencies();
+
+    /**
+     * @return how long setting up each room took
+     */
+    Map<String, LatencyHistogram.Summary> getRoomHandlerLatencies();
+
+    /**
+     * @return how many games ended in each way
+     */
+    Map<String, Long> getOutcomeCounts();
+
+    /**
+     * @return how many players died in each room
+     */
+    Map<String, Long> getDeathsByRoom();
+
+    /**
+     * Sets all metrics back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,24 @@
+/**
+ * This enum is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * It holds the ways a game can end, including the different causes of death.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public enum GameOutcome
+{
+    PLAYING,        // the game hasn't ended yet
+    WON,            // the player left the labyrinth after defeating the Minotaur
+    QUIT,           // the player quit the game
+    EXHAUSTION,     // the player ran out of vitality
+    PIT,            // the player jumped into the pit without a way out
+    LIONS,          // the player was eaten in the lion room
+    LAVA,           // the player fell into the lava pit
+    MINOTAUR;       // the player lost the fight against the Minotaur
+
+    /**
+     * @return true if the player died in the game
+     */
+    public boolean isDeath() {return ordinal() > QUIT.ordinal();}
+}
@@ -0,0 +1,63 @@
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The random generator of a game. It produces exactly the same numbers as java.util.Random,
+ * but its internal state can be read and set, so a saved game continues with the same numbers
+ * it would have drawn if it had never been saved.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class GameRandom extends Random
+{
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    /**
+     * Create a generator that produces the same numbers as new Random(seed).
+     * @param seed the seed of the generator
+     */
+    public GameRandom(long seed)
+    {
+        super(seed);
+    }
+
+    /**
+     * Sets the seed the same way java.util.Random does. Also called by the constructor of Random.
+     * @param seed the new seed
+     */
+    @Override
+    public synchronized void setSeed(long seed)
+    {
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Generates the next random bits with the linear congruential formula of java.util.Random.
+     * A game is only used by one thread at a time, so the state doesn't need to be atomic.
+     * @param bits the amount of random bits
+     * @return the random bits
+     */
+    @Override
+    protected int next(int bits)
+    {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * @return the internal state of the generator
+     */
+    public long getState() {return state;}
+
+    /**
+     * @param state an internal state returned by getState earlier
+     */
+    public void setState(long state) {this.state = state & MASK;}
+}
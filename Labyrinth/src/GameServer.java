@@ -0,0 +1,571 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The game server lets players play the labyrinth over TCP, for example with telnet or netcat.
+ * Every connection plays its own game session. The player sends one command per line, and the server
+ * answers with the output of the turn followed by the prompt "> ". The connection is closed when the game ends.
+ * <p>
+ * A single selector thread accepts the connections and does all reading and writing without blocking.
+ * Partial lines are kept until their end arrives, and output that doesn't fit into the socket is written
+ * once the socket is ready again. Commands are executed by a small pool of workers, one command of a
+ * connection at a time, so the commands of a player are always executed in the order they were sent.
+ * A connection that is idle holds no thread and no buffers, so many thousands of idle players are cheap.
+ * <p>
+ * The players either get a labyrinth of their own or all roam one shared world. The sessions of players
+ * with a labyrinth of their own can be kept in a session store, which only keeps the recently active ones in memory.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class GameServer implements Closeable
+{
+    public static final int DEFAULT_PORT = 4000;
+    private static final String PROMPT = "> ";
+    private static final int MAX_LINE_LENGTH = 1024;
+    private static final int MAX_PENDING_LINES = 16;       // reading from a connection pauses when this many commands wait
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private ByteBuffer readBuffer;          // shared by all connections, only used by the selector thread
+    private Queue<Connection> changed;      // connections whose output or pending commands have changed
+    private AtomicInteger connectionCount;
+    private SharedWorld sharedWorld;        // null if every player gets a labyrinth of their own
+    private SessionStore sessionStore;      // null if all sessions stay in memory
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    /**
+     * Create a server that listens on a port of all network interfaces. The server is started by start.
+     * @param port the port, or 0 for any free port
+     * @param workerCount the amount of threads that execute commands
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port, int workerCount) throws IOException
+    {
+        this(port, workerCount, null);
+    }
+
+    /**
+     * Create a server that lets all players roam the same world. The server is started by start.
+     * @param port the port, or 0 for any free port
+     * @param workerCount the amount of threads that execute commands
+     * @param sharedWorld the world all players join, or null to give every player a labyrinth of their own
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port, int workerCount, SharedWorld sharedWorld) throws IOException
+    {
+        this(port, workerCount, sharedWorld, null);
+    }
+
+    /**
+     * Create a server that keeps the sessions of its players in a session store. The server is started by start.
+     * @param port the port, or 0 for any free port
+     * @param workerCount the amount of threads that execute commands
+     * @param sharedWorld the world all players join, or null to give every player a labyrinth of their own
+     * @param sessionStore the store that passivates idle sessions, or null to keep all sessions in memory.
+     *                     The store is not closed with the server.
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port, int workerCount, SharedWorld sharedWorld, SessionStore sessionStore) throws IOException
+    {
+        this.sharedWorld = sharedWorld;
+        this.sessionStore = sessionStore;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, task ->
+        {
+            Thread thread = new Thread(task, "labyrinth-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        changed = new ConcurrentLinkedQueue<>();
+        connectionCount = new AtomicInteger();
+    }
+
+    /**
+     * Runs a server until the program is stopped.
+     * @param args the port to listen on, by default 4000, and either "shared" to let all players roam the same world
+     *             or a directory to passivate idle sessions to
+     * @throws IOException if the port or the directory cannot be opened
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        boolean shared = args.length > 1 && args[1].equals("shared");
+        SharedWorld world = shared ? new SharedWorld(new Random().nextLong()) : null;
+        SessionStore store = args.length > 1 && !shared ? new SessionStore(Path.of(args[1]), SessionStore.DEFAULT_MAX_ACTIVE) : null;
+        GameMetrics.registerGlobal();
+        GameServer server = new GameServer(port, Runtime.getRuntime().availableProcessors(), world, store);
+        server.start();
+        System.out.println("The labyrinth is open on port " + server.getPort() + ".");
+    }
+
+    /**
+     * Starts the selector thread of the server.
+     */
+    public void start()
+    {
+        running = true;
+        selectorThread = new Thread(this::runSelector, "labyrinth-selector");
+        selectorThread.start();
+    }
+
+    /**
+     * Closes all connections and stops the server.
+     * @throws IOException if the server cannot be closed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        running = false;
+        selector.wakeup();
+        if (selectorThread != null)
+        {
+            try
+            {
+                selectorThread.join();
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (SelectionKey key : selector.keys())
+        {
+            key.channel().close();
+        }
+        selector.close();
+        workers.shutdownNow();
+        try
+        {
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {return serverChannel.socket().getLocalPort();}
+
+    /**
+     * @return the amount of players that are connected
+     */
+    public int getConnectionCount() {return connectionCount.get();}
+
+    /**
+     * The loop of the selector thread: waits until a socket is ready and serves it.
+     */
+    private void runSelector()
+    {
+        while (running)
+        {
+            try
+            {
+                selector.select();
+            } catch (IOException e)
+            {
+                System.err.println("The game server has stopped: " + e.getMessage());
+                return;
+            }
+            Connection connection;
+            while ((connection = changed.poll()) != null)
+            {
+                connection.updateInterest();
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext())
+            {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try
+                {
+                    if (key.isValid() && key.isAcceptable())
+                    {
+                        accept();
+                    }
+                    if (key.isValid() && key.isReadable())
+                    {
+                        ((Connection) key.attachment()).read();
+                    }
+                    if (key.isValid() && key.isWritable())
+                    {
+                        ((Connection) key.attachment()).write();
+                    }
+                } catch (IOException e)
+                {
+                    // the player has gone away
+                    if (key.attachment() != null)
+                    {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts the waiting connections. Their sessions are created by the workers, which also send the welcome message.
+     * @throws IOException if a connection cannot be accepted
+     */
+    private void accept() throws IOException
+    {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connectionCount.incrementAndGet();
+            connection.schedule();
+        }
+    }
+
+    /**
+     * A single player connected to the server. Its socket is only used by the selector thread,
+     * and its game session only by the worker that currently executes its commands.
+     */
+    private class Connection implements Runnable
+    {
+        private SocketChannel channel;
+        private SelectionKey key;
+        private GameSession session;
+        private byte[] line;                // the bytes of the line that is being received
+        private int lineLength;
+        private ByteBuffer unread;          // bytes received while the queue of commands was full, used before the socket again
+        private ArrayDeque<String> pending;         // commands that wait to be executed
+        private ArrayDeque<ByteBuffer> output;      // output that waits to be written
+        private boolean scheduled;                  // true while a worker is executing the commands, guarded by this
+        private boolean finished;                   // the game has ended, the connection closes when its output is written, guarded by this
+
+        /**
+         * @param channel the socket of the player
+         */
+        Connection(SocketChannel channel)
+        {
+            this.channel = channel;
+            pending = new ArrayDeque<>();
+            output = new ArrayDeque<>();
+        }
+
+        /**
+         * Reads what the player has sent and queues every complete line as a command. Once the queue is full,
+         * the rest of what has been read is kept until enough commands have been executed.
+         * @throws IOException if the socket cannot be read
+         */
+        void read() throws IOException
+        {
+            readBuffer.clear();
+            if (channel.read(readBuffer) < 0)
+            {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            receive(readBuffer);
+            if (readBuffer.hasRemaining() && channel.isOpen())
+            {
+                unread = ByteBuffer.allocate(readBuffer.remaining()).put(readBuffer).flip();
+            }
+            updateInterest();
+        }
+
+        /**
+         * Queues every complete line of received bytes as a command, until the bytes run out or the queue is full.
+         * @param bytes the bytes sent by the player. The ones after the line that filled the queue are left in it.
+         */
+        private void receive(ByteBuffer bytes)
+        {
+            while (bytes.hasRemaining())
+            {
+                byte next = bytes.get();
+                if (next == '\n')
+                {
+                    int end = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                    String command = end == 0 ? "" : new String(line, 0, end, StandardCharsets.UTF_8);
+                    lineLength = 0;
+                    if (!submit(command))
+                    {
+                        break;
+                    }
+                } else if (lineLength == MAX_LINE_LENGTH)
+                {
+                    // no command is this long, the connection isn't used by a player
+                    close();
+                    return;
+                } else
+                {
+                    if (line == null || lineLength == line.length)
+                    {
+                        line = line == null ? new byte[64] : Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = next;
+                }
+            }
+            if (lineLength == 0)
+            {
+                // an idle connection keeps no buffer
+                line = null;
+            }
+        }
+
+        /**
+         * Writes as much of the waiting output as the socket takes.
+         * @throws IOException if the socket cannot be written
+         */
+        void write() throws IOException
+        {
+            synchronized (this)
+            {
+                while (!output.isEmpty())
+                {
+                    ByteBuffer next = output.peek();
+                    channel.write(next);
+                    if (next.hasRemaining())
+                    {
+                        // the socket is full, the rest is written when it is ready again
+                        return;
+                    }
+                    output.poll();
+                }
+            }
+            updateInterest();
+        }
+
+        /**
+         * Queues a command and makes sure a worker executes it.
+         * @param command the line sent by the player
+         * @return true if more commands can be queued, false if the queue is full
+         */
+        private boolean submit(String command)
+        {
+            boolean full;
+            synchronized (this)
+            {
+                pending.add(command);
+                full = pending.size() >= MAX_PENDING_LINES;
+            }
+            schedule();
+            return !full;
+        }
+
+        /**
+         * Hands the connection to a worker unless one is already executing its commands.
+         */
+        void schedule()
+        {
+            synchronized (this)
+            {
+                if (scheduled)
+                {
+                    return;
+                }
+                scheduled = true;
+            }
+            workers.execute(this);
+        }
+
+        /**
+         * Executes the waiting commands of the player on a worker thread. If the game fails, the player is told
+         * and the connection is closed once that is written, so the player isn't left waiting for an answer.
+         */
+        @Override
+        public void run()
+        {
+            boolean done = false;
+            try
+            {
+                if (session == null && channel.isOpen())
+                {
+                    session = sharedWorld == null ? new GameSession() : new GameSession(sharedWorld, new Random().nextLong());
+                    send(sessionStore == null ? session.start() : sessionStore.start(session));
+                }
+                while (true)
+                {
+                    String command;
+                    synchronized (this)
+                    {
+                        command = finished ? null : pending.poll();
+                        if (command == null)
+                        {
+                            scheduled = false;
+                            done = true;
+                            break;
+                        }
+                    }
+                    String text = sessionStore == null ? session.execute(command) : sessionStore.execute(session, command);
+                    synchronized (this)
+                    {
+                        finished = session.isFinished();
+                    }
+                    send(text);
+                }
+            } catch (UncheckedIOException e)
+            {
+                // the saved game of the player cannot be loaded
+                fail("Your game could not be restored: " + e.getMessage() + "\n");
+            } catch (RuntimeException e)
+            {
+                System.err.println("A game has failed: " + e);
+                fail("Your game has run into an error and cannot go on.\n");
+            } finally
+            {
+                if (!done)
+                {
+                    synchronized (this)
+                    {
+                        scheduled = false;
+                        finished = true;
+                    }
+                }
+                if (!channel.isOpen() && session != null && sessionStore != null)
+                {
+                    // the player has gone away, the session is not needed anymore
+                    sessionStore.remove(session);
+                }
+                // the selector closes a finished connection once its output is written
+                changed.add(this);
+                selector.wakeup();
+            }
+        }
+
+        /**
+         * Ends the game of the player because it has failed, and tells the player why.
+         * @param message the error line for the player
+         */
+        private void fail(String message)
+        {
+            synchronized (this)
+            {
+                pending.clear();
+                finished = true;
+            }
+            send(message);
+        }
+
+        /**
+         * Queues the output of a turn, followed by the prompt unless the game has ended.
+         * @param text the output of the turn
+         */
+        private void send(String text)
+        {
+            synchronized (this)
+            {
+                // finished is written by the worker and the selector thread, so it is only read under the lock
+                String message = finished ? text : text + PROMPT;
+                output.add(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+            }
+            changed.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Decides what the selector waits for on the socket. Only called by the selector thread.
+         * Reading pauses while too many commands wait, so a player cannot flood the server. Bytes that were received
+         * while the queue was full are queued first, before the socket is read again.
+         */
+        void updateInterest()
+        {
+            if (!key.isValid())
+            {
+                return;
+            }
+            if (unread != null && hasRoom())
+            {
+                receive(unread);
+                if (!unread.hasRemaining())
+                {
+                    unread = null;
+                }
+                if (!key.isValid())
+                {
+                    return;
+                }
+            }
+            int interest = 0;
+            synchronized (this)
+            {
+                if (finished && output.isEmpty() && !scheduled)
+                {
+                    close();
+                    return;
+                }
+                if (!finished && pending.size() < MAX_PENDING_LINES && unread == null)
+                {
+                    interest |= SelectionKey.OP_READ;
+                }
+                if (!output.isEmpty())
+                {
+                    interest |= SelectionKey.OP_WRITE;
+                }
+            }
+            key.interestOps(interest);
+        }
+
+        /**
+         * @return true if the game goes on and another command can be queued
+         */
+        private synchronized boolean hasRoom() {return !finished && pending.size() < MAX_PENDING_LINES;}
+
+        /**
+         * Closes the socket of the player. A command that is being executed still finishes, but its output is dropped.
+         */
+        void close()
+        {
+            if (!channel.isOpen())
+            {
+                return;
+            }
+            key.cancel();
+            try
+            {
+                channel.close();
+            } catch (IOException e)
+            {
+                // the socket is gone anyway
+            }
+            connectionCount.decrementAndGet();
+            synchronized (this)
+            {
+                pending.clear();
+                output.clear();
+                finished = true;
+            }
+            if (sessionStore != null)
+            {
+                // a worker removes the session from the store, unless one is already busy with it
+                schedule();
+            }
+        }
+    }
+}
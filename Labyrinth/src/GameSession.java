@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A game session is a single player's game that is played without a terminal.
+ * Commands are given to the session as strings and the output of every turn is
+ * returned as a value, so any number of independent sessions can be hosted in one program.
+ * <p>
+ * A session can keep a command journal. Every accepted command is then appended to the journal
+ * before it is executed, and a session that was lost in a crash can be recovered from its journal.
+ * <p>
+ * An idle session can be passivated: its game is saved and dropped from memory until it is activated again,
+ * usually by a session store before the next command of the player.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class GameSession
+{
+    private Game game;
+    private BufferSink output;
+    private Parser parser;
+    private Command command;    // reused for every command of the session
+    private CommandJournal journal;
+    private boolean finished;
+
+    /**
+     * Create a new session with a freshly generated labyrinth.
+     */
+    public GameSession()
+    {
+        this(new Random().nextLong());
+    }
+
+    /**
+     * Create a new session whose labyrinth is generated from the given seed.
+     * @param seed the seed of the game
+     */
+    public GameSession(long seed)
+    {
+        output = new BufferSink();
+        game = new Game(new GameSettings(), seed, output);
+        parser = new Parser();
+        command = new Command((CommandWord) null, null, null);
+        finished = false;
+    }
+
+    /**
+     * Create a new session for a player who joins a shared world.
+     * @param world the world shared with other players
+     * @param seed the seed of the player's game
+     */
+    public GameSession(SharedWorld world, long seed)
+    {
+        output = new BufferSink();
+        game = world.join(new GameSettings(), seed, output);
+        parser = new Parser();
+        command = new Command((CommandWord) null, null, null);
+        finished = false;
+    }
+
+    /**
+     * Create a new session that writes every accepted command to a new journal.
+     * @param seed the seed of the game
+     * @param journalFile the file of the journal. An existing file is replaced.
+     * @throws IOException if the journal cannot be created
+     */
+    public GameSession(long seed, Path journalFile) throws IOException
+    {
+        this(seed);
+        journal = CommandJournal.create(journalFile, seed);
+    }
+
+    /**
+     * Recovers a session from its journal by replaying all commands in it.
+     * The output of the replayed commands is not shown again, and new commands are appended to the same journal.
+     * @param journalFile the file of the journal
+     * @return the recovered session
+     * @throws IOException if the journal cannot be read
+     */
+    public static GameSession recover(Path journalFile) throws IOException
+    {
+        CommandJournal journal = CommandJournal.open(journalFile);
+        GameSession session = new GameSession(journal.getSeed());
+        session.journal = journal;
+        session.game.setOutput(new NullSink());
+        // the replayed turns have already been counted when they were played the first time
+        session.game.setMetrics(new GameMetrics());
+        journal.replay(session.game);
+        session.game.setMetrics(GameMetrics.getGlobal());
+        session.game.setOutput(session.output);
+        session.finished = session.game.getOutcome() != GameOutcome.PLAYING;
+        return session;
+    }
+
+    /**
+     * Returns the opening message of the game. It should be shown to the player before the first command.
+     * @return the welcome message and the description of the starting room
+     */
+    public String start()
+    {
+        checkActive();
+        game.printWelcome();
+        return output.takeOutput();
+    }
+
+    /**
+     * Executes one command of the player and returns everything the game displays during that turn.
+     * @param inputLine the line typed by the player, for example "go north"
+     * @return the output of the turn
+     * @throws IllegalArgumentException if a word of the line is too long for the journal. The turn is not played then.
+     */
+    public String execute(String inputLine)
+    {
+        if (finished)
+        {
+            throw new IllegalStateException("The session has already finished.");
+        }
+        checkActive();
+        parser.parse(inputLine, command);
+        if (journal != null)
+        {
+            journal.append(command);
+        }
+        finished = game.playTurn(command);
+        return output.takeOutput();
+    }
+
+    /**
+     * Closes the journal of the session, if it has one.
+     * @throws IOException if the journal cannot be closed
+     */
+    public void close() throws IOException
+    {
+        if (journal != null)
+        {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the game of the session, so it can be passivated.
+     * @param snapshot the snapshot object used to save the game
+     * @return the buffer of the snapshot object, holding the game. It is overwritten by the next call.
+     * @throws IllegalStateException if the session is passive or the game is played in a shared world
+     */
+    ByteBuffer save(GameSnapshot snapshot)
+    {
+        checkActive();
+        return snapshot.write(game);
+    }
+
+    /**
+     * Writes a snapshot of the game of the session without its scalar state, which is stored in a row
+     * of session columns instead, so it can be passivated.
+     * @param snapshot the snapshot object used to save the game
+     * @param columns the session columns
+     * @param row the row of the session
+     * @return the buffer of the snapshot object, holding the rest of the game. It is overwritten by the next call.
+     * @throws IllegalStateException if the session is passive or the game is played in a shared world
+     */
+    ByteBuffer save(GameSnapshot snapshot, SessionColumns columns, int row)
+    {
+        checkActive();
+        return snapshot.write(game, columns, row);
+    }
+
+    /**
+     * Drops the game of the session from memory, together with everything else that is only needed while
+     * commands are executed. The game should have been saved first. The session can't be played until it is activated.
+     */
+    void passivate()
+    {
+        game = null;
+        output = null;
+        parser = null;
+        command = null;
+    }
+
+    /**
+     * Puts the game of a passive session back into memory.
+     * @param saved a buffer holding the snapshot written by save with the same columns, from its position
+     * @param columns the session columns holding the scalar state of the game
+     * @param row the row of the session
+     */
+    void activate(ByteBuffer saved, SessionColumns columns, int row)
+    {
+        BufferSink sink = new BufferSink();
+        game = GameSnapshot.read(saved, columns, row, sink);
+        output = sink;
+        parser = new Parser();
+        command = new Command((CommandWord) null, null, null);
+    }
+
+    /**
+     * @return true while the game of the session is saved elsewhere instead of being in memory
+     */
+    boolean isPassive() {return game == null;}
+
+    /**
+     * @return true if the session plays in a shared world, which means it cannot be passivated
+     */
+    boolean isShared() {return game != null && game.isShared();}
+
+    /**
+     * @throws IllegalStateException if the session is passive
+     */
+    private void checkActive()
+    {
+        if (isPassive())
+        {
+            throw new IllegalStateException("The session is passive and must be activated first.");
+        }
+    }
+
+    /**
+     * @return true if the game of this session has ended
+     */
+    public boolean isFinished() {return finished;}
+
+    /**
+     * @return how the game of this session has ended, or PLAYING if it hasn't ended yet
+     */
+    public GameOutcome getOutcome()
+    {
+        checkActive();
+        return game.getOutcome();
+    }
+
+    /**
+     * @return the vitality the player has left
+     */
+    public int getVitality()
+    {
+        checkActive();
+        return game.getVitality();
+    }
+
+    /**
+     * @return the seed of the game played in this session
+     */
+    public long getSeed()
+    {
+        checkActive();
+        return game.getSeed();
+    }
+}
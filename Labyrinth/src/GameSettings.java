@@ -0,0 +1,124 @@
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The game settings hold the numbers that decide how hard the game is: the starting vitality,
+ * how quickly the player gets exhausted, how much the backpack can carry and how much vitality
+ * is needed to defeat the Minotaur with each combination of legendary items.
+ * A new object holds the values of the original game and can be changed to try out other balances.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class GameSettings
+{
+    private int vitality;
+    private int exhaustCoefficient;
+    private int bootsExhaustCoefficient;
+    private int backPackWeight;
+    private int npcMovesPerTurn;
+    private int[] minotaurFightVitality;    // indexed by whether the player has The Harpe and Zeus's Aegis
+    private int[] minotaurRunVitality;      // indexed by whether the player has Hermes's Boots and Zeus's Aegis
+
+    /**
+     * Create the settings of the original game.
+     */
+    public GameSettings()
+    {
+        vitality = 10;
+        exhaustCoefficient = 5;
+        bootsExhaustCoefficient = 8;
+        backPackWeight = 15;
+        npcMovesPerTurn = 2;
+        minotaurFightVitality = new int[] {9, 7, 5, 2};
+        minotaurRunVitality = new int[] {9, 7, 4, 1};
+    }
+
+    /**
+     * Turns a combination of two items into an index of the Minotaur vitality tables.
+     * @param firstItem whether the player has the first item
+     * @param aegis whether the player has Zeus's Aegis
+     * @return the index of the combination
+     */
+    private static int itemIndex(boolean firstItem, boolean aegis)
+    {
+        return (firstItem ? 2 : 0) + (aegis ? 1 : 0);
+    }
+
+    /**
+     * @return the vitality the player starts the game with
+     */
+    public int getVitality() {return vitality;}
+
+    /**
+     * @param vitality the vitality the player starts the game with
+     */
+    public void setVitality(int vitality) {this.vitality = vitality;}
+
+    /**
+     * @return the amount of steps after which the player loses 1 vitality
+     */
+    public int getExhaustCoefficient() {return exhaustCoefficient;}
+
+    /**
+     * @param exhaustCoefficient the amount of steps after which the player loses 1 vitality
+     */
+    public void setExhaustCoefficient(int exhaustCoefficient) {this.exhaustCoefficient = exhaustCoefficient;}
+
+    /**
+     * @return the amount of steps after which the player loses 1 vitality while wearing Hermes's Boots
+     */
+    public int getBootsExhaustCoefficient() {return bootsExhaustCoefficient;}
+
+    /**
+     * @param bootsExhaustCoefficient the amount of steps after which the player loses 1 vitality while wearing Hermes's Boots
+     */
+    public void setBootsExhaustCoefficient(int bootsExhaustCoefficient) {this.bootsExhaustCoefficient = bootsExhaustCoefficient;}
+
+    /**
+     * @return the total weight of artefacts the backpack can carry
+     */
+    public int getBackPackWeight() {return backPackWeight;}
+
+    /**
+     * @param backPackWeight the total weight of artefacts the backpack can carry
+     */
+    public void setBackPackWeight(int backPackWeight) {this.backPackWeight = backPackWeight;}
+
+    /**
+     * @return the most NPCs that wander to another room every time the player moves
+     */
+    public int getNpcMovesPerTurn() {return npcMovesPerTurn;}
+
+    /**
+     * @param npcMovesPerTurn the most NPCs that wander to another room every time the player moves
+     */
+    public void setNpcMovesPerTurn(int npcMovesPerTurn) {this.npcMovesPerTurn = npcMovesPerTurn;}
+
+    /**
+     * @param harpe whether the player has The Harpe
+     * @param aegis whether the player has Zeus's Aegis
+     * @return the vitality needed to defeat the Minotaur by fighting it
+     */
+    public int getMinotaurFightVitality(boolean harpe, boolean aegis) {return minotaurFightVitality[itemIndex(harpe, aegis)];}
+
+    /**
+     * @param harpe whether the player has The Harpe
+     * @param aegis whether the player has Zeus's Aegis
+     * @param vitality the vitality needed to defeat the Minotaur by fighting it
+     */
+    public void setMinotaurFightVitality(boolean harpe, boolean aegis, int vitality) {minotaurFightVitality[itemIndex(harpe, aegis)] = vitality;}
+
+    /**
+     * @param boots whether the player has Hermes's Boots
+     * @param aegis whether the player has Zeus's Aegis
+     * @return the vitality needed to defeat the Minotaur by running from it
+     */
+    public int getMinotaurRunVitality(boolean boots, boolean aegis) {return minotaurRunVitality[itemIndex(boots, aegis)];}
+
+    /**
+     * @param boots whether the player has Hermes's Boots
+     * @param aegis whether the player has Zeus's Aegis
+     * @param vitality the vitality needed to defeat the Minotaur by running from it
+     */
+    public void setMinotaurRunVitality(boolean boots, boolean aegis, int vitality) {minotaurRunVitality[itemIndex(boots, aegis)] = vitality;}
+}
@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Saves and loads the complete state of a game in a compact binary format, so a game can be
+ * saved after every turn and continued later exactly where it was left, including its random numbers.
+ * The world definition is not saved, a game is restored in the world it was created with.
+ * <p>
+ * A snapshot starts with a fixed part: the magic number and version, the seed and random state,
+ * the outcome, the current and previous room, the thread number, the counters of the player,
+ * the balance settings and the artefacts that can still be found. The variable part follows, with
+ * a count before every list: the movement histories of the staircase, the endless corridor, the binary corridor
+ * and the visited rooms as runs of moves, the backpack, the NPCs and the state of the NPC scheduler, and for every room its exits, artefacts and NPC.
+ * Rooms, directions, artefact names and NPC types are stored as one-byte numbers.
+ * <p>
+ * A snapshot can also leave out the scalar state that session columns hold: the outcome, the current room,
+ * the vitality, the staircase level, the rooms of the corridors, the step counter, the weight of the backpack
+ * and the flags. That state is written to a row of the columns instead, and the snapshot has a magic number
+ * of its own, so it isn't mistaken for a complete one.
+ * <p>
+ * A snapshot object keeps one direct buffer that is reused for every save and load, so saving a game
+ * doesn't create any garbage apart from the file channel.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class GameSnapshot
+{
+    private static final int MAGIC = 0x4C425331;       // "LBS1"
+    private static final int COLUMNS_MAGIC = 0x4C424331;   // "LBC1", the scalar state is in session columns
+    private static final short VERSION = 4;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Create a snapshot object with an empty buffer.
+     */
+    public GameSnapshot()
+    {
+        buffer = ByteBuffer.allocateDirect(4096);
+    }
+
+    /**
+     * Saves a game to a file. An existing file is replaced.
+     * @param game the game to be saved
+     * @param file the file the game is saved to
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Game game, Path file) throws IOException
+    {
+        ByteBuffer snapshot = write(game);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (snapshot.hasRemaining())
+            {
+                channel.write(snapshot);
+            }
+        }
+    }
+
+    /**
+     * Loads a game from a file.
+     * @param file the file a game was saved to
+     * @param output receives everything the loaded game displays to the player
+     * @return the loaded game
+     * @throws IOException if the file cannot be read or doesn't hold a saved game
+     */
+    public Game load(Path file, OutputSink output) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            int size = (int) channel.size();
+            if (buffer.capacity() < size)
+            {
+                buffer = ByteBuffer.allocateDirect(size);
+            }
+            buffer.clear().limit(size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+            {
+                // keep reading until the whole file is in the buffer
+            }
+        }
+        buffer.flip();
+        try
+        {
+            return read(buffer, output);
+        } catch (IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e)
+        {
+            throw new IOException(file + " is not a valid saved game", e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of a game to the buffer of this object. The buffer grows if the game doesn't fit in it.
+     * @param game the game to be saved
+     * @return the buffer, holding the snapshot from its position to its limit. It is overwritten by the next call.
+     */
+    public ByteBuffer write(Game game)
+    {
+        return write(game, true);
+    }
+
+    /**
+     * Writes a snapshot of a game without its scalar state to the buffer of this object,
+     * and stores the scalar state in a row of session columns. The buffer grows if the game doesn't fit in it.
+     * @param game the game to be saved
+     * @param columns the session columns
+     * @param row the row the scalar state of the game is stored in
+     * @return the buffer, holding the snapshot from its position to its limit. It is overwritten by the next call.
+     */
+    public ByteBuffer write(Game game, SessionColumns columns, int row)
+    {
+        game.writeColumns(columns, row);
+        return write(game, false);
+    }
+
+    /**
+     * Writes a snapshot of a game to the buffer of this object. The buffer grows if the game doesn't fit in it.
+     * @param game the game to be saved
+     * @param withColumns true for a complete snapshot, false to leave out the scalar state
+     * @return the buffer, holding the snapshot from its position to its limit
+     */
+    private ByteBuffer write(Game game, boolean withColumns)
+    {
+        while (true)
+        {
+            buffer.clear();
+            try
+            {
+                buffer.putInt(withColumns ? MAGIC : COLUMNS_MAGIC);
+                buffer.putShort(VERSION);
+                game.writeState(buffer, withColumns);
+                return buffer.flip();
+            } catch (BufferOverflowException e)
+            {
+                buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Creates a game from a snapshot.
+     * @param snapshot a buffer holding a snapshot from its position
+     * @param output receives everything the game displays to the player
+     * @return the game in the state of the snapshot
+     */
+    public static Game read(ByteBuffer snapshot, OutputSink output)
+    {
+        return read(snapshot, WorldDefinition.getDefault(), output);
+    }
+
+    /**
+     * Creates a game from a snapshot of a game in the given world.
+     * @param snapshot a buffer holding a snapshot from its position
+     * @param world the world definition the saved game was played in
+     * @param output receives everything the game displays to the player
+     * @return the game in the state of the snapshot
+     */
+    public static Game read(ByteBuffer snapshot, WorldDefinition world, OutputSink output)
+    {
+        Game game = new Game(new GameSettings(), world, 0, output);
+        restore(snapshot, game);
+        return game;
+    }
+
+    /**
+     * Creates a game from a snapshot without its scalar state and a row of session columns with that state.
+     * @param snapshot a buffer holding a snapshot written by write with the same columns, from its position
+     * @param columns the session columns
+     * @param row the row of the game
+     * @param output receives everything the game displays to the player
+     * @return the game in the state of the snapshot and the row
+     * @throws IllegalArgumentException if the buffer doesn't hold such a snapshot of this version or the row is empty
+     */
+    public static Game read(ByteBuffer snapshot, SessionColumns columns, int row, OutputSink output)
+    {
+        if (snapshot.getInt() != COLUMNS_MAGIC || snapshot.getShort() != VERSION)
+        {
+            throw new IllegalArgumentException("The buffer doesn't hold a saved game without its scalar state.");
+        }
+        Game game = new Game(new GameSettings(), WorldDefinition.getDefault(), 0, output);
+        game.readState(snapshot, false);
+        game.readColumns(columns, row);
+        return game;
+    }
+
+    /**
+     * Puts an existing game into the state of a snapshot. The output sink of the game is kept.
+     * @param snapshot a buffer holding a snapshot from its position
+     * @param game the game to be changed
+     * @throws IllegalArgumentException if the buffer doesn't hold a snapshot of this version
+     */
+    public static void restore(ByteBuffer snapshot, Game game)
+    {
+        if (snapshot.getInt() != MAGIC || snapshot.getShort() != VERSION)
+        {
+            throw new IllegalArgumentException("The buffer doesn't hold a saved game.");
+        }
+        game.readState(snapshot, true);
+    }
+}
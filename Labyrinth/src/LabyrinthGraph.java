@@ -0,0 +1,143 @@
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A labyrinth graph stores the exits of a very large labyrinth in compressed sparse rows:
+ * the exits of room r are at positions offsets[r] to offsets[r + 1] of two arrays, one holding
+ * the id of the room the exit leads to and one holding the direction of the exit as a byte.
+ * This takes a few bytes per room instead of a Room object with its own map of exits.
+ * Room objects are only created when a room is actually needed, for example when a player enters it.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class LabyrinthGraph
+{
+    // the directions of exits, as they are stored in the graph
+    public static final byte NORTH = 0;
+    public static final byte EAST = 1;
+    public static final byte SOUTH = 2;
+    public static final byte WEST = 3;
+    public static final String[] DIRECTION_NAMES = {"north", "east", "south", "west"};
+
+    private int[] offsets;
+    private int[] targets;
+    private byte[] directions;
+    private Map<Integer, Room> rooms;   // the rooms that have been created so far
+    private BitSet linkedRooms;         // the created rooms whose exits have been set
+
+    /**
+     * Create a graph from its compressed sparse rows.
+     * @param offsets where the exits of every room start, with one extra entry for the end of the last room
+     * @param targets the room every exit leads to
+     * @param directions the direction of every exit
+     */
+    public LabyrinthGraph(int[] offsets, int[] targets, byte[] directions)
+    {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.directions = directions;
+        rooms = new HashMap<>();
+        linkedRooms = new BitSet();
+    }
+
+    /**
+     * @return the amount of rooms in the labyrinth
+     */
+    public int getRoomCount() {return offsets.length - 1;}
+
+    /**
+     * @return the amount of exits in the labyrinth, counting both directions of every passage
+     */
+    public int getExitCount() {return targets.length;}
+
+    /**
+     * @param room the id of a room
+     * @return the amount of exits of the room
+     */
+    public int getExitCount(int room) {return offsets[room + 1] - offsets[room];}
+
+    /**
+     * @param room the id of a room
+     * @param direction the direction of the exit
+     * @return the id of the room the exit leads to, or -1 if the room has no exit in that direction
+     */
+    public int getNeighbour(int room, byte direction)
+    {
+        for (int i = offsets[room]; i < offsets[room + 1]; i++)
+        {
+            if (directions[i] == direction)
+            {
+                return targets[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param room the id of a room
+     * @param exit the number of the exit, from 0 to the amount of exits of the room
+     * @return the id of the room the exit leads to
+     */
+    public int getExitTarget(int room, int exit) {return targets[offsets[room] + exit];}
+
+    /**
+     * @param room the id of a room
+     * @param exit the number of the exit, from 0 to the amount of exits of the room
+     * @return the direction of the exit
+     */
+    public byte getExitDirection(int room, int exit) {return directions[offsets[room] + exit];}
+
+    /**
+     * @return the amount of memory taken by the exits, divided by the amount of rooms
+     */
+    public double getBytesPerRoom()
+    {
+        long bytes = 4L * offsets.length + 4L * targets.length + directions.length;
+        return (double) bytes / getRoomCount();
+    }
+
+    /**
+     * Returns the room with the given id with all its exits set, creating it if it doesn't exist yet.
+     * The rooms its exits lead to are created as well, but their own exits are only set
+     * when they are requested from this method.
+     * @param id the id of the room
+     * @return the room
+     */
+    public Room getRoom(int id)
+    {
+        Room room = findOrCreateRoom(id);
+        if (!linkedRooms.get(id))
+        {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++)
+            {
+                room.setExit(DIRECTION_NAMES[directions[i]], findOrCreateRoom(targets[i]));
+            }
+            linkedRooms.set(id);
+        }
+        return room;
+    }
+
+    /**
+     * @return the amount of Room objects that have been created
+     */
+    public int getCreatedRoomCount() {return rooms.size();}
+
+    /**
+     * @param id the id of a room
+     * @return the room object of the room, without setting its exits
+     */
+    private Room findOrCreateRoom(int id)
+    {
+        Room room = rooms.get(id);
+        if (room == null)
+        {
+            room = new Room(id, "in chamber " + id + " of the labyrinth");
+            rooms.put(id, room);
+        }
+        return room;
+    }
+}
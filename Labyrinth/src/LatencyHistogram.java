@@ -0,0 +1,180 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A latency histogram counts how long something took, in buckets that grow exponentially:
+ * every power of two of nanoseconds is split into four buckets, so a percentile is never more
+ * than 25% off. The buckets are striped counters, so many threads can record at the same time
+ * without locks and without fighting over the same memory.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int BUCKET_COUNT = 64 << SUB_BUCKET_BITS;
+
+    private LongAdder[] buckets;
+    private LongAdder count;
+    private LongAdder totalNanos;
+    private LongAccumulator maxNanos;
+
+    /**
+     * Create an empty histogram.
+     */
+    public LatencyHistogram()
+    {
+        buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            buckets[i] = new LongAdder();
+        }
+        count = new LongAdder();
+        totalNanos = new LongAdder();
+        maxNanos = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Counts one measurement.
+     * @param nanos how long it took, in nanoseconds
+     */
+    public void record(long nanos)
+    {
+        if (nanos < 0)
+        {
+            nanos = 0;
+        }
+        buckets[bucketOf(nanos)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * @return the amount of measurements
+     */
+    public long getCount() {return count.sum();}
+
+    /**
+     * Estimates a percentile from the buckets.
+     * @param percentile the percentile, between 0 and 100
+     * @return the upper bound of the bucket holding the percentile, in nanoseconds, or 0 without measurements
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0)
+            {
+                return Math.min(upperBound(i), maxNanos.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return a summary of the histogram, for example for publishing it over JMX
+     */
+    public Summary getSummary()
+    {
+        long measurements = count.sum();
+        double mean = measurements == 0 ? 0 : (double) totalNanos.sum() / measurements;
+        return new Summary(measurements, mean, getPercentileNanos(50), getPercentileNanos(99), maxNanos.get());
+    }
+
+    /**
+     * Forgets all measurements.
+     */
+    public void reset()
+    {
+        for (LongAdder bucket : buckets)
+        {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    /**
+     * @param nanos a measurement
+     * @return the bucket the measurement is counted in
+     */
+    private static int bucketOf(long nanos)
+    {
+        if (nanos < 1 << SUB_BUCKET_BITS)
+        {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return (exponent - SUB_BUCKET_BITS + 1 << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * @param bucket a bucket
+     * @return the largest measurement counted in the bucket
+     */
+    private static long upperBound(int bucket)
+    {
+        if (bucket < 1 << SUB_BUCKET_BITS)
+        {
+            return bucket;
+        }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket & ((1 << SUB_BUCKET_BITS) - 1);
+        long lowerBound = (1L << exponent) + (subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * The numbers of a histogram at one moment. Published over JMX as a composite value.
+     */
+    public static class Summary
+    {
+        private long count;
+        private double meanNanos;
+        private long p50Nanos;
+        private long p99Nanos;
+        private long maxNanos;
+
+        /**
+         * @param count the amount of measurements
+         * @param meanNanos the mean of the measurements
+         * @param p50Nanos the median of the measurements
+         * @param p99Nanos the 99th percentile of the measurements
+         * @param maxNanos the largest measurement
+         */
+        public Summary(long count, double meanNanos, long p50Nanos, long p99Nanos, long maxNanos)
+        {
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {return count;}
+
+        public double getMeanNanos() {return meanNanos;}
+
+        public long getP50Nanos() {return p50Nanos;}
+
+        public long getP99Nanos() {return p99Nanos;}
+
+        public long getMaxNanos() {return maxNanos;}
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * This enum is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * It holds the legendary items the player can collect in the labyrinth.
+ * Every item has its own bit, so a set of items fits in a single whole number.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public enum LegendaryItem
+{
+    ARIADNAS_THREAD("Ariadna's Thread"),
+    THE_HARPE("The Harpe"),
+    ZEUSS_AEGIS("Zeus's Aegis"),
+    HERMESS_BOOTS("Hermes's Boots");
+
+    private final String name;
+    private final int mask;
+
+    /**
+     * @param name the name of the item as it is shown to the player
+     */
+    LegendaryItem(String name)
+    {
+        this.name = name;
+        mask = 1 << ordinal();
+    }
+
+    /**
+     * @return the name of the item as it is shown to the player
+     */
+    public String getName() {return name;}
+
+    /**
+     * @return the bit of the item in a set of items
+     */
+    public int getMask() {return mask;}
+}
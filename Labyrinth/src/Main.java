@@ -1,9 +1,25 @@
+import java.io.IOException;
+import java.util.Arrays;
+
 public class Main
 {
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException, InterruptedException
     {
+        if (args.length > 0 && args[0].equals("batch"))
+        {
+            // Usage: Main batch scripts output [default seed]
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("regression"))
+        {
+            // Usage: Main regression [suite directory] [--record]
+            RegressionSuite.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        GameMetrics.registerGlobal();
         Game game = new Game();
         game.play();
 
     }
-}
\ No newline at end of file
+}
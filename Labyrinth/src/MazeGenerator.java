@@ -0,0 +1,187 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The maze generator creates perfect labyrinths on a grid of rooms: every room can be reached
+ * from every other room in exactly one way. It uses Kruskal's algorithm with a union-find structure.
+ * The grid is split into horizontal strips that are generated in parallel, each strip is a perfect
+ * maze of its own, and every strip is then joined to the next one by a single passage,
+ * which keeps the whole labyrinth perfect.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class MazeGenerator
+{
+    private static final int NORTH_BIT = 1 << LabyrinthGraph.NORTH;
+    private static final int EAST_BIT = 1 << LabyrinthGraph.EAST;
+    private static final int SOUTH_BIT = 1 << LabyrinthGraph.SOUTH;
+    private static final int WEST_BIT = 1 << LabyrinthGraph.WEST;
+
+    private int width;
+    private int height;
+    private int stripHeight;
+
+    /**
+     * Create a generator for labyrinths of the given size.
+     * @param width the amount of rooms from west to east
+     * @param height the amount of rooms from north to south
+     */
+    public MazeGenerator(int width, int height)
+    {
+        this(width, height, Math.max(1, height / (4 * Runtime.getRuntime().availableProcessors())));
+    }
+
+    /**
+     * Create a generator for labyrinths of the given size.
+     * @param width the amount of rooms from west to east
+     * @param height the amount of rooms from north to south
+     * @param stripHeight the amount of rows generated together by one task
+     */
+    public MazeGenerator(int width, int height, int stripHeight)
+    {
+        this.width = width;
+        this.height = height;
+        this.stripHeight = stripHeight;
+    }
+
+    /**
+     * Generates a labyrinth. The room in row y and column x has the id y * width + x.
+     * @param seed the seed the labyrinth is generated from
+     * @return the graph of the labyrinth
+     */
+    public LabyrinthGraph generate(long seed)
+    {
+        int roomCount = Math.multiplyExact(width, height);
+        byte[] openings = new byte[roomCount];      // the directions every room has an exit in, one bit each
+        int strips = (height + stripHeight - 1) / stripHeight;
+
+        IntStream.range(0, strips).parallel().forEach(strip -> carveStrip(strip, openings, new SplittableRandom(seed + strip)));
+
+        // Join every strip to the next one with a single passage.
+        SplittableRandom rand = new SplittableRandom(seed - 1);
+        for (int strip = 1; strip < strips; strip++)
+        {
+            int room = strip * stripHeight * width + rand.nextInt(width);
+            openings[room] |= NORTH_BIT;
+            openings[room - width] |= SOUTH_BIT;
+        }
+
+        return toGraph(openings);
+    }
+
+    /**
+     * Carves a perfect maze into one strip of rows using Kruskal's algorithm.
+     * @param strip the number of the strip
+     * @param openings the exits of every room, filled in for the rooms of the strip
+     * @param rand the random generator of the strip
+     */
+    private void carveStrip(int strip, byte[] openings, SplittableRandom rand)
+    {
+        int firstRow = strip * stripHeight;
+        int rows = Math.min(stripHeight, height - firstRow);
+        int firstRoom = firstRow * width;
+        int rooms = rows * width;
+
+        // Every wall between two rooms of the strip, stored as room * 2 + (0 for the east wall, 1 for the south wall).
+        int[] walls = new int[2 * rooms];
+        int wallCount = 0;
+        for (int room = 0; room < rooms; room++)
+        {
+            if (room % width < width - 1)
+            {
+                walls[wallCount++] = room * 2;
+            }
+            if (room / width < rows - 1)
+            {
+                walls[wallCount++] = room * 2 + 1;
+            }
+        }
+        for (int i = wallCount - 1; i > 0; i--)
+        {
+            int j = rand.nextInt(i + 1);
+            int swap = walls[i];
+            walls[i] = walls[j];
+            walls[j] = swap;
+        }
+
+        int[] parents = new int[rooms];
+        for (int i = 0; i < rooms; i++)
+        {
+            parents[i] = i;
+        }
+        int passages = 0;
+        for (int i = 0; i < wallCount && passages < rooms - 1; i++)
+        {
+            int room = walls[i] >> 1;
+            boolean south = (walls[i] & 1) == 1;
+            int other = south ? room + width : room + 1;
+            int rootA = find(parents, room);
+            int rootB = find(parents, other);
+            if (rootA != rootB)
+            {
+                parents[rootA] = rootB;
+                passages++;
+                if (south)
+                {
+                    openings[firstRoom + room] |= SOUTH_BIT;
+                    openings[firstRoom + other] |= NORTH_BIT;
+                } else
+                {
+                    openings[firstRoom + room] |= EAST_BIT;
+                    openings[firstRoom + other] |= WEST_BIT;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the representative of a room in the union-find structure, halving the path on the way.
+     * @param parents the parent of every room
+     * @param room the room
+     * @return the representative of the set the room is in
+     */
+    private static int find(int[] parents, int room)
+    {
+        while (parents[room] != room)
+        {
+            parents[room] = parents[parents[room]];
+            room = parents[room];
+        }
+        return room;
+    }
+
+    /**
+     * Turns the exits of every room into compressed sparse rows.
+     * @param openings the directions every room has an exit in
+     * @return the graph of the labyrinth
+     */
+    private LabyrinthGraph toGraph(byte[] openings)
+    {
+        int roomCount = openings.length;
+        int[] offsets = new int[roomCount + 1];
+        IntStream.range(0, roomCount).parallel().forEach(room -> offsets[room + 1] = Integer.bitCount(openings[room]));
+        Arrays.parallelPrefix(offsets, Integer::sum);
+
+        int[] targets = new int[offsets[roomCount]];
+        byte[] directions = new byte[offsets[roomCount]];
+        int[] steps = {-width, 1, width, -1};   // how the id changes when going in each direction
+        IntStream.range(0, roomCount).parallel().forEach(room ->
+        {
+            int position = offsets[room];
+            for (byte direction = 0; direction < 4; direction++)
+            {
+                if ((openings[room] & (1 << direction)) != 0)
+                {
+                    targets[position] = room + steps[direction];
+                    directions[position] = direction;
+                    position++;
+                }
+            }
+        });
+        return new LabyrinthGraph(offsets, targets, directions);
+    }
+}
@@ -0,0 +1,184 @@
+import java.nio.ByteBuffer;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A movement history remembers the moves of the player so the back command can undo them.
+ * Every move is a small number, for example the id of the room the player left or the direction taken
+ * on the staircase. Repeated moves, like walking down the endless corridor, are stored as a single run
+ * with a count, and only a limited amount of runs is kept. When the history is full the oldest run is forgotten,
+ * so the memory of a session stays the same no matter how long it is played.
+ * <p>
+ * Every run is packed into a long: the move in the upper half and its count in the lower half.
+ * The ring starts small and only grows up to its capacity as runs are added.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class MovementHistory
+{
+    private static final int INITIAL_SIZE = 8;
+
+    private long[] runs;        // a ring of runs, the oldest one at head
+    private int capacity;       // the most runs the ring grows to
+    private int head;
+    private int runCount;
+
+    /**
+     * Create an empty history.
+     * @param capacity the most runs of moves that are remembered
+     */
+    public MovementHistory(int capacity)
+    {
+        this.capacity = capacity;
+        runs = new long[Math.min(capacity, INITIAL_SIZE)];
+        head = 0;
+        runCount = 0;
+    }
+
+    /**
+     * Remembers a move.
+     * @param move the move, zero or more
+     */
+    public void push(int move)
+    {
+        if (runCount > 0)
+        {
+            int top = index(runCount - 1);
+            if (move(runs[top]) == move && count(runs[top]) < Integer.MAX_VALUE)
+            {
+                runs[top]++;
+                return;
+            }
+        }
+        makeRoom();
+        runs[index(runCount)] = (long) move << 32 | 1;
+        runCount++;
+    }
+
+    /**
+     * @return the last move, or -1 if there is none
+     */
+    public int peek()
+    {
+        if (runCount == 0)
+        {
+            return -1;
+        }
+        return move(runs[index(runCount - 1)]);
+    }
+
+    /**
+     * Forgets the last move.
+     * @return the last move, or -1 if there is none
+     */
+    public int pop()
+    {
+        if (runCount == 0)
+        {
+            return -1;
+        }
+        int top = index(runCount - 1);
+        int move = move(runs[top]);
+        runs[top]--;
+        if (count(runs[top]) == 0)
+        {
+            runCount--;
+        }
+        return move;
+    }
+
+    /**
+     * Forgets all moves.
+     */
+    public void clear()
+    {
+        head = 0;
+        runCount = 0;
+    }
+
+    /**
+     * @return true if no moves are remembered
+     */
+    public boolean isEmpty() {return runCount == 0;}
+
+    /**
+     * @return the amount of runs of moves that are remembered
+     */
+    public int getRunCount() {return runCount;}
+
+    /**
+     * Writes the remembered runs, the oldest first.
+     * @param buffer the buffer the runs are written to
+     */
+    void writeState(ByteBuffer buffer)
+    {
+        buffer.putInt(runCount);
+        for (int i = 0; i < runCount; i++)
+        {
+            buffer.putLong(runs[index(i)]);
+        }
+    }
+
+    /**
+     * Replaces the remembered runs with runs written by writeState.
+     * @param buffer the buffer the runs are read from
+     */
+    void readState(ByteBuffer buffer)
+    {
+        head = 0;
+        runCount = 0;
+        for (int i = buffer.getInt(); i > 0; i--)
+        {
+            long run = buffer.getLong();
+            makeRoom();
+            runs[index(runCount)] = run;
+            runCount++;
+        }
+    }
+
+    /**
+     * Makes room for one more run: the ring grows while it is smaller than the capacity,
+     * otherwise the oldest run is forgotten.
+     */
+    private void makeRoom()
+    {
+        if (runCount < runs.length)
+        {
+            return;
+        }
+        if (runs.length < capacity)
+        {
+            long[] larger = new long[Math.min(capacity, runs.length * 2)];
+            for (int i = 0; i < runCount; i++)
+            {
+                larger[i] = runs[index(i)];
+            }
+            runs = larger;
+            head = 0;
+        } else
+        {
+            // forget the oldest run
+            head = index(1);
+            runCount--;
+        }
+    }
+
+    /**
+     * @param position the position of a run, counted from the oldest one
+     * @return the index of the run in the ring
+     */
+    private int index(int position) {return (head + position) % runs.length;}
+
+    /**
+     * @param run a packed run
+     * @return the move of the run
+     */
+    private static int move(long run) {return (int) (run >>> 32);}
+
+    /**
+     * @param run a packed run
+     * @return how many times the move was made in a row
+     */
+    private static int count(long run) {return (int) run;}
+}
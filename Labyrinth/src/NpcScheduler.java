@@ -0,0 +1,277 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The NPC scheduler decides in which rooms the NPCs of a labyrinth can be encountered.
+ * It keeps an index of which NPC is in which room and a set of the rooms that are still free,
+ * so every move of an NPC takes the same short time, no matter how many NPCs and rooms there are.
+ * <p>
+ * NPCs and rooms are identified by numbers. An NPC that leaves its room, for example because the player
+ * has dealt with it, waits until the next step and is then placed in a free room. In every step also a
+ * limited amount of the other NPCs wander to another free room, taking turns.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class NpcScheduler
+{
+    private Listener listener;
+    private int[] occupant;         // the NPC in every room, -1 if there is none
+    private int[] freePosition;     // where every room is in freeRooms, -1 if NPCs never go there
+    private int[] freeRooms;        // the rooms NPCs can go to. The first freeCount of them are free.
+    private int roomCount;
+    private int freeCount;
+    private int[] npcRoom;          // the room of every NPC, -1 while it waits to be placed
+    private int npcCount;
+    private int[] waiting;          // the NPCs that wait to be placed
+    private int waitingCount;
+    private int nextWanderer;
+
+    /**
+     * Create a scheduler without NPCs, in which NPCs cannot go to any room yet.
+     * @param roomCount the amount of rooms in the labyrinth. Rooms are numbered from 0.
+     * @param listener is told about every NPC that moves
+     */
+    public NpcScheduler(int roomCount, Listener listener)
+    {
+        this.listener = listener;
+        occupant = new int[roomCount];
+        freePosition = new int[roomCount];
+        Arrays.fill(occupant, -1);
+        Arrays.fill(freePosition, -1);
+        freeRooms = new int[16];
+        npcRoom = new int[16];
+        waiting = new int[16];
+    }
+
+    /**
+     * Lets NPCs go to a room.
+     * @param room the number of the room
+     */
+    public void addRoom(int room)
+    {
+        if (freePosition[room] >= 0)
+        {
+            return;
+        }
+        if (roomCount == freeRooms.length)
+        {
+            freeRooms = Arrays.copyOf(freeRooms, roomCount * 2);
+        }
+        freeRooms[roomCount] = room;
+        freePosition[room] = roomCount;
+        roomCount++;
+        release(room);
+    }
+
+    /**
+     * Adds an NPC. It is placed in a room in the next step.
+     * @return the number of the new NPC
+     */
+    public int addNPC()
+    {
+        if (npcCount == npcRoom.length)
+        {
+            npcRoom = Arrays.copyOf(npcRoom, npcCount * 2);
+            waiting = Arrays.copyOf(waiting, npcCount * 2);
+        }
+        int npc = npcCount++;
+        npcRoom[npc] = -1;
+        waiting[waitingCount++] = npc;
+        return npc;
+    }
+
+    /**
+     * Takes an NPC out of its room. It is placed in another room in the next step.
+     * @param npc the number of the NPC
+     */
+    public void vacate(int npc)
+    {
+        int room = npcRoom[npc];
+        if (room < 0)
+        {
+            return;
+        }
+        occupant[room] = -1;
+        release(room);
+        npcRoom[npc] = -1;
+        waiting[waitingCount++] = npc;
+        listener.moved(npc, room, -1);
+    }
+
+    /**
+     * Places the waiting NPCs in free rooms and lets some of the other NPCs wander to another free room.
+     * Every move takes constant time, so a step costs at most the amount of waiting NPCs plus the given amount of moves.
+     * @param rand the random generator that chooses the rooms
+     * @param moves the most NPCs that wander in this step
+     */
+    public void step(Random rand, int moves)
+    {
+        while (waitingCount > 0 && freeCount > 0)
+        {
+            int npc = waiting[--waitingCount];
+            int room = takeFreeRoom(rand);
+            occupant[room] = npc;
+            npcRoom[npc] = room;
+            listener.moved(npc, -1, room);
+        }
+        for (int i = 0; i < moves && freeCount > 0 && npcCount > 0; i++)
+        {
+            int npc = nextWanderer;
+            nextWanderer = (nextWanderer + 1) % npcCount;
+            int from = npcRoom[npc];
+            if (from < 0)
+            {
+                continue;
+            }
+            // the new room is taken before the old one is freed, so the NPC really goes somewhere else
+            int to = takeFreeRoom(rand);
+            if (!listener.moved(npc, from, to))
+            {
+                release(to);
+                continue;
+            }
+            occupant[from] = -1;
+            release(from);
+            occupant[to] = npc;
+            npcRoom[npc] = to;
+        }
+    }
+
+    /**
+     * @param room the number of a room
+     * @return the number of the NPC in the room, or -1 if there is none
+     */
+    public int getOccupant(int room) {return occupant[room];}
+
+    /**
+     * @param npc the number of an NPC
+     * @return the number of the room of the NPC, or -1 if it waits to be placed
+     */
+    public int getRoom(int npc) {return npcRoom[npc];}
+
+    /**
+     * @return the amount of NPCs
+     */
+    public int getNPCCount() {return npcCount;}
+
+    /**
+     * @return the amount of rooms NPCs can go to that are free
+     */
+    public int getFreeRoomCount() {return freeCount;}
+
+    /**
+     * Writes the state of the scheduler, including the order of its free rooms, so a restored scheduler makes the same moves.
+     * @param buffer the buffer the state is written to
+     */
+    void writeState(ByteBuffer buffer)
+    {
+        buffer.putInt(roomCount);
+        buffer.putInt(freeCount);
+        for (int i = 0; i < roomCount; i++)
+        {
+            buffer.putInt(freeRooms[i]);
+        }
+        buffer.putInt(npcCount);
+        for (int i = 0; i < npcCount; i++)
+        {
+            buffer.putInt(npcRoom[i]);
+        }
+        buffer.putInt(waitingCount);
+        for (int i = 0; i < waitingCount; i++)
+        {
+            buffer.putInt(waiting[i]);
+        }
+        buffer.putInt(nextWanderer);
+    }
+
+    /**
+     * Replaces the state of the scheduler with a state written by writeState. The listener is not told about the changes.
+     * @param buffer the buffer the state is read from
+     */
+    void readState(ByteBuffer buffer)
+    {
+        Arrays.fill(occupant, -1);
+        Arrays.fill(freePosition, -1);
+        roomCount = buffer.getInt();
+        freeCount = buffer.getInt();
+        freeRooms = new int[Math.max(16, roomCount)];
+        for (int i = 0; i < roomCount; i++)
+        {
+            freeRooms[i] = buffer.getInt();
+            freePosition[freeRooms[i]] = i;
+        }
+        npcCount = buffer.getInt();
+        npcRoom = new int[Math.max(16, npcCount)];
+        waiting = new int[npcRoom.length];
+        for (int i = 0; i < npcCount; i++)
+        {
+            npcRoom[i] = buffer.getInt();
+            if (npcRoom[i] >= 0)
+            {
+                occupant[npcRoom[i]] = i;
+            }
+        }
+        waitingCount = buffer.getInt();
+        for (int i = 0; i < waitingCount; i++)
+        {
+            waiting[i] = buffer.getInt();
+        }
+        nextWanderer = buffer.getInt();
+    }
+
+    /**
+     * Takes a random free room out of the free rooms.
+     * @param rand the random generator that chooses the room
+     * @return the number of the room
+     */
+    private int takeFreeRoom(Random rand)
+    {
+        int room = freeRooms[rand.nextInt(freeCount)];
+        swap(freePosition[room], freeCount - 1);
+        freeCount--;
+        return room;
+    }
+
+    /**
+     * Puts a room back among the free rooms.
+     * @param room the number of the room
+     */
+    private void release(int room)
+    {
+        swap(freePosition[room], freeCount);
+        freeCount++;
+    }
+
+    /**
+     * Swaps two rooms in freeRooms and updates their positions.
+     * @param i the position of the first room
+     * @param j the position of the second room
+     */
+    private void swap(int i, int j)
+    {
+        int first = freeRooms[i];
+        int second = freeRooms[j];
+        freeRooms[i] = second;
+        freeRooms[j] = first;
+        freePosition[second] = i;
+        freePosition[first] = j;
+    }
+
+    /**
+     * Is told about every NPC that moves. A wandering NPC is only moved once the listener has agreed.
+     */
+    public interface Listener
+    {
+        /**
+         * @param npc the number of the NPC
+         * @param from the room it left, or -1 if it was waiting
+         * @param to the room it entered, or -1 if it left its room and waits
+         * @return false if a wandering NPC can't leave its room and must stay where it is. Ignored for other moves.
+         */
+        boolean moved(int npc, int from, int to);
+    }
+}
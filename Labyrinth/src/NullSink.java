@@ -0,0 +1,31 @@
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * An output sink that throws everything away. Used when only the state of a game matters,
+ * for example in simulations and benchmarks.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class NullSink implements OutputSink
+{
+    @Override
+    public void print(CharSequence text)
+    {
+    }
+
+    @Override
+    public void println(CharSequence text)
+    {
+    }
+
+    @Override
+    public void println()
+    {
+    }
+
+    @Override
+    public void endTurn()
+    {
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * This interface is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * An output sink receives everything the game displays to the player.
+ * The game tells the sink when a turn is over, so a sink can collect all messages
+ * of a turn and write them in one go.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public interface OutputSink
+{
+    /**
+     * Displays text without ending the line.
+     * @param text the text to be displayed
+     */
+    void print(CharSequence text);
+
+    /**
+     * Displays a line of text.
+     * @param text the text to be displayed
+     */
+    void println(CharSequence text);
+
+    /**
+     * Displays an empty line.
+     */
+    void println();
+
+    /**
+     * Called by the game when a turn is over and everything it displayed can be written.
+     */
+    void endTurn();
+}
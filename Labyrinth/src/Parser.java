@@ -22,12 +22,11 @@ public class Parser
     private Scanner reader;         // source of command input
 
     /**
-     * Create a parser to read from the terminal window.
+     * Create a parser. The terminal window is only opened when a command is first read from it.
      */
     public Parser()
     {
         commands = new CommandWords();
-        reader = new Scanner(System.in);
     }
 
     /**
@@ -35,46 +34,112 @@ public class Parser
      */
     public Command getCommand()
     {
-        String inputLine;   // will hold the full input line
-        String word1 = null;
-        String word2 = null;
-        String word3 = null;
+        if (reader == null)
+        {
+            reader = new Scanner(System.in);
+        }
 
         System.out.print("> ");     // print prompt
 
-        inputLine = reader.nextLine();
+        return parse(reader.nextLine());
+    }
+
+    /**
+     * Interpret a line of input as a command without reading from the terminal.
+     *
+     * @param inputLine The line of input to be interpreted.
+     * @return The command contained in the line.
+     */
+    public Command parse(String inputLine)
+    {
+        return parse(inputLine, new Command((CommandWord) null, null, null));
+    }
+
+    /**
+     * Interpret a line of input as a command and store it in an existing command object.
+     * The line is split into words in place and the command word is found in a perfect hash table,
+     * so nothing is created while parsing, except the text of second and third words that are not
+     * common arguments like directions or answers.
+     *
+     * @param inputLine The line of input to be interpreted.
+     * @param command The command object that receives the words of the line.
+     * @return The command object that was given.
+     */
+    public Command parse(CharSequence inputLine, Command command)
+    {
+        int length = inputLine.length();
+
+        // Find up to three words on the line.
+        int start1 = skipWhitespace(inputLine, 0, length);
+        int end1 = skipWord(inputLine, start1, length);
+        int start2 = skipWhitespace(inputLine, end1, length);
+        int end2 = skipWord(inputLine, start2, length);
+        int start3 = skipWhitespace(inputLine, end2, length);
+        int end3 = skipWord(inputLine, start3, length);
+
+        // Now check whether the first word is known. If it isn't, the command
+        // word is null (for unknown command).
+        CommandWord word1 = CommandWord.lookup(inputLine, start1, end1);
+        command.set(word1, argument(inputLine, start2, end2), argument(inputLine, start3, end3));
+        return command;
+    }
+
+    /**
+     * @param text the line of input
+     * @param position the position to start from
+     * @param length the length of the line
+     * @return the position of the first character that isn't whitespace
+     */
+    private static int skipWhitespace(CharSequence text, int position, int length)
+    {
+        while (position < length && Character.isWhitespace(text.charAt(position)))
+        {
+            position++;
+        }
+        return position;
+    }
 
-        // Find up to two words on the line.
-        Scanner tokenizer = new Scanner(inputLine);
-        if (tokenizer.hasNext())
+    /**
+     * @param text the line of input
+     * @param position the position to start from
+     * @param length the length of the line
+     * @return the position of the first whitespace character
+     */
+    private static int skipWord(CharSequence text, int position, int length)
+    {
+        while (position < length && !Character.isWhitespace(text.charAt(position)))
         {
-            word1 = tokenizer.next();      // get first word
-            if (tokenizer.hasNext())
-            {
-                word2 = tokenizer.next();      // get second word
-                if(tokenizer.hasNext()){
-                    word3 = tokenizer.next();
-                }
-            }
+            position++;
         }
+        return position;
+    }
 
-        // Now check whether this word is known. If so, create a command
-        // with it. If not, create a "null" command (for unknown command).
-        if (commands.isCommand(word1))
+    /**
+     * @param text the line of input
+     * @param start the position of the first character of the word
+     * @param end the position after the last character of the word
+     * @return the word, or null if there is no word
+     */
+    private static String argument(CharSequence text, int start, int end)
+    {
+        if (start == end)
         {
-            return new Command(word1, word2, word3);
-        } else
+            return null;
+        }
+        int index = CommandWords.ARGUMENTS.indexOf(text, start, end);
+        if (index >= 0)
         {
-            return new Command(null, word2, word3);
+            return CommandWords.ARGUMENTS.get(index);
         }
+        return text.subSequence(start, end).toString();
     }
 
     /**
-     * Print out a list of valid command words.
+     * @return A list of valid command words.
      */
-    public void showCommands()
+    public String getCommandString()
     {
-        commands.showAll();
+        return commands.getAll();
     }
 
 }
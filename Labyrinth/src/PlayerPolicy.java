@@ -0,0 +1,21 @@
+import java.util.Random;
+
+/**
+ * This interface is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A player policy decides which command a simulated player gives next.
+ * Policies are used by the balance simulator to play many games without a human player.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public interface PlayerPolicy
+{
+    /**
+     * Chooses the next command of the simulated player.
+     * @param game the game that is being played
+     * @param rand the random generator of the simulated player
+     * @return the command to be given to the game
+     */
+    Command nextCommand(Game game, Random rand);
+}
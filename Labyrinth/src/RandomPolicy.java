@@ -0,0 +1,67 @@
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A player policy that gives random commands. Most of the time it walks through a random exit,
+ * the rest of the time it picks any other command with a random answer.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class RandomPolicy implements PlayerPolicy
+{
+    private static final String[] ANSWERS = {"yes", "no", "hole"};
+    private static final String[] ENEMIES = {"Monster", "Fairy", "Wizard", "Minotaur"};
+
+    /**
+     * Chooses a random command.
+     * @param game the game that is being played
+     * @param rand the random generator of the simulated player
+     * @return the command to be given to the game
+     */
+    @Override
+    public Command nextCommand(Game game, Random rand)
+    {
+        switch (rand.nextInt(10))
+        {
+            case 0:
+                return new Command("back", null);
+            case 1:
+                return new Command("take", null);
+            case 2:
+                return new Command("answer", ANSWERS[rand.nextInt(ANSWERS.length)]);
+            case 3:
+                return new Command("fight", ENEMIES[rand.nextInt(ENEMIES.length)]);
+            case 4:
+                return new Command("run", ENEMIES[rand.nextInt(ENEMIES.length)]);
+            case 5:
+                return new Command("loot", "artefact", "" + (1 + rand.nextInt(3)));
+            default:
+                return new Command("go", randomExit(game.getCurrentRoom(), rand));
+        }
+    }
+
+    /**
+     * @param room the room the player is in
+     * @param rand the random generator of the simulated player
+     * @return the direction of a random exit of the room, or null if it has none
+     */
+    static String randomExit(Room room, Random rand)
+    {
+        int exitCount = room.getExitDirections().size();
+        if (exitCount == 0)
+        {
+            return null;
+        }
+        int chosen = rand.nextInt(exitCount);
+        for (String direction : room.getExitDirections())
+        {
+            if (chosen-- == 0)
+            {
+                return direction;
+            }
+        }
+        return null;
+    }
+}
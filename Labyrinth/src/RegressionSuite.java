@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The regression suite replays recorded games and compares their transcripts with the transcripts they are expected
+ * to produce, so a change to the game that changes what the player sees is noticed right away. Every recorded game
+ * is a script for the batch runner with a fixed seed, next to its expected transcript, which has the same name
+ * ending in .expected instead of .txt. The scripts are played in parallel by the batch runner and the whole suite
+ * takes well under a second, so it can be run after every change to the game.
+ * <p>
+ * When a change to the game is meant to change the transcripts, the suite is run with --record to replace
+ * the expected transcripts by the new ones. The differences then show up in the version history.
+ * <p>
+ * Every script is also played in a session with a command journal, and the session is recovered from the journal
+ * as after a crash. The recovered game must be in exactly the same state, and the recovery must be quick,
+ * even for scripts full of hints, which are not replayed.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class RegressionSuite
+{
+    public static final String EXPECTED_SUFFIX = ".expected";
+    public static final String DEFAULT_DIRECTORY = "regression";
+    private static final long RECOVERY_BOUND = 50;     // milliseconds
+
+    private Path suiteDirectory;
+    private int threads;
+
+    /**
+     * Create a regression suite.
+     * @param suiteDirectory the directory of the scripts and their expected transcripts
+     * @param threads the amount of scripts that are played at the same time
+     */
+    public RegressionSuite(Path suiteDirectory, int threads)
+    {
+        this.suiteDirectory = suiteDirectory;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays every script and compares its transcript with the expected one.
+     * @return a description of every script whose transcript is not as expected, empty if all of them are
+     * @throws IOException if the scripts or the transcripts cannot be read
+     * @throws InterruptedException if the suite is interrupted while the scripts are played
+     */
+    public List<String> check() throws IOException, InterruptedException
+    {
+        List<String> failures = new ArrayList<>();
+        Path outputDirectory = Files.createTempDirectory("labyrinth-regression");
+        try
+        {
+            for (BatchRunner.ScriptResult result : play(outputDirectory))
+            {
+                String name = result.getScript();
+                if (result.getOutcome().equals(BatchRunner.INVALID))
+                {
+                    failures.add(name + " cannot be read, see its transcript");
+                    continue;
+                }
+                Path expected = suiteDirectory.resolve(name + EXPECTED_SUFFIX);
+                if (!Files.exists(expected))
+                {
+                    failures.add(name + " has no expected transcript, run the suite with --record to create it");
+                    continue;
+                }
+                String difference = compare(Files.readAllLines(expected, StandardCharsets.UTF_8),
+                        Files.readAllLines(outputDirectory.resolve(name + BatchRunner.TRANSCRIPT_SUFFIX), StandardCharsets.UTF_8));
+                if (difference != null)
+                {
+                    failures.add(name + " " + difference);
+                }
+                String recovery = checkRecovery(suiteDirectory.resolve(name + BatchRunner.SCRIPT_SUFFIX));
+                if (recovery != null)
+                {
+                    failures.add(name + " " + recovery);
+                }
+            }
+        } finally
+        {
+            deleteDirectory(outputDirectory);
+        }
+        return failures;
+    }
+
+    /**
+     * Plays a script in a session with a command journal, recovers the session from the journal
+     * and compares the recovered game with the played one.
+     * @param script the file of the script
+     * @return a description of what went wrong, or null if the session has been recovered correctly
+     * @throws IOException if the script cannot be read or the journal cannot be written
+     */
+    private String checkRecovery(Path script) throws IOException
+    {
+        BatchRunner.Script commands = BatchRunner.Script.read(script, 0);
+        Path journalFile = Files.createTempFile("labyrinth-regression", ".journal");
+        try
+        {
+            GameSession played = new GameSession(commands.getSeed(), journalFile);
+            played.start();
+            for (String line : commands.getCommands())
+            {
+                if (played.isFinished())
+                {
+                    break;
+                }
+                played.execute(line);
+            }
+            played.close();
+            byte[] expected = copy(played.save(new GameSnapshot()));
+
+            long start = System.nanoTime();
+            GameSession recovered = GameSession.recover(journalFile);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            recovered.close();
+            if (!Arrays.equals(expected, copy(recovered.save(new GameSnapshot()))))
+            {
+                return "is in a different state after it is recovered from its journal";
+            } else if (millis > RECOVERY_BOUND)
+            {
+                return "took " + millis + " ms to recover from its journal, the bound is " + RECOVERY_BOUND + " ms";
+            }
+            return null;
+        } finally
+        {
+            Files.deleteIfExists(journalFile);
+        }
+    }
+
+    /**
+     * @param buffer a buffer holding a snapshot from its position to its limit
+     * @return the snapshot as an array
+     */
+    private static byte[] copy(ByteBuffer buffer)
+    {
+        byte[] state = new byte[buffer.remaining()];
+        buffer.get(state);
+        return state;
+    }
+
+    /**
+     * Plays every script and stores its transcript as the expected one.
+     * @return the amount of transcripts that were recorded
+     * @throws IOException if the scripts cannot be read or the transcripts cannot be written
+     * @throws InterruptedException if the suite is interrupted while the scripts are played
+     */
+    public int record() throws IOException, InterruptedException
+    {
+        Path outputDirectory = Files.createTempDirectory("labyrinth-regression");
+        try
+        {
+            List<BatchRunner.ScriptResult> results = play(outputDirectory);
+            for (BatchRunner.ScriptResult result : results)
+            {
+                String name = result.getScript();
+                Files.copy(outputDirectory.resolve(name + BatchRunner.TRANSCRIPT_SUFFIX),
+                        suiteDirectory.resolve(name + EXPECTED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return results.size();
+        } finally
+        {
+            deleteDirectory(outputDirectory);
+        }
+    }
+
+    /**
+     * Plays every script of the suite with the batch runner.
+     * @param outputDirectory the directory the transcripts are written to
+     * @return the results of the scripts, ordered by the name of the script
+     * @throws IOException if the scripts cannot be read or the transcripts cannot be written
+     * @throws InterruptedException if the suite is interrupted while the scripts are played
+     */
+    private List<BatchRunner.ScriptResult> play(Path outputDirectory) throws IOException, InterruptedException
+    {
+        // every script of the suite chooses its own seed
+        BatchRunner runner = new BatchRunner(threads, 0);
+        try
+        {
+            return runner.run(suiteDirectory, outputDirectory);
+        } finally
+        {
+            runner.shutdown();
+        }
+    }
+
+    /**
+     * Finds the first line in which two transcripts differ.
+     * @param expected the lines of the expected transcript
+     * @param actual the lines of the transcript the game has produced
+     * @return a description of the first difference, or null if the transcripts are the same
+     */
+    static String compare(List<String> expected, List<String> actual)
+    {
+        int lines = Math.min(expected.size(), actual.size());
+        for (int i = 0; i < lines; i++)
+        {
+            if (!expected.get(i).equals(actual.get(i)))
+            {
+                return "differs at line " + (i + 1) + ":\n  expected: " + expected.get(i) + "\n  actual:   " + actual.get(i);
+            }
+        }
+        if (expected.size() > actual.size())
+        {
+            return "ends early at line " + (lines + 1) + ", expected: " + expected.get(lines);
+        } else if (actual.size() > expected.size())
+        {
+            return "goes on after line " + lines + " with: " + actual.get(lines);
+        }
+        return null;
+    }
+
+    /**
+     * Deletes a directory of transcripts.
+     * @param directory the directory
+     * @throws IOException if the directory cannot be deleted
+     */
+    private static void deleteDirectory(Path directory) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+            {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Runs the regression suite from the command line. The program exits with status 1 if a script fails.
+     * Usage: RegressionSuite [suite directory] [--record]
+     * @param args the directory of the suite, "regression" by default, and --record to store the transcripts as expected
+     * @throws IOException if the suite cannot be read or written
+     * @throws InterruptedException if the suite is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        boolean record = false;
+        Path directory = Path.of(DEFAULT_DIRECTORY);
+        for (String arg : args)
+        {
+            if (arg.equals("--record"))
+            {
+                record = true;
+            } else
+            {
+                directory = Path.of(arg);
+            }
+        }
+        RegressionSuite suite = new RegressionSuite(directory, Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        if (record)
+        {
+            int recorded = suite.record();
+            System.out.printf("Recorded %d transcripts in %s%n", recorded, directory);
+            return;
+        }
+        List<String> failures = suite.check();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (String failure : failures)
+        {
+            System.out.println("FAILED " + failure);
+        }
+        if (!failures.isEmpty())
+        {
+            System.out.printf("%d scripts failed the regression suite (%.2f s)%n", failures.size(), seconds);
+            System.exit(1);
+        }
+        System.out.printf("All transcripts are as expected and all sessions recover from their journals (%.2f s)%n", seconds);
+    }
+}
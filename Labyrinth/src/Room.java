@@ -1,7 +1,9 @@
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.HashMap;
 
 /**
  * Class Room - a room in an adventure game.
@@ -12,6 +14,14 @@ import java.util.HashMap;
  * A "Room" represents one location in the scenery of the game.  It is
  * connected to other rooms via exits.  For each existing exit, the room
  * stores a reference to the neighboring room.
+ * <p>
+ * The exits are kept in an array indexed by their direction, in the order they are always
+ * listed (north, south, east, west, up, down, forward, backward, left, right), and the line
+ * listing them is only built again after they have changed.
+ * <p>
+ * A room of a game played in a world refers to the immutable world graph for its description and its exits.
+ * Only when the game changes the exits of the room, the room gets its own copy of them, so a game only holds
+ * the exits it has changed. The artefacts and NPC of a room are also only allocated once something is put in it.
  *
  * @author Michael Kölling and David J. Barnes
  * @version 2022.12.01
@@ -19,39 +29,75 @@ import java.util.HashMap;
 
 public class Room
 {
-    private String description;
-    private NPC npc;
-    private List<Artefact> artefactList;
-    private HashMap<String, Room> exits;        // stores exits of this room.
+    // the directions an exit can have, in the order in which exits are listed
+    static final List<String> DIRECTION_ORDER = List.of("north", "south", "east", "west", "up", "down", "forward", "backward", "left", "right");
+    static final Comparator<String> EXIT_ORDER = Comparator.comparingInt(DIRECTION_ORDER::indexOf);
+
+    private int id;
+    private String description;                     // null for the rooms of a world graph
+    private WorldGraph graph;                       // null for rooms created with a description
+    private Room[] labyrinth;                       // the rooms of the same game, indexed by id, for the exits of the graph
+    private RoomContents contents;                  // the artefacts and the NPC, null while the room is empty
+    private Room[] exits;                           // the exits of this room, indexed by direction. null while they are those of the graph.
+    private Set<String> exitDirections;             // the cached directions of the exits, null after the exits have changed
+    private String exitString;                      // the cached exit line, null after the exits have changed
+    private byte[] exitBytes;                       // the cached exit line in UTF-8, null after the exits have changed
 
     /**
      * Create a room described "description". Initially, it has
      * no exits. "description" is something like "a kitchen" or
      * "an open courtyard".
      *
+     * @param id          The number that identifies the room within its labyrinth.
      * @param description The room's description.
      */
-    public Room(String description)
+    public Room(int id, String description)
     {
+        this.id = id;
         this.description = description;
-        artefactList = new ArrayList<>();
-        npc = null;
-        exits = new HashMap<>();
+        exits = new Room[DIRECTION_ORDER.size()];
+    }
+
+    /**
+     * Create a game's view of a room of a world graph. Initially, it has the exits
+     * the room starts with in the graph.
+     *
+     * @param id        The number that identifies the room within its labyrinth and its world.
+     * @param graph     The world graph that describes the room.
+     * @param labyrinth The rooms of the game, indexed by id. The exits of the graph lead to them.
+     */
+    public Room(int id, WorldGraph graph, Room[] labyrinth)
+    {
+        this.id = id;
+        this.graph = graph;
+        this.labyrinth = labyrinth;
+    }
+
+    /**
+     * Create one player's view of a room of a shared world. The exits belong to the view,
+     * the artefacts and the NPC are shared with the views of the other players.
+     *
+     * @param id        The number that identifies the room within its labyrinth and its world.
+     * @param graph     The world graph that describes the room.
+     * @param labyrinth The rooms of the player's game, indexed by id.
+     * @param contents  The contents of the room, shared by all players.
+     */
+    public Room(int id, WorldGraph graph, Room[] labyrinth, RoomContents contents)
+    {
+        this(id, graph, labyrinth);
+        this.contents = contents;
     }
 
     /**
      * Prints all available for pick up artefacts in the room + their weight.
+     *
+     * @param out The output sink the artefacts are printed to.
      */
-    public void printRoomArtefacts()
+    public void printRoomArtefacts(OutputSink out)
     {
-        if (artefactList.size() == 0)
-        {
-            return;
-        }
-        System.out.println("The room you're in contains the following artefacts:");
-        for (int i = 0; i < artefactList.size(); i++)
+        if (contents != null)
         {
-            System.out.println("" + (i + 1) + ": " + artefactList.get(i).getName() + " | Weight - " + artefactList.get(i).getWeight());
+            contents.printArtefacts(out);
         }
     }
 
@@ -63,13 +109,42 @@ public class Room
      */
     public String getExitString()
     {
-        String returnString = "Exits:";
-        Set<String> keys = exits.keySet();
-        for (String exit : keys)
+        if (exits == null)
+        {
+            return graph.getExitString(id);
+        }
+        if (exitString == null)
+        {
+            StringBuilder builder = new StringBuilder("Exits:");
+            for (int i = 0; i < exits.length; i++)
+            {
+                if (exits[i] != null)
+                {
+                    builder.append(' ').append(DIRECTION_ORDER.get(i));
+                }
+            }
+            exitString = builder.toString();
+        }
+        return exitString;
+    }
+
+    /**
+     * Return the same line as getExitString, encoded in UTF-8, for example for sending it over the network.
+     * The array is shared and must not be changed.
+     *
+     * @return Details of the room's exits in UTF-8.
+     */
+    public byte[] getExitBytes()
+    {
+        if (exits == null)
+        {
+            return graph.getExitBytes(id);
+        }
+        if (exitBytes == null)
         {
-            returnString += " " + exit;
+            exitBytes = getExitString().getBytes(StandardCharsets.UTF_8);
         }
-        return returnString;
+        return exitBytes;
     }
 
     /*
@@ -79,27 +154,130 @@ public class Room
     /**
      * Define an exit from this room.
      *
-     * @param direction The direction of the exit.
+     * @param direction The direction of the exit, one of DIRECTION_ORDER.
      * @param neighbor  The room to which the exit leads.
+     * @throws IllegalArgumentException if the direction is not one of DIRECTION_ORDER
      */
-    public void setExit(String direction, Room neighbor) {exits.put(direction, neighbor);}
+    public void setExit(String direction, Room neighbor)
+    {
+        int index = DIRECTION_ORDER.indexOf(direction);
+        if (index < 0)
+        {
+            throw new IllegalArgumentException(direction + " is not a direction.");
+        }
+        if (exits == null)
+        {
+            if (getExit(direction) == neighbor)
+            {
+                return;
+            }
+            copyExits();
+        }
+        if (exits[index] != neighbor)
+        {
+            exits[index] = neighbor;
+            exitsChanged();
+        }
+    }
 
     /**
      * Removes the exit of a room given a specific direction.
      */
-    public void removeExit(String direction) {exits.remove(direction);}
+    public void removeExit(String direction)
+    {
+        if (exits == null)
+        {
+            if (!hasExit(direction))
+            {
+                return;
+            }
+            copyExits();
+        }
+        int index = DIRECTION_ORDER.indexOf(direction);
+        if (index >= 0 && exits[index] != null)
+        {
+            exits[index] = null;
+            exitsChanged();
+        }
+    }
+
+    /**
+     * Removes all artefacts and the NPC of the room and gives it the exits it starts with again,
+     * for example before a saved game is restored into it. A room of a world graph forgets its copy of the exits,
+     * any other room loses all its exits.
+     */
+    public void clear()
+    {
+        exits = graph == null ? new Room[DIRECTION_ORDER.size()] : null;
+        if (contents != null)
+        {
+            contents.clear();
+        }
+        exitsChanged();
+    }
 
     /**
      * @param direction the direction of the exit
      * @return true if an exit exists in that direction
      */
-    public boolean hasExit(String direction) {return exits.containsKey(direction);}
+    public boolean hasExit(String direction) {return getExit(direction) != null;}
+
+    /**
+     * Copies the exits of the world graph into the room, before the room changes them.
+     */
+    private void copyExits()
+    {
+        exits = new Room[DIRECTION_ORDER.size()];
+        for (int i = 0; i < graph.getExitCount(id); i++)
+        {
+            exits[DIRECTION_ORDER.indexOf(graph.getExitDirection(id, i))] = labyrinth[graph.getExitTarget(id, i)];
+        }
+    }
+
+    /**
+     * Forgets the cached exit line, so it is built again the next time it is needed.
+     */
+    private void exitsChanged()
+    {
+        exitDirections = null;
+        exitString = null;
+        exitBytes = null;
+    }
+
+    /**
+     * @return The number that identifies the room within its labyrinth.
+     */
+    public int getId() {return id;}
+
+    /**
+     * @return The directions of all exits of this room, in the order they are listed.
+     */
+    public Set<String> getExitDirections()
+    {
+        if (exits == null)
+        {
+            return graph.getExitDirections(id);
+        }
+        if (exitDirections == null)
+        {
+            Set<String> directions = new LinkedHashSet<>();
+            for (int i = 0; i < exits.length; i++)
+            {
+                if (exits[i] != null)
+                {
+                    directions.add(DIRECTION_ORDER.get(i));
+                }
+            }
+            exitDirections = Collections.unmodifiableSet(directions);
+        }
+        return exitDirections;
+    }
 
     /**
      * @return The short description of the room
      * (the one that was defined in the constructor).
      */
-    public String getShortDescription() {return "You are " + description;}
+    public String getShortDescription() {return "You are " + getDescription();}
 
     /**
      * Return a description of the room in the form:
@@ -110,7 +288,19 @@ public class Room
      */
     public String getLongDescription()
     {
-        return "You are " + description + ".\n" + getExitString();
+        return "You are " + getDescription() + ".\n" + getExitString();
+    }
+
+    /**
+     * @return The description of the room, taken from its world graph if it wasn't given one.
+     */
+    private String getDescription()
+    {
+        if (description == null)
+        {
+            return graph.getDescription(id);
+        }
+        return description;
     }
 
     /**
@@ -120,45 +310,74 @@ public class Room
      * @param direction The exit's direction.
      * @return The room in the given direction.
      */
-    public Room getExit(String direction) {return exits.get(direction);}
+    public Room getExit(String direction)
+    {
+        if (exits == null)
+        {
+            int target = graph.findExit(id, direction);
+            return target < 0 ? null : labyrinth[target];
+        }
+        int index = DIRECTION_ORDER.indexOf(direction);
+        return index < 0 ? null : exits[index];
+    }
 
     /**
      * Adds an artefact to the artefacts in the room
      * @param input the artefact to be added
      */
-    public void addArtefact(Artefact input) {artefactList.add(input);}
+    public void addArtefact(Artefact input) {getContents().addArtefact(input);}
 
     /**
      * @param index the place of the artefact to be returned
-     * @return the artefact at the specific index
+     * @return the artefact at the specific index, or null if there are not that many artefacts
      */
-    public Artefact getArtefact(int index) {return artefactList.get(index);}
+    public Artefact getArtefact(int index) {return contents == null ? null : contents.getArtefact(index);}
 
     /**
      * Removes an artefact from the room when it is picked up by the player
      * @param art the artefact that is being removed
+     * @return true if the artefact was removed, false if another player has already picked it up
      */
-    public void removeArtefact(Artefact art) {artefactList.remove(art);}
+    public boolean removeArtefact(Artefact art) {return contents != null && contents.removeArtefact(art);}
 
     /**
      * @return the amount of artefacts in the room
      */
-    public int getArtefactCount() {return artefactList.size();}
+    public int getArtefactCount() {return contents == null ? 0 : contents.getArtefactCount();}
 
     /**
      * Assigns an NPC to the room
      * @param input the NPC being assigned to the room
      */
-    public void setNPC(NPC input){npc = input;}
+    public void setNPC(NPC input){getContents().setNPC(input);}
 
     /**
      * @return the NPC that is assigned to the room
      */
-    public NPC getNPC(){return npc;}
+    public NPC getNPC(){return contents == null ? null : contents.getNPC();}
 
     /**
      * @return true if the room has an assigned NPC
      */
-    public boolean hasNPC(){return (npc != null);}
+    public boolean hasNPC(){return getNPC() != null;}
+
+    /**
+     * Makes an NPC leave the room, unless it has already left.
+     * @param expected the NPC that should leave
+     * @return true if the NPC has left, false if it wasn't in the room anymore
+     */
+    public boolean removeNPC(NPC expected) {return contents != null && contents.removeNPC(expected);}
+
+    /**
+     * @return the contents of the room, created when something is first put in the room
+     */
+    private RoomContents getContents()
+    {
+        if (contents == null)
+        {
+            contents = new RoomContents();
+        }
+        return contents;
+    }
 }
 
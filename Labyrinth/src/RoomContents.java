@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The contents of a room are the things in it that every player sees the same way: its artefacts and its NPC.
+ * The exits are not part of the contents, because every player has their own view of them.
+ * <p>
+ * In a single player game every room has its own contents. In a shared world the rooms of all players
+ * with the same id share one contents object, so every room is guarded by its own lock and players in
+ * different rooms never wait for each other. Every method is a complete operation on its own, and a method
+ * never takes the lock of another room, so the locks cannot deadlock.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class RoomContents
+{
+    private List<Artefact> artefactList;
+    private NPC npc;
+
+    /**
+     * Create empty contents, without artefacts and without an NPC.
+     */
+    public RoomContents()
+    {
+        artefactList = new ArrayList<>();
+        npc = null;
+    }
+
+    /**
+     * Prints all artefacts that are in the room, with their weight.
+     * @param out the output sink the artefacts are printed to
+     */
+    public synchronized void printArtefacts(OutputSink out)
+    {
+        if (artefactList.size() == 0)
+        {
+            return;
+        }
+        out.println("The room you're in contains the following artefacts:");
+        for (int i = 0; i < artefactList.size(); i++)
+        {
+            out.println("" + (i + 1) + ": " + artefactList.get(i).getName() + " | Weight - " + artefactList.get(i).getWeight());
+        }
+    }
+
+    /**
+     * @param artefact the artefact to be added to the room
+     */
+    public synchronized void addArtefact(Artefact artefact) {artefactList.add(artefact);}
+
+    /**
+     * @param index the place of the artefact
+     * @return the artefact at the place, or null if there are not that many artefacts
+     */
+    public synchronized Artefact getArtefact(int index) {return index < artefactList.size() ? artefactList.get(index) : null;}
+
+    /**
+     * Takes an artefact out of the room.
+     * @param artefact the artefact to be taken
+     * @return true if the artefact was taken, false if it wasn't in the room anymore
+     */
+    public synchronized boolean removeArtefact(Artefact artefact) {return artefactList.remove(artefact);}
+
+    /**
+     * @return the amount of artefacts in the room
+     */
+    public synchronized int getArtefactCount() {return artefactList.size();}
+
+    /**
+     * @param npc the NPC that is now in the room, or null if there is none
+     */
+    public synchronized void setNPC(NPC npc) {this.npc = npc;}
+
+    /**
+     * @return the NPC in the room, or null if there is none
+     */
+    public synchronized NPC getNPC() {return npc;}
+
+    /**
+     * Makes an NPC leave the room, unless it has already left.
+     * @param expected the NPC that should leave
+     * @return true if the NPC has left, false if it wasn't in the room anymore
+     */
+    public synchronized boolean removeNPC(NPC expected)
+    {
+        if (npc != expected || npc == null)
+        {
+            return false;
+        }
+        npc = null;
+        return true;
+    }
+
+    /**
+     * Removes all artefacts and the NPC.
+     */
+    public synchronized void clear()
+    {
+        artefactList.clear();
+        npc = null;
+    }
+}
@@ -0,0 +1,637 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The route solver finds the shortest way to win a game from its current state.
+ * A game always plays out the same way when it is given the same commands, so the solver
+ * tries the useful commands in every state with a breadth first search and returns the first
+ * sequence of commands that wins the game.
+ * <p>
+ * States are saved as snapshots and played on a scratch game. A state that has already been reached
+ * is recognised by a 64-bit key made of the room, the previous room, the floor of the staircase,
+ * the positions in the corridors, the items and state flags and a hash of all exits of the labyrinth,
+ * which is kept in an open addressing set of longs. The last route is remembered with the state before
+ * each of its steps, so a player who follows the hints gets the next one without a new search.
+ * <p>
+ * A full search from the start of a game can take seconds, which is far too long for a hint. A hint therefore only
+ * searches a few thousand states. When no win is found among them, the speedrun policy is played out from the current
+ * state, which gives a route that wins but is not always the shortest. When that fails too, the hint is the way
+ * to the state with the most legendary items found by the search, so the player at least makes progress.
+ * <p>
+ * Run as a program, it checks that the game can be won for every one of the 64 numbers on Ariadna's Thread,
+ * and that no hint takes longer than HINT_LATENCY_BOUND milliseconds.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class RouteSolver
+{
+    private static final int MAX_STATES = 1 << 18;
+    private static final int HINT_STATES = 1 << 10;
+    private static final int MAX_PLAYOUT_TURNS = 500;
+    private static final long HINT_LATENCY_BOUND = 100;
+    private static final int MAX_CORRIDOR_ROOM = 20;
+    private static final String[] DIRECTIONS = {"north", "south", "east", "west", "up", "down", "forward", "backward", "left", "right"};
+    private static final Command[] COMMANDS = new Command[DIRECTIONS.length + 10];
+    private static final int TAKE = DIRECTIONS.length;
+    private static final int BACK = TAKE + 1;
+    private static final int ANSWER_HOLE = TAKE + 2;
+    private static final int ANSWER_YES = TAKE + 3;
+    private static final int ANSWER_NO = TAKE + 4;
+    private static final int FIGHT_MONSTER = TAKE + 5;
+    private static final int RUN_MONSTER = TAKE + 6;
+    private static final int FIGHT_MINOTAUR = TAKE + 7;
+    private static final int RUN_MINOTAUR = TAKE + 8;
+    private static final int PRESS = TAKE + 9;
+
+    // for every room, the previous rooms that change what its handler does. Other previous rooms are all the same.
+    private static final int[] RELEVANT_PREVIOUS_ROOMS = new int[Game.ROOM_COUNT];
+
+    static
+    {
+        RELEVANT_PREVIOUS_ROOMS[Game.MAIN_HALL] = 1 << Game.PUZZLE_ROOM | 1 << Game.SECRET_CORRIDOR;
+        RELEVANT_PREVIOUS_ROOMS[Game.ENDLESS_CORRIDOR] = 1 << Game.MAIN_HALL;
+        RELEVANT_PREVIOUS_ROOMS[Game.PUZZLE_ROOM] = 1 << Game.TREASURY;
+        RELEVANT_PREVIOUS_ROOMS[Game.TREASURY] = 1 << Game.PUZZLE_ROOM;
+        RELEVANT_PREVIOUS_ROOMS[Game.SPIRAL_STAIRCASE] = 1 << Game.MAIN_HALL | 1 << Game.PIT | 1 << Game.CENTRE;
+        RELEVANT_PREVIOUS_ROOMS[Game.BINARY_CORRIDOR] = 1 << Game.MAIN_HALL | 1 << Game.CENTRE;
+        RELEVANT_PREVIOUS_ROOMS[Game.MYSTERY_ROOM] = 1 << Game.TREASURY;
+        for (int i = 0; i < DIRECTIONS.length; i++)
+        {
+            COMMANDS[i] = new Command(CommandWord.GO, DIRECTIONS[i], null);
+        }
+        COMMANDS[TAKE] = new Command(CommandWord.TAKE, null, null);
+        COMMANDS[BACK] = new Command(CommandWord.BACK, null, null);
+        COMMANDS[ANSWER_HOLE] = new Command(CommandWord.ANSWER, "hole", null);
+        COMMANDS[ANSWER_YES] = new Command(CommandWord.ANSWER, "yes", null);
+        COMMANDS[ANSWER_NO] = new Command(CommandWord.ANSWER, "no", null);
+        COMMANDS[FIGHT_MONSTER] = new Command(CommandWord.FIGHT, "Monster", null);
+        COMMANDS[RUN_MONSTER] = new Command(CommandWord.RUN, "Monster", null);
+        COMMANDS[FIGHT_MINOTAUR] = new Command(CommandWord.FIGHT, "Minotaur", null);
+        COMMANDS[RUN_MINOTAUR] = new Command(CommandWord.RUN, "Minotaur", null);
+        COMMANDS[PRESS] = new Command(CommandWord.PRESS, null, null);
+    }
+
+    private GameSnapshot snapshot;
+    private Game scratch;
+    private VisitedSet visited;
+    private int[] moves;
+    private PlayerPolicy playout;
+    private Node bestNode;              // the state with the most progress found by the last search
+    private int bestProgress;
+    private boolean exhausted;          // true if the last search has tried every reachable state
+    private Hint lastHint;
+    private byte[][] lastStates;        // the state before every step of the last route
+
+    /**
+     * Create a solver. It can be used for any number of games, but only by one thread at a time.
+     */
+    public RouteSolver()
+    {
+        snapshot = new GameSnapshot();
+        scratch = new Game(new GameSettings(), 0, new NullSink());
+        // the turns the solver tries are not played by anyone, so they are kept out of the global metrics
+        scratch.setMetrics(new GameMetrics());
+        visited = new VisitedSet();
+        moves = new int[COMMANDS.length];
+        playout = new SpeedrunPolicy();
+    }
+
+    /**
+     * Finds the shortest sequence of commands that wins a game from its current state. The game itself is not changed.
+     * @param game the game to be solved
+     * @return the commands, or null if the game cannot be won from its current state
+     */
+    public List<Command> solve(Game game)
+    {
+        if (game.getOutcome() != GameOutcome.PLAYING)
+        {
+            return null;
+        }
+        byte[] root = copy(snapshot.write(game));
+        Hint cached = followedRoute(root);
+        if (cached != null && cached.isShortest())
+        {
+            return cached.getCommands();
+        }
+        List<Command> route = search(game, root, MAX_STATES);
+        return route == null ? null : remember(root, new Hint(route, true, true)).getCommands();
+    }
+
+    /**
+     * Finds a way forward from the current state of a game within a few milliseconds. The game itself is not changed.
+     * @param game the game the player asks a hint for
+     * @return the hint, with no commands if no way forward has been found in time,
+     * or null if the game cannot be won from its current state
+     */
+    public Hint hint(Game game)
+    {
+        if (game.getOutcome() != GameOutcome.PLAYING)
+        {
+            return null;
+        }
+        byte[] root = copy(snapshot.write(game));
+        Hint cached = followedRoute(root);
+        if (cached != null)
+        {
+            return cached;
+        }
+        List<Command> route = search(game, root, HINT_STATES);
+        if (route != null)
+        {
+            return remember(root, new Hint(route, true, true));
+        }
+        if (exhausted)
+        {
+            return null;
+        }
+        route = playOut(root);
+        if (route != null)
+        {
+            return remember(root, new Hint(route, true, false));
+        }
+        if (bestNode == null)
+        {
+            return new Hint(List.of(), false, false);
+        }
+        return remember(root, new Hint(route(bestNode), false, false));
+    }
+
+    /**
+     * @param root the snapshot of the current state of a game
+     * @return the rest of the last route if the state is one of its steps, or null
+     */
+    private Hint followedRoute(byte[] root)
+    {
+        for (int i = 0; lastStates != null && i < lastStates.length; i++)
+        {
+            if (Arrays.equals(lastStates[i], root))
+            {
+                // the player has followed the last route so far
+                List<Command> commands = lastHint.getCommands();
+                return new Hint(commands.subList(i, commands.size()), lastHint.isComplete(), lastHint.isShortest());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Searches the states of a game breadth first for the shortest way to win it.
+     * Remembers the state with the most progress and whether every reachable state has been tried.
+     * @param game the game to be solved
+     * @param root the snapshot of the current state of the game
+     * @param maxStates the most states that are searched
+     * @return the commands that win the game, or null if no win is found among the states
+     */
+    private List<Command> search(Game game, byte[] root, int maxStates)
+    {
+        visited.clear();
+        visited.add(key(game));
+        bestNode = null;
+        bestProgress = progress(game);
+        exhausted = false;
+        List<Node> frontier = new ArrayList<>();
+        frontier.add(new Node(null, -1, root));
+        int stateCount = 1;
+
+        while (!frontier.isEmpty())
+        {
+            List<Node> next = new ArrayList<>();
+            for (Node node : frontier)
+            {
+                GameSnapshot.restore(ByteBuffer.wrap(node.state), scratch);
+                int moveCount = findMoves(scratch);
+                for (int i = 0; i < moveCount; i++)
+                {
+                    if (i > 0)
+                    {
+                        GameSnapshot.restore(ByteBuffer.wrap(node.state), scratch);
+                    }
+                    try
+                    {
+                        scratch.playTurn(COMMANDS[moves[i]]);
+                    } catch (RuntimeException e)
+                    {
+                        // a command that breaks the game is no way to win it
+                        continue;
+                    }
+                    if (scratch.getOutcome() == GameOutcome.WON)
+                    {
+                        return route(new Node(node, moves[i], null));
+                    }
+                    if (scratch.getOutcome() != GameOutcome.PLAYING
+                            || scratch.getEndlessCorridorRoom() < 0 || scratch.getEndlessCorridorRoom() > MAX_CORRIDOR_ROOM
+                            || !visited.add(key(scratch)))
+                    {
+                        continue;
+                    }
+                    if (++stateCount > maxStates)
+                    {
+                        return null;
+                    }
+                    Node child = new Node(node, moves[i], copy(snapshot.write(scratch)));
+                    int progress = progress(scratch);
+                    if (progress > bestProgress)
+                    {
+                        bestNode = child;
+                        bestProgress = progress;
+                    }
+                    next.add(child);
+                }
+                node.state = null;
+            }
+            frontier = next;
+        }
+        exhausted = true;
+        return null;
+    }
+
+    /**
+     * Plays the speedrun policy from a state on the scratch game.
+     * @param root the snapshot of the state
+     * @return the commands of the policy if they win the game, otherwise null
+     */
+    private List<Command> playOut(byte[] root)
+    {
+        GameSnapshot.restore(ByteBuffer.wrap(root), scratch);
+        List<Command> route = new ArrayList<>();
+        for (int turn = 0; turn < MAX_PLAYOUT_TURNS && scratch.getOutcome() == GameOutcome.PLAYING; turn++)
+        {
+            // the speedrun policy never looks at the random generator
+            Command command = playout.nextCommand(scratch, null);
+            route.add(command);
+            try
+            {
+                scratch.playTurn(command);
+            } catch (RuntimeException e)
+            {
+                return null;
+            }
+        }
+        return scratch.getOutcome() == GameOutcome.WON ? Collections.unmodifiableList(route) : null;
+    }
+
+    /**
+     * @param game a game
+     * @return how far the player has come: the amount of legendary items, and more once the Minotaur is defeated
+     */
+    private static int progress(Game game)
+    {
+        int items = 0;
+        for (LegendaryItem item : LegendaryItem.values())
+        {
+            if (game.hasItem(item))
+            {
+                items++;
+            }
+        }
+        return game.isVictory() ? items + LegendaryItem.values().length + 1 : items;
+    }
+
+    /**
+     * Keeps a route together with the state before each of its steps, so the rest of the route
+     * is found at once when the player asks again after following it.
+     * @param root the snapshot of the state the route starts in
+     * @param hint the route
+     * @return the route
+     */
+    private Hint remember(byte[] root, Hint hint)
+    {
+        List<Command> route = hint.getCommands();
+        lastHint = hint;
+        lastStates = new byte[route.size()][];
+        lastStates[0] = root;
+        GameSnapshot.restore(ByteBuffer.wrap(root), scratch);
+        for (int i = 1; i < lastStates.length; i++)
+        {
+            scratch.playTurn(route.get(i - 1));
+            lastStates[i] = copy(snapshot.write(scratch));
+        }
+        return hint;
+    }
+
+    /**
+     * Collects the commands that can change the state of a game in its current room into moves.
+     * @param game the game
+     * @return the amount of commands
+     */
+    private int findMoves(Game game)
+    {
+        Room room = game.getCurrentRoom();
+        int count = 0;
+        for (int i = 0; i < DIRECTIONS.length; i++)
+        {
+            if (room.hasExit(DIRECTIONS[i]))
+            {
+                moves[count++] = i;
+            }
+        }
+        moves[count++] = TAKE;
+        moves[count++] = BACK;
+        switch (room.getId())
+        {
+            case Game.PUZZLE_ROOM -> moves[count++] = ANSWER_HOLE;
+            case Game.MYSTERY_ROOM -> moves[count++] = PRESS;
+            case Game.CENTRE ->
+            {
+                moves[count++] = FIGHT_MINOTAUR;
+                moves[count++] = RUN_MINOTAUR;
+            }
+            default ->
+            {
+            }
+        }
+        if (room.hasNPC() && room.getId() != Game.CENTRE)
+        {
+            moves[count++] = ANSWER_YES;
+            moves[count++] = ANSWER_NO;
+            if (room.getNPC().getType().equals("Monster"))
+            {
+                moves[count++] = FIGHT_MONSTER;
+                moves[count++] = RUN_MONSTER;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Encodes the state of a game that matters for finding a route into 64 bits.
+     * The lower half holds the exact position and items of the player, the upper half a hash of all exits.
+     * @param game the game
+     * @return the key of the state, never 0
+     */
+    private static long key(Game game)
+    {
+        Room room = game.getCurrentRoom();
+        Room previous = game.getPreviousRoom();
+        long key = room.getId();
+        if (previous != null && (RELEVANT_PREVIOUS_ROOMS[room.getId()] & 1 << previous.getId()) != 0)
+        {
+            key |= (long) previous.getId() << 4;
+        } else
+        {
+            key |= 15L << 4;
+        }
+        key |= (long) (game.getStaircaseLevel() + 32 & 63) << 8;
+        key |= (long) (game.getEndlessCorridorRoom() + 32 & 63) << 14;
+        key |= (long) (game.getBinaryRoom() + 8 & 15) << 20;
+        key |= (long) (game.getFlags() & 127) << 24;
+        if (room.hasNPC() && room.getNPC().getType().equals("Monster"))
+        {
+            key |= 1L << 31;
+        }
+
+        // the exits are added up, so the order in which a room lists them doesn't matter
+        long exitHash = 0;
+        for (int id = 0; id < Game.ROOM_COUNT; id++)
+        {
+            Room current = game.getRoom(id);
+            for (String direction : current.getExitDirections())
+            {
+                long exit = (id * 32L + CommandWords.ARGUMENTS.indexOf(direction)) * 16 + current.getExit(direction).getId();
+                exitHash += (exit + 1) * 0x9E3779B97F4A7C15L >>> 17;
+            }
+        }
+        return key | (exitHash & 0x7FFFFFFFL) << 32 | 1L << 63;
+    }
+
+    /**
+     * @param node the node of the winning move
+     * @return the commands that lead from the first state to the node
+     */
+    private static List<Command> route(Node node)
+    {
+        List<Command> route = new ArrayList<>();
+        for (Node current = node; current.parent != null; current = current.parent)
+        {
+            route.add(COMMANDS[current.move]);
+        }
+        Collections.reverse(route);
+        return Collections.unmodifiableList(route);
+    }
+
+    /**
+     * @param buffer a buffer holding a snapshot from its position to its limit
+     * @return the snapshot as an array
+     */
+    private static byte[] copy(ByteBuffer buffer)
+    {
+        byte[] state = new byte[buffer.remaining()];
+        buffer.get(state);
+        return state;
+    }
+
+    /**
+     * Checks that the game can be won for every number on Ariadna's Thread, by solving the first seed that has each number.
+     * The numbers are solved in parallel, with one solver per thread.
+     * @param args not used
+     */
+    public static void main(String[] args)
+    {
+        long[] seeds = new long[64];
+        Arrays.fill(seeds, -1);
+        int found = 0;
+        for (long seed = 0; found < seeds.length; seed++)
+        {
+            int thread = Integer.parseInt(new Game(new GameSettings(), seed, new NullSink()).getThreadNumber(), 2);
+            if (seeds[thread] < 0)
+            {
+                seeds[thread] = seed;
+                found++;
+            }
+        }
+
+        long start = System.nanoTime();
+        ThreadLocal<RouteSolver> solvers = ThreadLocal.withInitial(RouteSolver::new);
+        int[] steps = IntStream.range(0, seeds.length).parallel().map(thread ->
+        {
+            List<Command> route = solvers.get().solve(new Game(new GameSettings(), seeds[thread], new NullSink()));
+            return route == null ? -1 : route.size();
+        }).toArray();
+
+        int unsolved = 0;
+        for (int thread = 0; thread < seeds.length; thread++)
+        {
+            String number = Integer.toBinaryString(thread | 1 << 6).substring(1);
+            if (steps[thread] < 0)
+            {
+                unsolved++;
+                System.out.println(number + "  seed " + seeds[thread] + "  cannot be won");
+            } else
+            {
+                System.out.println(number + "  seed " + seeds[thread] + "  won in " + steps[thread] + " steps");
+            }
+        }
+        System.out.printf("Solved %d of %d thread numbers in %.2f s%n", seeds.length - unsolved, seeds.length,
+                (System.nanoTime() - start) / 1e9);
+
+        long slowest = checkHintLatency(seeds);
+        System.out.printf("The slowest hint took %.1f ms, the bound is %d ms%n", slowest / 1e6, HINT_LATENCY_BOUND);
+        if (unsolved > 0 || slowest > HINT_LATENCY_BOUND * 1_000_000)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Asks for a hint on every turn of a wandering player, for the first game of every thread number.
+     * The player doesn't follow the hints, so nearly every hint needs a new search.
+     * The games are played twice and only the second time is measured, once the code has been compiled.
+     * @param seeds the seed of a game for every thread number
+     * @return the time the slowest hint took, in nanoseconds
+     */
+    private static long checkHintLatency(long[] seeds)
+    {
+        RouteSolver solver = new RouteSolver();
+        PlayerPolicy player = new ExplorerPolicy();
+        long slowest = 0;
+        for (int round = 0; round < 2; round++)
+        {
+            slowest = 0;
+            for (long seed : seeds)
+            {
+                Game game = new Game(new GameSettings(), seed, new NullSink());
+                Random rand = new Random(seed);
+                for (int turn = 0; turn < 40 && game.getOutcome() == GameOutcome.PLAYING; turn++)
+                {
+                    long hintStart = System.nanoTime();
+                    solver.hint(game);
+                    slowest = Math.max(slowest, System.nanoTime() - hintStart);
+                    game.playTurn(player.nextCommand(game, rand));
+                }
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * The way forward a hint suggests.
+     */
+    public static class Hint
+    {
+        private List<Command> commands;
+        private boolean complete;
+        private boolean shortest;
+
+        /**
+         * @param commands the commands of the route
+         * @param complete true if the commands win the game, false if they only lead to more legendary items
+         * @param shortest true if no shorter route wins the game
+         */
+        Hint(List<Command> commands, boolean complete, boolean shortest)
+        {
+            this.commands = commands;
+            this.complete = complete;
+            this.shortest = shortest;
+        }
+
+        /**
+         * @return the commands of the route, empty if no way forward has been found in time
+         */
+        public List<Command> getCommands() {return commands;}
+
+        /**
+         * @return true if the commands win the game, false if they only lead to more legendary items
+         */
+        public boolean isComplete() {return complete;}
+
+        /**
+         * @return true if no shorter route wins the game
+         */
+        public boolean isShortest() {return shortest;}
+    }
+
+    /**
+     * A state reached by the search.
+     */
+    private static class Node
+    {
+        private Node parent;
+        private int move;
+        private byte[] state;       // the snapshot of the state, dropped once all moves from it are tried
+
+        /**
+         * @param parent the state the move was made in, or null for the first state
+         * @param move the index of the command in COMMANDS that leads to this state
+         * @param state the snapshot of the state
+         */
+        Node(Node parent, int move, byte[] state)
+        {
+            this.parent = parent;
+            this.move = move;
+            this.state = state;
+        }
+    }
+
+    /**
+     * A set of non-zero longs with open addressing and linear probing.
+     */
+    private static class VisitedSet
+    {
+        private long[] keys;
+        private int size;
+
+        VisitedSet()
+        {
+            keys = new long[1024];
+        }
+
+        /**
+         * @param key a key that is not 0
+         * @return true if the key was added, false if it was already in the set
+         */
+        boolean add(long key)
+        {
+            if (size * 2 >= keys.length)
+            {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) (key ^ key >>> 29) * 0x9E3779B9 >>> 1 & mask;
+            while (keys[slot] != 0)
+            {
+                if (keys[slot] == key)
+                {
+                    return false;
+                }
+                slot = slot + 1 & mask;
+            }
+            keys[slot] = key;
+            size++;
+            return true;
+        }
+
+        /**
+         * Removes all keys.
+         */
+        void clear()
+        {
+            Arrays.fill(keys, 0);
+            size = 0;
+        }
+
+        /**
+         * Doubles the table and adds all keys again.
+         */
+        private void grow()
+        {
+            long[] old = keys;
+            keys = new long[old.length * 2];
+            size = 0;
+            for (long key : old)
+            {
+                if (key != 0)
+                {
+                    add(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * Session columns hold the scalar state of many games outside of the Java heap: the vitality, the step counter,
+ * the staircase level, the rooms of the endless and the binary corridor, the weight of the backpack,
+ * the current room, the legendary items and state flags, and the outcome. Every value has its own column
+ * in a direct buffer, and a game is a row of the columns, usually numbered by its session or by its game number.
+ * The session store keeps the scalar state of its passive games nowhere else, and the balance simulator
+ * keeps the final state of its games in them.
+ * <p>
+ * Millions of rows cost a few dozen bytes each and no objects at all, so they put no load on the garbage collector,
+ * and questions about all games, like how many players are in each room, are answered by scanning
+ * a single column from start to end. A row whose room is -1 is empty and is skipped by the scans.
+ * <p>
+ * Rows may be written by different threads at the same time, as long as each row is only written by one thread.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SessionColumns
+{
+    private int capacity;
+    private IntBuffer vitality;
+    private IntBuffer stepCounter;
+    private IntBuffer staircaseLevel;
+    private IntBuffer endlessCorridorRoom;
+    private IntBuffer binaryRoom;
+    private IntBuffer backPackWeight;
+    private IntBuffer flags;            // the legendary items and the state flags of the game
+    private ByteBuffer room;            // the id of the current room, -1 for an empty row
+    private ByteBuffer outcome;         // the ordinal of the outcome
+
+    /**
+     * Create columns with empty rows.
+     * @param capacity the amount of rows
+     */
+    public SessionColumns(int capacity)
+    {
+        vitality = intColumn(capacity, null);
+        stepCounter = intColumn(capacity, null);
+        staircaseLevel = intColumn(capacity, null);
+        endlessCorridorRoom = intColumn(capacity, null);
+        binaryRoom = intColumn(capacity, null);
+        backPackWeight = intColumn(capacity, null);
+        flags = intColumn(capacity, null);
+        room = byteColumn(capacity, null);
+        outcome = byteColumn(capacity, null);
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the amount of rows
+     */
+    public int getCapacity() {return capacity;}
+
+    /**
+     * Makes sure the columns have at least the given amount of rows. The columns grow to at least twice their size,
+     * so growing one row at a time is cheap. The columns must not be used by other threads while they grow.
+     * @param rows the amount of rows needed
+     */
+    public void ensureCapacity(int rows)
+    {
+        if (rows <= capacity)
+        {
+            return;
+        }
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE / Integer.BYTES, Math.max(rows, 2L * capacity));
+        vitality = intColumn(newCapacity, vitality);
+        stepCounter = intColumn(newCapacity, stepCounter);
+        staircaseLevel = intColumn(newCapacity, staircaseLevel);
+        endlessCorridorRoom = intColumn(newCapacity, endlessCorridorRoom);
+        binaryRoom = intColumn(newCapacity, binaryRoom);
+        backPackWeight = intColumn(newCapacity, backPackWeight);
+        flags = intColumn(newCapacity, flags);
+        room = byteColumn(newCapacity, room);
+        outcome = byteColumn(newCapacity, outcome);
+        capacity = newCapacity;
+    }
+
+    /**
+     * Empties a row, so the scans skip it.
+     * @param row the row
+     */
+    public void clear(int row) {room.put(row, (byte) -1);}
+
+    /**
+     * @param row the row
+     * @return true if the row is empty
+     */
+    public boolean isEmpty(int row) {return room.get(row) < 0;}
+
+    /**
+     * @param row the row
+     * @return the vitality of the game
+     */
+    public int getVitality(int row) {return vitality.get(row);}
+
+    /**
+     * @param row the row
+     * @return the amount of steps the player has taken
+     */
+    public int getStepCounter(int row) {return stepCounter.get(row);}
+
+    /**
+     * @param row the row
+     * @return the level of the player on the spiral staircase
+     */
+    public int getStaircaseLevel(int row) {return staircaseLevel.get(row);}
+
+    /**
+     * @param row the row
+     * @return the room of the player in the endless corridor
+     */
+    public int getEndlessCorridorRoom(int row) {return endlessCorridorRoom.get(row);}
+
+    /**
+     * @param row the row
+     * @return the room of the player in the binary corridor
+     */
+    public int getBinaryRoom(int row) {return binaryRoom.get(row);}
+
+    /**
+     * @param row the row
+     * @return the weight of the backpack of the player
+     */
+    public int getBackPackWeight(int row) {return backPackWeight.get(row);}
+
+    /**
+     * @param row the row
+     * @return the legendary items and the state flags of the game, one bit each
+     */
+    public int getFlags(int row) {return flags.get(row);}
+
+    /**
+     * @param row the row
+     * @return the id of the current room, or -1 for an empty row
+     */
+    public int getRoom(int row) {return room.get(row);}
+
+    /**
+     * @param row the row
+     * @return the outcome of the game
+     */
+    public GameOutcome getOutcome(int row) {return GameOutcome.values()[outcome.get(row)];}
+
+    /**
+     * Stores the scalar state of a game in a row. Used by Game.writeColumns.
+     * @param row the row
+     * @param vitality the vitality of the game
+     * @param stepCounter the amount of steps the player has taken
+     * @param staircaseLevel the level of the player on the spiral staircase
+     * @param endlessCorridorRoom the room of the player in the endless corridor
+     * @param binaryRoom the room of the player in the binary corridor
+     * @param backPackWeight the weight of the backpack of the player
+     * @param flags the legendary items and the state flags of the game
+     * @param room the id of the current room
+     * @param outcome the outcome of the game
+     */
+    void set(int row, int vitality, int stepCounter, int staircaseLevel, int endlessCorridorRoom, int binaryRoom,
+             int backPackWeight, int flags, int room, GameOutcome outcome)
+    {
+        this.vitality.put(row, vitality);
+        this.stepCounter.put(row, stepCounter);
+        this.staircaseLevel.put(row, staircaseLevel);
+        this.endlessCorridorRoom.put(row, endlessCorridorRoom);
+        this.binaryRoom.put(row, binaryRoom);
+        this.backPackWeight.put(row, backPackWeight);
+        this.flags.put(row, flags);
+        this.outcome.put(row, (byte) outcome.ordinal());
+        // the room is written last, it marks the row as used
+        this.room.put(row, (byte) room);
+    }
+
+    /**
+     * Counts the games in every room with a single scan of the room column.
+     * @return the amount of games whose current room is each room, indexed by the id of the room
+     */
+    public long[] countByRoom()
+    {
+        long[] counts = new long[Game.ROOM_COUNT];
+        for (int row = 0; row < capacity; row++)
+        {
+            int id = room.get(row);
+            if (id >= 0)
+            {
+                counts[id]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the games that have ended in every room, by outcome, with a scan of the room and the outcome column.
+     * @return the amount of games, indexed by the ordinal of the outcome and then by the id of the room
+     */
+    public long[][] countOutcomesByRoom()
+    {
+        long[][] counts = new long[GameOutcome.values().length][Game.ROOM_COUNT];
+        for (int row = 0; row < capacity; row++)
+        {
+            int id = room.get(row);
+            if (id >= 0)
+            {
+                counts[outcome.get(row)][id]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Adds up the vitality of the games that have a given outcome, with a scan of three columns.
+     * @param wanted the outcome of the games
+     * @return the total vitality of those games
+     */
+    public long sumVitality(GameOutcome wanted)
+    {
+        long sum = 0;
+        byte ordinal = (byte) wanted.ordinal();
+        for (int row = 0; row < capacity; row++)
+        {
+            if (room.get(row) >= 0 && outcome.get(row) == ordinal)
+            {
+                sum += vitality.get(row);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the games in which the player holds a legendary item, with a scan of the flag column.
+     * @param item the legendary item
+     * @return the amount of games
+     */
+    public long countWithItem(LegendaryItem item)
+    {
+        long count = 0;
+        for (int row = 0; row < capacity; row++)
+        {
+            if (room.get(row) >= 0 && (flags.get(row) & item.getMask()) != 0)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Allocates a column of whole numbers, in the byte order of the processor.
+     * @param capacity the amount of rows
+     * @param old a column whose rows are copied into the new one, or null
+     * @return the new column
+     */
+    private static IntBuffer intColumn(int capacity, IntBuffer old)
+    {
+        IntBuffer column = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        if (old != null)
+        {
+            column.put(old.duplicate().clear()).clear();
+        }
+        return column;
+    }
+
+    /**
+     * Allocates a column of bytes. The new rows are empty.
+     * @param capacity the amount of rows
+     * @param old a column whose rows are copied into the new one, or null
+     * @return the new column
+     */
+    private static ByteBuffer byteColumn(int capacity, ByteBuffer old)
+    {
+        ByteBuffer column = ByteBuffer.allocateDirect(capacity);
+        int copied = 0;
+        if (old != null)
+        {
+            column.put(old.duplicate().clear());
+            copied = old.capacity();
+        }
+        for (int row = copied; row < capacity; row++)
+        {
+            column.put(row, (byte) -1);
+        }
+        return column.clear();
+    }
+}
@@ -0,0 +1,403 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A session store keeps only the most recently played game sessions in memory. When more sessions are active
+ * than allowed, the ones that have been idle the longest are passivated: their games are saved to the file of
+ * the store and dropped from memory. The next command of a passive session loads its game again before it is
+ * executed, so the player doesn't notice. The memory of the games then grows with the players that are actually
+ * playing, not with the players that are connected.
+ * <p>
+ * The file is opened once and divided into slots of the same size, one per passive session. A game is saved
+ * and loaded with a single positioned write or read, and the slot is reused by the next session that is passivated
+ * after the game has been loaded again. A game whose snapshot doesn't fit into a slot stays in memory.
+ * The scalar state of every passive game, like its current room and the vitality of its player, is not part of
+ * the snapshot: it is kept in session columns, one row per slot, and put back together with the snapshot when
+ * the game is loaded. The store can therefore tell where its idle players are without loading a single game.
+ * <p>
+ * Sessions in a shared world cannot be saved on their own. They always stay in memory and are not counted.
+ * The store can be used by many threads, but every session must only be played by one thread at a time.
+ * Only the bookkeeping of the sessions and slots, and the snapshots, which share one snapshot object, are done
+ * under the lock of the store. The slots are written and read after it has been released, each with a buffer
+ * of its own, so players don't wait for the file while another player's idle sessions are passivated.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SessionStore implements Closeable
+{
+    public static final int DEFAULT_MAX_ACTIVE = 1000;
+    private static final int SLOT_SIZE = 2048;      // a snapshot is usually well below 1 KB
+    private static final String FILE_NAME = "sessions.lbs";
+
+    private Path file;
+    private FileChannel channel;
+    private int maxActive;
+    private GameSnapshot snapshot;                  // only used under the lock of the store
+    private LinkedHashSet<GameSession> active;      // the sessions in memory, the one idle the longest first
+    private Set<GameSession> busy;                  // sessions whose commands are being executed, never passivated
+    private Map<GameSession, Integer> passive;      // the slot of every passive session
+    private Map<GameSession, Integer> saving;       // the slot of every session whose game is being written
+    private int failedPassivations;
+    private SessionColumns passiveStates;           // the scalar state of the passive sessions, by slot, kept nowhere else
+    private int[] freeSlots;                        // a stack of slots that can be reused
+    private int freeSlotCount;
+    private int slotCount;
+
+    /**
+     * Create a store that saves idle sessions to a file in a directory. An existing file of an earlier store is replaced.
+     * @param directory the directory of the file. It is created if it doesn't exist.
+     * @param maxActive the most sessions that are kept in memory
+     * @throws IOException if the directory or the file cannot be created
+     */
+    public SessionStore(Path directory, int maxActive) throws IOException
+    {
+        if (maxActive < 1)
+        {
+            throw new IllegalArgumentException("At least one session must be kept in memory.");
+        }
+        file = Files.createDirectories(directory).resolve(FILE_NAME);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.maxActive = maxActive;
+        snapshot = new GameSnapshot();
+        active = new LinkedHashSet<>();
+        busy = new HashSet<>();
+        passive = new HashMap<>();
+        saving = new HashMap<>();
+        freeSlots = new int[16];
+        passiveStates = new SessionColumns(maxActive);
+    }
+
+    /**
+     * Adds a new session to the store and returns its opening message.
+     * @param session the session, which must not have been started yet
+     * @return the welcome message and the description of the starting room
+     */
+    public String start(GameSession session)
+    {
+        enter(session);
+        try
+        {
+            return session.start();
+        } finally
+        {
+            leave(session);
+        }
+    }
+
+    /**
+     * Executes one command of a session of the store, loading its game first if it has been passivated.
+     * A session whose game ends is removed from the store.
+     * @param session the session
+     * @param inputLine the line typed by the player
+     * @return the output of the turn
+     * @throws UncheckedIOException if the game of the session cannot be loaded
+     */
+    public String execute(GameSession session, String inputLine)
+    {
+        enter(session);
+        try
+        {
+            return session.execute(inputLine);
+        } finally
+        {
+            leave(session);
+        }
+    }
+
+    /**
+     * Removes a session from the store, for example when its player has gone away.
+     * Removing a session that isn't in the store does nothing.
+     * @param session the session
+     */
+    public synchronized void remove(GameSession session)
+    {
+        awaitSaved(session);
+        active.remove(session);
+        Integer slot = passive.remove(session);
+        if (slot != null)
+        {
+            freeSlot(slot);
+        }
+    }
+
+    /**
+     * Removes all sessions and deletes the file of the store. Passive sessions cannot be played anymore.
+     * @throws IOException if the file cannot be deleted
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        active.clear();
+        passive.clear();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * @return the amount of sessions whose games are in memory
+     */
+    public synchronized int getActiveCount() {return active.size();}
+
+    /**
+     * @return the amount of sessions whose games are saved to the file
+     */
+    public synchronized int getPassiveCount() {return passive.size();}
+
+    /**
+     * Counts the passive sessions in every room, with a scan of the session columns.
+     * @return the amount of passive sessions whose player is in each room, indexed by the id of the room
+     */
+    public synchronized long[] countPassiveByRoom() {return passiveStates.countByRoom();}
+
+    /**
+     * @return the amount of times a session could not be passivated because its slot could not be written.
+     * Those sessions have stayed in memory.
+     */
+    public synchronized int getFailedPassivations() {return failedPassivations;}
+
+    /**
+     * Marks a session as being played and makes sure its game is in memory. The slot of a passive session
+     * is read without holding the lock of the store.
+     * @param session the session
+     * @throws IllegalStateException if the session is passive but the store has been closed or no longer holds it
+     */
+    private void enter(GameSession session)
+    {
+        if (session.isShared())
+        {
+            return;
+        }
+        int slot;
+        synchronized (this)
+        {
+            awaitSaved(session);
+            if (!session.isPassive())
+            {
+                markPlayed(session);
+                return;
+            }
+            Integer saved = passive.remove(session);
+            if (saved == null)
+            {
+                throw new IllegalStateException(channel.isOpen() ? "The session is not in the store." : "The session store is closed.");
+            }
+            slot = saved;
+            // the slot stays taken and the session stays out of the map until its game has been read
+            busy.add(session);
+        }
+        ByteBuffer slotBuffer = ByteBuffer.allocate(SLOT_SIZE);
+        try
+        {
+            long position = (long) slot * SLOT_SIZE;
+            while (slotBuffer.hasRemaining() && channel.read(slotBuffer, position + slotBuffer.position()) >= 0)
+            {
+                // keep reading until the whole slot is in the buffer
+            }
+        } catch (IOException e)
+        {
+            stayPassive(session, slot);
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this)
+        {
+            try
+            {
+                slotBuffer.flip();
+                slotBuffer.limit(Integer.BYTES + slotBuffer.getInt());
+                session.activate(slotBuffer, passiveStates, slot);
+            } catch (IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e)
+            {
+                stayPassive(session, slot);
+                throw new UncheckedIOException(new IOException("The saved game of a session is damaged", e));
+            }
+            freeSlot(slot);
+            markPlayed(session);
+        }
+    }
+
+    /**
+     * Puts a session whose game could not be read back among the passive sessions.
+     * @param session the session
+     * @param slot the slot of its game
+     */
+    private synchronized void stayPassive(GameSession session, int slot)
+    {
+        busy.remove(session);
+        passive.put(session, slot);
+    }
+
+    /**
+     * Marks a session as being played and as the most recently played one.
+     * @param session the session, whose game is in memory
+     */
+    private void markPlayed(GameSession session)
+    {
+        busy.add(session);
+        active.remove(session);
+        active.add(session);
+    }
+
+    /**
+     * Waits until the game of a session is no longer being saved by another thread.
+     * @param session the session
+     */
+    private void awaitSaved(GameSession session)
+    {
+        boolean interrupted = false;
+        while (saving.containsKey(session))
+        {
+            try
+            {
+                wait();
+            } catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Marks a session as idle again and passivates the sessions that have been idle the longest,
+     * until no more sessions are in memory than allowed. Their snapshots are taken under the lock of the store,
+     * their slots are written after it has been released.
+     * @param session the session
+     */
+    private void leave(GameSession session)
+    {
+        if (session.isShared())
+        {
+            return;
+        }
+        List<GameSession> sessions = new ArrayList<>();
+        List<ByteBuffer> slotBuffers = new ArrayList<>();
+        synchronized (this)
+        {
+            busy.remove(session);
+            if (session.isFinished())
+            {
+                remove(session);
+            }
+            Iterator<GameSession> oldest = active.iterator();
+            while (active.size() > maxActive && oldest.hasNext())
+            {
+                GameSession next = oldest.next();
+                ByteBuffer slotBuffer = busy.contains(next) ? null : save(next);
+                if (slotBuffer != null)
+                {
+                    oldest.remove();
+                    sessions.add(next);
+                    slotBuffers.add(slotBuffer);
+                }
+            }
+        }
+        for (int i = 0; i < sessions.size(); i++)
+        {
+            passivate(sessions.get(i), slotBuffers.get(i));
+        }
+    }
+
+    /**
+     * Saves the game of a session into a new buffer and takes a free slot for it. Until the slot has been written,
+     * the session is neither active nor passive, and a thread that wants to play it waits.
+     * @param session the session
+     * @return the buffer holding the slot, or null if the game doesn't fit into a slot and stays in memory
+     */
+    private ByteBuffer save(GameSession session)
+    {
+        int slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : slotCount++;
+        passiveStates.ensureCapacity(slotCount);
+        ByteBuffer saved = session.save(snapshot, passiveStates, slot);
+        if (Integer.BYTES + saved.remaining() > SLOT_SIZE)
+        {
+            freeSlot(slot);
+            return null;
+        }
+        ByteBuffer slotBuffer = ByteBuffer.allocate(Integer.BYTES + saved.remaining());
+        slotBuffer.putInt(saved.remaining()).put(saved).flip();
+        saving.put(session, slot);
+        return slotBuffer;
+    }
+
+    /**
+     * Writes the slot of a session that has been saved and drops its game from memory.
+     * If the slot cannot be written, the session stays in memory, which is better than losing it.
+     * @param session the session
+     * @param slotBuffer the buffer holding the slot
+     */
+    private void passivate(GameSession session, ByteBuffer slotBuffer)
+    {
+        int slot;
+        synchronized (this)
+        {
+            slot = saving.get(session);
+        }
+        boolean written = true;
+        try
+        {
+            long position = (long) slot * SLOT_SIZE;
+            while (slotBuffer.hasRemaining())
+            {
+                channel.write(slotBuffer, position + slotBuffer.position());
+            }
+        } catch (IOException e)
+        {
+            written = false;
+        }
+        synchronized (this)
+        {
+            saving.remove(session);
+            if (written)
+            {
+                session.passivate();
+                passive.put(session, slot);
+            } else
+            {
+                freeSlot(slot);
+                active.add(session);
+                failedPassivations++;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Lets the next passivated session use a slot.
+     * @param slot the slot
+     */
+    private void freeSlot(int slot)
+    {
+        if (freeSlotCount == freeSlots.length)
+        {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+        if (slot < passiveStates.getCapacity())
+        {
+            passiveStates.clear(slot);
+        }
+    }
+}
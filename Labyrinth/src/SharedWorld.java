@@ -0,0 +1,177 @@
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A shared world is one labyrinth in which many players roam at the same time, each on their own thread.
+ * Every player has their own game with their own view of the rooms: the exits, which change as the player
+ * climbs the staircase or walks the corridors, belong to the player. The artefacts and NPCs are shared,
+ * so an artefact picked up by one player is gone for everybody and a defeated Monster leaves for everybody.
+ * <p>
+ * The contents of every room are guarded by the lock of that room, so players in different rooms never
+ * wait for each other. The NPCs are moved by one player at a time. A player that finds another player
+ * moving them doesn't wait, the NPCs have moved anyway. NPCs that players have dealt with are queued
+ * and leave their rooms the next time the NPCs are moved.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SharedWorld
+{
+    private static final int NPC_COUNT = 5;
+
+    private WorldDefinition world;
+    private RoomContents[] contents;
+    private List<NPC> npcList;
+    private NpcScheduler npcScheduler;      // guarded by npcLock
+    private ReentrantLock npcLock;
+    private Queue<Integer> dismissed;       // NPCs that have left their room and wait for the scheduler
+    private List<String> possibleArtefacts; // guarded by itself
+
+    /**
+     * Create a shared world with the default content.
+     * @param seed the seed that decides the NPCs and where they start
+     */
+    public SharedWorld(long seed)
+    {
+        this(WorldDefinition.getDefault(), seed);
+    }
+
+    /**
+     * Create a shared world.
+     * @param world the world definition with the texts and starting exits of the rooms
+     * @param seed the seed that decides the NPCs and where they start
+     */
+    public SharedWorld(WorldDefinition world, long seed)
+    {
+        this.world = world;
+        contents = new RoomContents[world.getRoomCount()];
+        for (int i = 0; i < contents.length; i++)
+        {
+            contents[i] = new RoomContents();
+        }
+        npcList = new ArrayList<>();
+        npcScheduler = new NpcScheduler(contents.length, this::npcMoved);
+        npcLock = new ReentrantLock();
+        dismissed = new ConcurrentLinkedQueue<>();
+        possibleArtefacts = new LinkedList<>(world.getArtefactNames());
+
+        Random rand = new GameRandom(seed);
+        for (int id = Game.MAIN_HALL; id <= Game.SECRET_CORRIDOR; id++)
+        {
+            npcScheduler.addRoom(id);
+        }
+        contents[Game.CENTRE].setNPC(new NPC(world.getGreeting(Game.BOSS), WorldDefinition.NPC_TYPES.get(Game.BOSS)));
+        for (int i = 0; i < NPC_COUNT; i++)
+        {
+            int type = rand.nextInt(Game.BOSS);
+            npcList.add(new NPC(world.getGreeting(type), WorldDefinition.NPC_TYPES.get(type)));
+            npcScheduler.addNPC();
+        }
+        npcScheduler.step(rand, 0);
+    }
+
+    /**
+     * Lets a new player into the world.
+     * @param settings the balance settings of the player's game
+     * @param seed the seed of the player's game, which decides everything that only happens to this player
+     * @param output receives everything the player's game displays
+     * @return the game of the player. It must only be played by one thread at a time.
+     */
+    public Game join(GameSettings settings, long seed, OutputSink output)
+    {
+        return new Game(settings, this, seed, output);
+    }
+
+    /**
+     * @return the world definition of the world
+     */
+    public WorldDefinition getWorld() {return world;}
+
+    /**
+     * @param room the id of a room
+     * @return the contents of the room, shared by all players
+     */
+    RoomContents getContents(int room) {return contents[room];}
+
+    /**
+     * @return the names of the artefacts that haven't been found yet. Lock the list while using it.
+     */
+    List<String> getPossibleArtefacts() {return possibleArtefacts;}
+
+    /**
+     * Moves the NPCs, unless another player is moving them right now.
+     * @param rand the random generator of the player that moves them
+     * @param moves the most NPCs that wander
+     * @return true if the NPCs have been moved, false if another player was moving them
+     */
+    boolean moveNPCs(Random rand, int moves)
+    {
+        if (!npcLock.tryLock())
+        {
+            return false;
+        }
+        try
+        {
+            Integer npc;
+            while ((npc = dismissed.poll()) != null)
+            {
+                npcScheduler.vacate(npc);
+            }
+            npcScheduler.step(rand, moves);
+            return true;
+        } finally
+        {
+            npcLock.unlock();
+        }
+    }
+
+    /**
+     * Makes an NPC leave a room, unless another player has already dealt with it.
+     * @param room the id of the room
+     * @param npc the NPC
+     * @return true if the NPC has left, false if it wasn't in the room anymore
+     */
+    boolean dismissNPC(int room, NPC npc)
+    {
+        if (!contents[room].removeNPC(npc))
+        {
+            return false;
+        }
+        int index = npcList.indexOf(npc);
+        if (index >= 0)
+        {
+            dismissed.add(index);
+        }
+        return true;
+    }
+
+    /**
+     * Keeps the contents of the rooms up to date with the moves of the NPC scheduler.
+     * An NPC is taken out of its room under the lock of the room, just like when a player dismisses it,
+     * so an NPC that a player has just dealt with doesn't wander off to another room before it is vacated.
+     * @param npc the number of the NPC that has moved
+     * @param from the id of the room it left, or -1
+     * @param to the id of the room it entered, or -1
+     * @return false if the NPC was wandering but a player has dismissed it in the meantime
+     */
+    private boolean npcMoved(int npc, int from, int to)
+    {
+        NPC moved = npcList.get(npc);
+        if (from >= 0 && !contents[from].removeNPC(moved) && to >= 0)
+        {
+            return false;
+        }
+        if (to >= 0)
+        {
+            contents[to].setNPC(moved);
+        }
+        return true;
+    }
+}
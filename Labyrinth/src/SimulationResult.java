@@ -0,0 +1,127 @@
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A simulation result counts how a batch of simulated games ended and how many steps they took.
+ * Results of separate batches can be merged into one. The games of a simulation report to metrics of
+ * their own, which the results of all batches share, so they don't show up in the global metrics.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SimulationResult
+{
+    private long games;
+    private long totalSteps;
+    private long[] outcomeCounts;   // indexed by the ordinal of the outcome
+    private long[] stepCounts;      // the amount of games that ended after each amount of steps
+    private GameMetrics metrics;    // shared by the results of all batches of a simulation
+
+    /**
+     * Create an empty result.
+     * @param maxSteps the highest amount of steps a game can take in the simulation
+     * @param metrics the metrics the games of the simulation report to
+     */
+    public SimulationResult(int maxSteps, GameMetrics metrics)
+    {
+        this.metrics = metrics;
+        outcomeCounts = new long[GameOutcome.values().length];
+        stepCounts = new long[maxSteps + 1];
+    }
+
+    /**
+     * Adds a finished game to the result.
+     * @param outcome how the game ended, PLAYING if it was stopped after the highest amount of steps
+     * @param steps the amount of commands the player gave
+     */
+    public void record(GameOutcome outcome, int steps)
+    {
+        games++;
+        totalSteps += steps;
+        outcomeCounts[outcome.ordinal()]++;
+        stepCounts[Math.min(steps, stepCounts.length - 1)]++;
+    }
+
+    /**
+     * Adds all games of another result to this one.
+     * @param other the result to be merged into this one
+     */
+    public void merge(SimulationResult other)
+    {
+        games += other.games;
+        totalSteps += other.totalSteps;
+        for (int i = 0; i < outcomeCounts.length; i++)
+        {
+            outcomeCounts[i] += other.outcomeCounts[i];
+        }
+        for (int i = 0; i < stepCounts.length && i < other.stepCounts.length; i++)
+        {
+            stepCounts[i] += other.stepCounts[i];
+        }
+    }
+
+    /**
+     * @return the metrics the games of the simulation have reported to
+     */
+    public GameMetrics getMetrics() {return metrics;}
+
+    /**
+     * @return the amount of games in the result
+     */
+    public long getGames() {return games;}
+
+    /**
+     * @param outcome a way of ending the game
+     * @return the amount of games that ended that way
+     */
+    public long getCount(GameOutcome outcome) {return outcomeCounts[outcome.ordinal()];}
+
+    /**
+     * @return the part of the games that were won, between 0 and 1
+     */
+    public double getWinRate() {return games == 0 ? 0 : (double) getCount(GameOutcome.WON) / games;}
+
+    /**
+     * @return the average amount of steps of a game
+     */
+    public double getAverageSteps() {return games == 0 ? 0 : (double) totalSteps / games;}
+
+    /**
+     * @param percentile a number between 0 and 100
+     * @return the amount of steps that the given percentage of games didn't go over
+     */
+    public int getStepPercentile(double percentile)
+    {
+        long limit = (long) Math.ceil(games * percentile / 100);
+        long seen = 0;
+        for (int steps = 0; steps < stepCounts.length; steps++)
+        {
+            seen += stepCounts[steps];
+            if (seen >= limit && seen > 0)
+            {
+                return steps;
+            }
+        }
+        return stepCounts.length - 1;
+    }
+
+    /**
+     * @return a readable report of the result
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder report = new StringBuilder();
+        report.append("Games: ").append(games).append('\n');
+        report.append(String.format("Win rate: %.2f%%%n", getWinRate() * 100));
+        report.append("Outcomes:\n");
+        for (GameOutcome outcome : GameOutcome.values())
+        {
+            double share = games == 0 ? 0 : 100.0 * getCount(outcome) / games;
+            String name = outcome == GameOutcome.PLAYING ? "UNFINISHED" : outcome.name();
+            report.append(String.format("  %-11s %12d  %6.2f%%%n", name, getCount(outcome), share));
+        }
+        report.append(String.format("Steps: average %.1f, median %d, p90 %d, p99 %d%n",
+                getAverageSteps(), getStepPercentile(50), getStepPercentile(90), getStepPercentile(99)));
+        return report.toString();
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Random;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A player policy that knows the way: it solves the riddle, takes Ariadna's Thread,
+ * climbs the spiral staircase for The Harpe, follows the number on the thread through the
+ * binary corridor, fights the Minotaur and leaves through the staircase.
+ * NPCs on the way are dealt with as they are met.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class SpeedrunPolicy implements PlayerPolicy
+{
+    /**
+     * Chooses the next command on the way to victory.
+     * @param game the game that is being played
+     * @param rand not used, the policy always makes the same choice
+     * @return the command to be given to the game
+     */
+    @Override
+    public Command nextCommand(Game game, Random rand)
+    {
+        Room room = game.getCurrentRoom();
+        boolean victory = game.isVictory();
+        boolean thread = game.hasItem(LegendaryItem.ARIADNAS_THREAD);
+        boolean harpe = game.hasItem(LegendaryItem.THE_HARPE);
+
+        NPC npc = room.getNPC();
+        if (npc != null && room.getId() != Game.CENTRE)
+        {
+            switch (npc.getType())
+            {
+                case "Monster":
+                    return new Command("fight", "Monster");
+                case "Fairy":
+                    return new Command("answer", "yes");
+                default:
+                    return new Command("answer", "no");
+            }
+        }
+
+        switch (room.getId())
+        {
+            case Game.ENTRANCE:
+                return new Command("go", "north");
+            case Game.MAIN_HALL:
+                if (victory)
+                {
+                    return new Command("go", "south");
+                } else if (!thread)
+                {
+                    return new Command("go", "west");
+                } else if (!harpe)
+                {
+                    return new Command("go", "east");
+                }
+                return new Command("go", "north");
+            case Game.PUZZLE_ROOM:
+                if (thread)
+                {
+                    return new Command("go", "east");
+                } else if (!room.hasExit("west"))
+                {
+                    return new Command("answer", "hole");
+                }
+                return new Command("go", "west");
+            case Game.TREASURY:
+                if (!thread)
+                {
+                    return new Command("take", null);
+                }
+                return new Command("go", "east");
+            case Game.SPIRAL_STAIRCASE:
+                if (!victory && !harpe && game.getStaircaseLevel() < 3)
+                {
+                    return new Command("go", "up");
+                } else if (!victory && !harpe)
+                {
+                    return new Command("take", null);
+                } else if (game.getStaircaseLevel() > 0)
+                {
+                    return new Command("go", "down");
+                }
+                return new Command("go", "west");
+            case Game.BINARY_CORRIDOR:
+                if (game.getThreadNumber().charAt(game.getBinaryRoom()) == '0')
+                {
+                    return new Command("go", "left");
+                }
+                return new Command("go", "right");
+            case Game.CENTRE:
+                if (!victory)
+                {
+                    return new Command("fight", "Minotaur");
+                }
+                return new Command("go", "down");
+            default:
+                return new Command("back", null);
+        }
+    }
+}
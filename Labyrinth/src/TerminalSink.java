@@ -0,0 +1,54 @@
+import java.io.PrintStream;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * An output sink that writes to the terminal. The messages of a turn are collected
+ * in a buffer that is reused for every turn and written to the terminal in a single write.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class TerminalSink implements OutputSink
+{
+    private PrintStream out;
+    private StringBuilder buffer;
+
+    /**
+     * Create a sink that writes to System.out.
+     */
+    public TerminalSink()
+    {
+        this(System.out);
+    }
+
+    /**
+     * Create a sink that writes to the given stream.
+     * @param out the stream the output is written to
+     */
+    public TerminalSink(PrintStream out)
+    {
+        this.out = out;
+        buffer = new StringBuilder(1024);
+    }
+
+    @Override
+    public void print(CharSequence text) {buffer.append(text);}
+
+    @Override
+    public void println(CharSequence text) {buffer.append(text).append('\n');}
+
+    @Override
+    public void println() {buffer.append('\n');}
+
+    /**
+     * Writes everything displayed during the turn to the terminal and empties the buffer.
+     */
+    @Override
+    public void endTurn()
+    {
+        out.append(buffer);
+        out.flush();
+        buffer.setLength(0);
+    }
+}
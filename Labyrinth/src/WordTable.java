@@ -0,0 +1,146 @@
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A word table is a fixed set of words stored in a perfect hash table: every word has its own slot,
+ * so looking a word up takes one hash calculation and one comparison.
+ * Words can be looked up directly in a part of a line of input, without creating a string for them.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class WordTable
+{
+    private String[] words;     // the words in the order they were given
+    private String[] slots;     // the words placed at their hash
+    private int[] indexes;      // the position in words of the word in each slot
+    private int multiplier;
+    private int shift;
+
+    /**
+     * Create a table of the given words. The words must all be different.
+     * @param words the words of the table
+     * @throws IllegalArgumentException if a word is given more than once, because two equal words never get their own slots
+     */
+    public WordTable(String... words)
+    {
+        Set<String> seen = new HashSet<>();
+        for (String word : words)
+        {
+            if (!seen.add(word))
+            {
+                throw new IllegalArgumentException("The word " + word + " is in the table more than once.");
+            }
+        }
+        this.words = words.clone();
+        int bits = 1;
+        while ((1 << bits) < words.length * 2)
+        {
+            bits++;
+        }
+        // Try multipliers until every word gets its own slot, growing the table if none works.
+        while (!place(bits))
+        {
+            bits++;
+        }
+    }
+
+    /**
+     * Tries to find a multiplier that places every word in its own slot of a table of the given size.
+     * @param bits the size of the table as a power of 2
+     * @return true if such a multiplier was found and the words have been placed
+     */
+    private boolean place(int bits)
+    {
+        shift = 32 - bits;
+        for (int attempt = 0; attempt < 10000; attempt++)
+        {
+            multiplier = 0x9E3779B9 + attempt * 2;
+            slots = new String[1 << bits];
+            indexes = new int[1 << bits];
+            boolean collision = false;
+            for (int i = 0; i < words.length && !collision; i++)
+            {
+                int slot = slotOf(words[i], 0, words[i].length());
+                if (slots[slot] != null)
+                {
+                    collision = true;
+                }
+                slots[slot] = words[i];
+                indexes[slot] = i;
+            }
+            if (!collision)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param text the text containing the word
+     * @param start the position of the first character of the word
+     * @param end the position after the last character of the word
+     * @return the slot of the table the word would be in
+     */
+    private int slotOf(CharSequence text, int start, int end)
+    {
+        int hash = end - start;
+        for (int i = start; i < end; i++)
+        {
+            hash = hash * 31 + text.charAt(i);
+        }
+        return (hash * multiplier) >>> shift;
+    }
+
+    /**
+     * Looks up a word that is part of a text.
+     * @param text the text containing the word
+     * @param start the position of the first character of the word
+     * @param end the position after the last character of the word
+     * @return the position of the word in the table, or -1 if it isn't in the table
+     */
+    public int indexOf(CharSequence text, int start, int end)
+    {
+        int slot = slotOf(text, start, end);
+        String word = slots[slot];
+        if (word == null || word.length() != end - start)
+        {
+            return -1;
+        }
+        for (int i = 0; i < word.length(); i++)
+        {
+            if (word.charAt(i) != text.charAt(start + i))
+            {
+                return -1;
+            }
+        }
+        return indexes[slot];
+    }
+
+    /**
+     * @param word a word
+     * @return the position of the word in the table, or -1 if it isn't in the table
+     */
+    public int indexOf(String word)
+    {
+        if (word == null)
+        {
+            return -1;
+        }
+        return indexOf(word, 0, word.length());
+    }
+
+    /**
+     * @param index the position of a word in the table
+     * @return the word at that position
+     */
+    public String get(int index) {return words[index];}
+
+    /**
+     * @return the amount of words in the table
+     */
+    public int size() {return words.length;}
+}
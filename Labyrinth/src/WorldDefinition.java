@@ -0,0 +1,622 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * A world definition holds the content of a labyrinth: the descriptions and starting exits of its rooms,
+ * the greetings of the NPCs and the names of the artefacts that can be found. The behaviour of the rooms
+ * stays in the game, so a world defines the thirteen rooms the game knows, but all of their text can be changed
+ * without recompiling the program.
+ * <p>
+ * Worlds are stored in a compact binary file that is memory-mapped when it is loaded. Nothing is decoded
+ * while loading: the description of a room is only decoded when a player first sees it, and then shared by all
+ * games of the world. A world is therefore cheap to load no matter how much text it holds, and it can be used
+ * by any number of games on any number of threads.
+ * <p>
+ * The file starts with the magic number "LBW1", the version, the amount of rooms and the amount of artefacts.
+ * Tables with the positions of every room, greeting and artefact name follow. A room holds its exits, every one
+ * as the index of its direction among the common arguments and the id of its target, and then its description.
+ * All text is stored as UTF-8 with its length in front of it.
+ * <p>
+ * Worlds are written by hand in a simple text format, one entry per line, and compiled into the binary format:
+ * <pre>
+ *     room &lt;id&gt; &lt;description&gt;
+ *     exit &lt;room id&gt; &lt;direction&gt; &lt;target id&gt;
+ *     greeting &lt;NPC type&gt; &lt;text&gt;
+ *     artefact &lt;name&gt;
+ * </pre>
+ * Usage: WorldDefinition compile &lt;text file&gt; &lt;world file&gt; | WorldDefinition decompile &lt;world file or "default"&gt;
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class WorldDefinition
+{
+    public static final List<String> NPC_TYPES = List.of("Monster", "Fairy", "Wizard", "Boss");
+    public static final int MAX_ARTEFACTS = 32;
+    public static final int MAX_ROOM_ID = 0xFFFE;
+    private static final int MAGIC = 0x4C425731;       // "LBW1"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 10;         // magic, version, amount of rooms and artefacts
+    private static final int EXIT_SIZE = 3;            // direction and target
+
+    private static WorldDefinition defaultWorld;
+
+    private ByteBuffer buffer;
+    private int roomCount;
+    private int artefactCount;
+    private String[] descriptions;      // decoded on first use
+    private String[] greetings;         // decoded on first use
+    private List<String> artefactNames; // decoded on first use
+    private WorldGraph graph;           // built on first use
+
+    /**
+     * Create a world from its binary form. The header and the positions of the rooms and texts are checked,
+     * so a damaged file is noticed when it is loaded, but the rooms are only decoded when they are needed.
+     * @param buffer the binary form of the world, from position 0
+     * @throws IllegalArgumentException if the buffer doesn't hold a world of this version or is damaged
+     */
+    private WorldDefinition(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION)
+        {
+            throw new IllegalArgumentException("The buffer doesn't hold a world definition.");
+        }
+        roomCount = Short.toUnsignedInt(buffer.getShort(6));
+        artefactCount = Short.toUnsignedInt(buffer.getShort(8));
+        int tablesEnd = getArtefactTable() + 4 * artefactCount;
+        if (artefactCount > MAX_ARTEFACTS || tablesEnd > buffer.limit())
+        {
+            throw new IllegalArgumentException("The world definition is damaged.");
+        }
+        for (int room = 0; room < roomCount; room++)
+        {
+            int position = buffer.getInt(HEADER_SIZE + 4 * room);
+            if (!isInside(position, 2, tablesEnd)
+                    || !isText(position + 2 + (long) EXIT_SIZE * Short.toUnsignedInt(buffer.getShort(position)), tablesEnd))
+            {
+                throw new IllegalArgumentException("Room " + room + " of the world definition is damaged.");
+            }
+        }
+        for (int i = 0; i < NPC_TYPES.size() + artefactCount; i++)
+        {
+            if (!isText(buffer.getInt(getGreetingTable() + 4 * i), tablesEnd))
+            {
+                throw new IllegalArgumentException("A text of the world definition is damaged.");
+            }
+        }
+        descriptions = new String[roomCount];
+        greetings = new String[NPC_TYPES.size()];
+    }
+
+    /**
+     * Loads a world from a file. The file is memory-mapped, so only the parts that are used are ever read.
+     * @param file the world file
+     * @return the world
+     * @throws IOException if the file cannot be read or doesn't hold a world
+     */
+    public static WorldDefinition load(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return new WorldDefinition(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IllegalArgumentException e)
+        {
+            throw new IOException(file + " is not a valid world definition", e);
+        }
+    }
+
+    /**
+     * @return the labyrinth of Daedalus as it was designed, used by every game that isn't given another world
+     */
+    public static synchronized WorldDefinition getDefault()
+    {
+        if (defaultWorld == null)
+        {
+            defaultWorld = createDefault();
+        }
+        return defaultWorld;
+    }
+
+    /**
+     * Writes the world to a file in its binary form. An existing file is replaced.
+     * @param file the world file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException
+    {
+        ByteBuffer data = buffer.duplicate().clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (data.hasRemaining())
+            {
+                channel.write(data);
+            }
+        }
+    }
+
+    /**
+     * @return the amount of rooms of the world
+     */
+    public int getRoomCount() {return roomCount;}
+
+    /**
+     * Returns the description of a room, decoding it the first time it is needed.
+     * @param room the id of the room
+     * @return the description, for example "in the main hall of the labyrinth."
+     */
+    public String getDescription(int room)
+    {
+        String description = descriptions[room];
+        if (description == null)
+        {
+            // two threads may both decode it, but they decode the same text
+            description = readString(getRoomPosition(room) + 2 + EXIT_SIZE * getExitCount(room));
+            descriptions[room] = description;
+        }
+        return description;
+    }
+
+    /**
+     * @param room the id of the room
+     * @return the amount of exits the room starts with
+     */
+    public int getExitCount(int room) {return Short.toUnsignedInt(buffer.getShort(getRoomPosition(room)));}
+
+    /**
+     * @param room the id of the room
+     * @param exit the number of the exit, from 0
+     * @return the direction of the exit, for example "north"
+     */
+    public String getExitDirection(int room, int exit)
+    {
+        return CommandWords.ARGUMENTS.get(buffer.get(getRoomPosition(room) + 2 + EXIT_SIZE * exit));
+    }
+
+    /**
+     * @param room the id of the room
+     * @param exit the number of the exit, from 0
+     * @return the id of the room the exit leads to
+     */
+    public int getExitTarget(int room, int exit)
+    {
+        return Short.toUnsignedInt(buffer.getShort(getRoomPosition(room) + 3 + EXIT_SIZE * exit));
+    }
+
+    /**
+     * @param type the index of the NPC type in NPC_TYPES
+     * @return what NPCs of the type say when the player meets them
+     */
+    public String getGreeting(int type)
+    {
+        String greeting = greetings[type];
+        if (greeting == null)
+        {
+            greeting = readString(buffer.getInt(getGreetingTable() + 4 * type));
+            greetings[type] = greeting;
+        }
+        return greeting;
+    }
+
+    /**
+     * @return the names of the artefacts that can be found in the world
+     */
+    public List<String> getArtefactNames()
+    {
+        List<String> names = artefactNames;
+        if (names == null)
+        {
+            String[] decoded = new String[artefactCount];
+            for (int i = 0; i < artefactCount; i++)
+            {
+                decoded[i] = readString(buffer.getInt(getArtefactTable() + 4 * i));
+            }
+            names = List.of(decoded);
+            artefactNames = names;
+        }
+        return names;
+    }
+
+    /**
+     * @return the immutable graph of the rooms of the world, shared by all games in it
+     */
+    public synchronized WorldGraph getGraph()
+    {
+        if (graph == null)
+        {
+            graph = new WorldGraph(this);
+        }
+        return graph;
+    }
+
+    /**
+     * Writes the world in the text format it can be compiled from.
+     * @param out the stream the text is written to
+     */
+    public void decompile(PrintStream out)
+    {
+        for (int room = 0; room < roomCount; room++)
+        {
+            out.println("room " + room + " " + getDescription(room));
+            for (int exit = 0; exit < getExitCount(room); exit++)
+            {
+                out.println("exit " + room + " " + getExitDirection(room, exit) + " " + getExitTarget(room, exit));
+            }
+        }
+        for (int type = 0; type < NPC_TYPES.size(); type++)
+        {
+            out.println("greeting " + NPC_TYPES.get(type) + " " + getGreeting(type));
+        }
+        for (String name : getArtefactNames())
+        {
+            out.println("artefact " + name);
+        }
+    }
+
+    /**
+     * Compiles a world from its text format.
+     * @param lines the lines of the text. Empty lines and lines starting with # are ignored.
+     * @return the world
+     * @throws IllegalArgumentException if a line is not a valid entry
+     */
+    public static WorldDefinition compile(List<String> lines)
+    {
+        Builder builder = new Builder();
+        for (int i = 0; i < lines.size(); i++)
+        {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            String[] words = line.split("\\s+", 4);
+            try
+            {
+                switch (words[0])
+                {
+                    case "room" -> builder.room(Integer.parseInt(words[1]), line.split("\\s+", 3)[2]);
+                    case "exit" -> builder.exit(Integer.parseInt(words[1]), words[2], Integer.parseInt(words[3]));
+                    case "greeting" -> builder.greeting(NPC_TYPES.indexOf(words[1]), line.split("\\s+", 3)[2]);
+                    case "artefact" -> builder.artefact(line.split("\\s+", 2)[1]);
+                    default -> throw new IllegalArgumentException("unknown entry " + words[0]);
+                }
+            } catch (RuntimeException e)
+            {
+                throw new IllegalArgumentException("Line " + (i + 1) + " is not valid: " + line, e);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Compiles a world file from its text format, or prints the text of a world file.
+     * @param args "compile", the text file and the world file, or "decompile" and the world file
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length == 3 && args[0].equals("compile"))
+        {
+            compile(Files.readAllLines(Path.of(args[1]), StandardCharsets.UTF_8)).save(Path.of(args[2]));
+        } else if (args.length == 2 && args[0].equals("decompile"))
+        {
+            (args[1].equals("default") ? getDefault() : load(Path.of(args[1]))).decompile(System.out);
+        } else
+        {
+            System.out.println("Usage: WorldDefinition compile <text file> <world file>");
+            System.out.println("       WorldDefinition decompile <world file or \"default\">");
+        }
+    }
+
+    /**
+     * @return the position of the table with the positions of the greetings
+     */
+    private int getGreetingTable() {return HEADER_SIZE + 4 * roomCount;}
+
+    /**
+     * @return the position of the table with the positions of the artefact names
+     */
+    private int getArtefactTable() {return getGreetingTable() + 4 * NPC_TYPES.size();}
+
+    /**
+     * @param position a position in the buffer
+     * @param size the amount of bytes from the position
+     * @param start where the records start, after the header and the tables
+     * @return true if the bytes lie between the tables and the end of the buffer
+     */
+    private boolean isInside(long position, long size, int start) {return position >= start && position + size <= buffer.limit();}
+
+    /**
+     * @param position the position of the length of a text
+     * @param start where the records start, after the header and the tables
+     * @return true if the length and the text lie between the tables and the end of the buffer
+     */
+    private boolean isText(long position, int start)
+    {
+        return isInside(position, 2, start) && isInside(position + 2, Short.toUnsignedInt(buffer.getShort((int) position)), start);
+    }
+
+    /**
+     * @param room the id of a room
+     * @return the position of the record of the room
+     */
+    private int getRoomPosition(int room)
+    {
+        if (room < 0 || room >= roomCount)
+        {
+            throw new IndexOutOfBoundsException("The world has no room " + room + ".");
+        }
+        return buffer.getInt(HEADER_SIZE + 4 * room);
+    }
+
+    /**
+     * @param position the position of the length of a text
+     * @return the text
+     */
+    private String readString(int position)
+    {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the world the labyrinth of Daedalus was designed with.
+     * @return the default world
+     */
+    private static WorldDefinition createDefault()
+    {
+        Builder builder = new Builder();
+        builder.room(Game.ENTRANCE, "at the entrance to The Labyrinth of Daedalus.");
+        builder.room(Game.MAIN_HALL, "in the main hall of the labyrinth.");
+        builder.room(Game.ENDLESS_CORRIDOR, "in a very long corridor. You feel exhaustion coming upon you.");
+        builder.room(Game.PUZZLE_ROOM, "in what appears to be a puzzle room.");
+        builder.room(Game.TREASURY, "in the labyrinths treasury.");
+        builder.room(Game.SPIRAL_STAIRCASE, "in a room with a spiral staircase in front of you. You can go up or down.");
+        builder.room(Game.PIT, "in the pit.");
+        builder.room(Game.SECRET_CORRIDOR, "in the secret corridor shown by Ariadna's thread.");
+        builder.room(Game.CENTRE, "at the centre of the labyrinth.");
+        builder.room(Game.BINARY_CORRIDOR, "in a room with 2 doors. The one to the left is dark and dim and the one to the right has a bright light above it");
+        builder.room(Game.LION_ROOM, "in a room full of hungry lions. The door closes behind you instantly.");
+        builder.room(Game.LAVA_PIT, "in a room with a lava pit.");
+        builder.room(Game.MYSTERY_ROOM, "in a weird room with glowing light everywhere. There is a button on the opposite wall.");
+
+        builder.exit(Game.ENTRANCE, "north", Game.MAIN_HALL);
+
+        builder.exit(Game.MAIN_HALL, "south", Game.ENTRANCE);
+        builder.exit(Game.MAIN_HALL, "west", Game.PUZZLE_ROOM);
+        builder.exit(Game.MAIN_HALL, "north", Game.ENDLESS_CORRIDOR);
+        builder.exit(Game.MAIN_HALL, "east", Game.SPIRAL_STAIRCASE);
+
+        builder.exit(Game.PUZZLE_ROOM, "east", Game.MAIN_HALL);
+
+        builder.exit(Game.TREASURY, "east", Game.PUZZLE_ROOM);
+
+        builder.exit(Game.SPIRAL_STAIRCASE, "west", Game.MAIN_HALL);
+        builder.exit(Game.SPIRAL_STAIRCASE, "up", Game.SPIRAL_STAIRCASE);
+        builder.exit(Game.SPIRAL_STAIRCASE, "down", Game.SPIRAL_STAIRCASE);
+
+        //the pit's exits do not exist yet
+
+        builder.exit(Game.SECRET_CORRIDOR, "south", Game.PIT);
+        builder.exit(Game.SECRET_CORRIDOR, "north", Game.MAIN_HALL);
+
+        builder.exit(Game.BINARY_CORRIDOR, "south", Game.MAIN_HALL);
+
+        builder.exit(Game.ENDLESS_CORRIDOR, "forward", Game.ENDLESS_CORRIDOR);
+        builder.exit(Game.ENDLESS_CORRIDOR, "backward", Game.MAIN_HALL);
+
+        //the centre doesn't have exits yet
+
+        builder.exit(Game.MYSTERY_ROOM, "north", Game.TREASURY);
+
+        builder.greeting(0, "I wanna kill ya! Wanna fight?");
+        builder.greeting(1, "I want to heal you! Do you accept my gift?");
+        builder.greeting(2, "I wanna teleport ya! Do you accept?");
+        builder.greeting(3, "This is to ignore guard clause.");
+
+        builder.artefact("Cornucopia");
+        builder.artefact("Pandora's Box");
+        builder.artefact("Caduceus");
+        builder.artefact("Golden Fleece");
+        builder.artefact("Golden Apple");
+        builder.artefact("Thyrsus");
+        builder.artefact("Medusa's Head");
+        builder.artefact("Eros's Bow");
+        return builder.build();
+    }
+
+    /**
+     * Collects the content of a world and encodes it in the binary form.
+     */
+    public static class Builder
+    {
+        private List<String> descriptions;
+        private List<List<int[]>> exits;        // every exit as the index of its direction and its target
+        private String[] greetings;
+        private List<String> artefactNames;
+
+        /**
+         * Create a builder for an empty world.
+         */
+        public Builder()
+        {
+            descriptions = new ArrayList<>();
+            exits = new ArrayList<>();
+            greetings = new String[NPC_TYPES.size()];
+            Arrays.fill(greetings, "");
+            artefactNames = new ArrayList<>();
+        }
+
+        /**
+         * Adds a room, or changes the description of a room that was already added.
+         * @param id the id of the room. Rooms that are skipped get an empty description.
+         * @param description the description, for example "in the main hall of the labyrinth."
+         * @return this builder
+         */
+        public Builder room(int id, String description)
+        {
+            // the amount of rooms is stored in 16 bits, so the highest id is one less than the highest amount
+            if (id < 0 || id > MAX_ROOM_ID)
+            {
+                throw new IllegalArgumentException("A room id must be between 0 and " + MAX_ROOM_ID + ".");
+            }
+            while (descriptions.size() <= id)
+            {
+                descriptions.add("");
+                exits.add(new ArrayList<>());
+            }
+            descriptions.set(id, description);
+            return this;
+        }
+
+        /**
+         * Adds an exit to a room that was already added.
+         * @param room the id of the room
+         * @param direction the direction of the exit, like "north"
+         * @param target the id of the room the exit leads to
+         * @return this builder
+         */
+        public Builder exit(int room, String direction, int target)
+        {
+            int index = CommandWords.ARGUMENTS.indexOf(direction);
+            if (index < 0 || !Room.DIRECTION_ORDER.contains(direction))
+            {
+                throw new IllegalArgumentException(direction + " is not a direction the parser knows.");
+            }
+            if (room < 0 || room >= descriptions.size() || target < 0 || target > MAX_ROOM_ID)
+            {
+                throw new IllegalArgumentException("An exit must be added to an existing room.");
+            }
+            exits.get(room).add(new int[] {index, target});
+            return this;
+        }
+
+        /**
+         * Sets the greeting of an NPC type.
+         * @param type the index of the NPC type in NPC_TYPES
+         * @param text what NPCs of the type say when the player meets them
+         * @return this builder
+         */
+        public Builder greeting(int type, String text)
+        {
+            if (type < 0 || type >= greetings.length)
+            {
+                throw new IllegalArgumentException("There is no NPC type " + type + ".");
+            }
+            greetings[type] = text;
+            return this;
+        }
+
+        /**
+         * Adds the name of an artefact that can be found in the world.
+         * @param name the name of the artefact
+         * @return this builder
+         */
+        public Builder artefact(String name)
+        {
+            if (artefactNames.size() == MAX_ARTEFACTS)
+            {
+                throw new IllegalArgumentException("A world can have at most " + MAX_ARTEFACTS + " artefacts.");
+            }
+            artefactNames.add(name);
+            return this;
+        }
+
+        /**
+         * Encodes the collected content.
+         * @return the world
+         * @throws IllegalArgumentException if an exit leads to a room that doesn't exist
+         */
+        public WorldDefinition build()
+        {
+            int roomCount = descriptions.size();
+            int tableSize = 4 * (roomCount + greetings.length + artefactNames.size());
+            List<byte[]> texts = new ArrayList<>();
+            int size = HEADER_SIZE + tableSize;
+            for (int room = 0; room < roomCount; room++)
+            {
+                size += 2 + EXIT_SIZE * exits.get(room).size();
+                size += encode(descriptions.get(room), texts);
+            }
+            for (String greeting : greetings)
+            {
+                size += encode(greeting, texts);
+            }
+            for (String name : artefactNames)
+            {
+                size += encode(name, texts);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) roomCount);
+            buffer.putShort((short) artefactNames.size());
+            int table = buffer.position();
+            buffer.position(table + tableSize);
+            int text = 0;
+            for (int room = 0; room < roomCount; room++)
+            {
+                buffer.putInt(table, buffer.position());
+                table += 4;
+                buffer.putShort((short) exits.get(room).size());
+                for (int[] exit : exits.get(room))
+                {
+                    if (exit[1] >= roomCount)
+                    {
+                        throw new IllegalArgumentException("An exit of room " + room + " leads to the missing room " + exit[1] + ".");
+                    }
+                    buffer.put((byte) exit[0]);
+                    buffer.putShort((short) exit[1]);
+                }
+                putText(buffer, texts.get(text++));
+            }
+            for (int i = 0; i < greetings.length + artefactNames.size(); i++)
+            {
+                buffer.putInt(table, buffer.position());
+                table += 4;
+                putText(buffer, texts.get(text++));
+            }
+            return new WorldDefinition(buffer.clear());
+        }
+
+        /**
+         * @param text a text of the world
+         * @param texts receives the UTF-8 bytes of the text
+         * @return the amount of bytes the text takes in the binary form
+         */
+        private static int encode(String text, List<byte[]> texts)
+        {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF)
+            {
+                throw new IllegalArgumentException("A text of a world can be at most 65535 bytes long.");
+            }
+            texts.add(bytes);
+            return 2 + bytes.length;
+        }
+
+        /**
+         * @param buffer the buffer the text is written to
+         * @param bytes the UTF-8 bytes of the text
+         */
+        private static void putText(ByteBuffer buffer, byte[] bytes)
+        {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+}
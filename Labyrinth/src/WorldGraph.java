@@ -0,0 +1,139 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class is part of the "Labyrinth of Daedalus" application.
+ * <p>
+ * The world graph is the immutable map of a world: for every room the exits it starts with,
+ * already in the order they are listed, and the line listing them. It is built once per world definition
+ * and shared by all games in that world, on any number of threads.
+ * <p>
+ * The rooms of a game only refer to the graph. A room copies its exits from the graph the first time
+ * the game changes them, so a game only pays memory for the rooms whose exits it has actually changed.
+ *
+ * @author Svilen Dilchev
+ * @version 2022.12.01
+ */
+public class WorldGraph
+{
+    private WorldDefinition world;
+    private String[][] directions;      // the directions of the exits of every room, in the order they are listed
+    private int[][] targets;            // the ids of the rooms the exits lead to
+    private List<Set<String>> directionSets;
+    private String[] exitStrings;
+    private byte[][] exitBytes;
+
+    /**
+     * Create the graph of a world. The exits of all rooms are decoded and ordered once.
+     * @param world the world definition
+     * @throws IllegalArgumentException if an exit of the world has a direction a room cannot have
+     */
+    WorldGraph(WorldDefinition world)
+    {
+        this.world = world;
+        int roomCount = world.getRoomCount();
+        directions = new String[roomCount][];
+        targets = new int[roomCount][];
+        List<Set<String>> sets = new ArrayList<>();
+        exitStrings = new String[roomCount];
+        exitBytes = new byte[roomCount][];
+        for (int room = 0; room < roomCount; room++)
+        {
+            int exitCount = world.getExitCount(room);
+            Integer[] order = new Integer[exitCount];
+            for (int exit = 0; exit < exitCount; exit++)
+            {
+                order[exit] = exit;
+                if (!Room.DIRECTION_ORDER.contains(world.getExitDirection(room, exit)))
+                {
+                    throw new IllegalArgumentException("Room " + room + " has an exit to the " + world.getExitDirection(room, exit) + ".");
+                }
+            }
+            int id = room;
+            Arrays.sort(order, (first, second) -> Room.EXIT_ORDER.compare(world.getExitDirection(id, first), world.getExitDirection(id, second)));
+
+            directions[room] = new String[exitCount];
+            targets[room] = new int[exitCount];
+            Set<String> set = new LinkedHashSet<>();
+            StringBuilder line = new StringBuilder("Exits:");
+            for (int i = 0; i < exitCount; i++)
+            {
+                directions[room][i] = world.getExitDirection(room, order[i]);
+                targets[room][i] = world.getExitTarget(room, order[i]);
+                set.add(directions[room][i]);
+                line.append(' ').append(directions[room][i]);
+            }
+            sets.add(Collections.unmodifiableSet(set));
+            exitStrings[room] = line.toString();
+            exitBytes[room] = exitStrings[room].getBytes(StandardCharsets.UTF_8);
+        }
+        directionSets = List.copyOf(sets);
+    }
+
+    /**
+     * @param room the id of a room
+     * @return the description of the room
+     */
+    public String getDescription(int room) {return world.getDescription(room);}
+
+    /**
+     * @param room the id of a room
+     * @return the amount of exits the room starts with
+     */
+    public int getExitCount(int room) {return directions[room].length;}
+
+    /**
+     * @param room the id of a room
+     * @param exit the number of the exit, in the order the exits are listed
+     * @return the direction of the exit
+     */
+    public String getExitDirection(int room, int exit) {return directions[room][exit];}
+
+    /**
+     * @param room the id of a room
+     * @param exit the number of the exit, in the order the exits are listed
+     * @return the id of the room the exit leads to
+     */
+    public int getExitTarget(int room, int exit) {return targets[room][exit];}
+
+    /**
+     * @param room the id of a room
+     * @param direction the direction of an exit
+     * @return the id of the room the exit leads to, or -1 if the room starts without an exit in that direction
+     */
+    public int findExit(int room, String direction)
+    {
+        String[] roomDirections = directions[room];
+        for (int i = 0; i < roomDirections.length; i++)
+        {
+            if (roomDirections[i].equals(direction))
+            {
+                return targets[room][i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param room the id of a room
+     * @return the directions of the exits the room starts with, in the order they are listed
+     */
+    public Set<String> getExitDirections(int room) {return directionSets.get(room);}
+
+    /**
+     * @param room the id of a room
+     * @return the line listing the exits the room starts with, for example "Exits: north west"
+     */
+    public String getExitString(int room) {return exitStrings[room];}
+
+    /**
+     * @param room the id of a room
+     * @return the line listing the exits in UTF-8. The array is shared and must not be changed.
+     */
+    public byte[] getExitBytes(int room) {return exitBytes[room];}
+}